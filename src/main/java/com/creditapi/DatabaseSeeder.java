@@ -7,6 +7,7 @@ import com.creditapi.model.InstallmentOption;
 import com.creditapi.repository.CustomerRepository;
 import com.creditapi.repository.LoanRepository;
 import com.creditapi.repository.LoanInstallmentRepository;
+import com.creditapi.util.LoanAggregates;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -57,13 +58,14 @@ public class DatabaseSeeder {
                 loan.setLoanAmount(installments.stream().map(LoanInstallment::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
                 loan.setNumberOfInstallments(InstallmentOption.SIX);
                 loan.setInterestRate(0.2);
-                loanRepository.save(loan);                
                 for (int i = 0; i < installments.size(); i++) {
                     LoanInstallment inst = installments.get(i);
                     inst.setLoan(loan);
                     inst.setDueDate(createDate.plusMonths(i + 1).withDayOfMonth(1));
-                    loanInstallmentRepository.save(inst);
                 }
+                LoanAggregates.of(installments).applyTo(loan);
+                loanRepository.save(loan);
+                installments.forEach(loanInstallmentRepository::save);
             };
 
             // Loan 1: all unpaid, createDate = today (all due in next 6 months)
@@ -141,13 +143,14 @@ public class DatabaseSeeder {
             paidLoan.setInterestRate(0.2);
             paidLoan.setPaid(true);
             paidLoan.setCreateDate(createDate8.atStartOfDay());
-            loanRepository.save(paidLoan);
             for (int i = 0; i < loan8.size(); i++) {
                 LoanInstallment inst = loan8.get(i);
                 inst.setLoan(paidLoan);
                 inst.setDueDate(createDate8.plusMonths(i + 1).withDayOfMonth(1));
-                loanInstallmentRepository.save(inst);
             }
+            LoanAggregates.of(loan8).applyTo(paidLoan);
+            loanRepository.save(paidLoan);
+            loan8.forEach(loanInstallmentRepository::save);
         };
     }
 }
@@ -0,0 +1,29 @@
+package com.creditapi.config;
+
+import com.creditapi.idempotency.IdempotencyFilter;
+import com.creditapi.idempotency.IdempotencyStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * Registers the Idempotency-Key filter for loan creation and payment.
+ * It is ordered right after the Spring Security filter chain so the key can be scoped to the authenticated user.
+ */
+@Configuration
+@ConditionalOnProperty(name = "idempotency.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfig {
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore store, ObjectMapper objectMapper,
+                                                                       @Value("${idempotency.in-flight-timeout-ms:30000}") long inFlightTimeoutMs) {
+        FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(new IdempotencyFilter(store, objectMapper, inFlightTimeoutMs));
+        registration.addUrlPatterns("/loans", "/loans/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,15 @@
+package com.creditapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.annotation.EnableRetry;
+
+/*
+ * Enables @Retryable on service methods.
+ * The retry advice is ordered before the transaction advice, so every attempt
+ * runs in a fresh transaction. It is used to retry credit limit reservations
+ * that lost an optimistic locking race on the Customer row.
+ */
+@Configuration
+@EnableRetry
+public class RetryConfig {
+}
@@ -0,0 +1,37 @@
+package com.creditapi.config;
+
+import com.creditapi.service.ScheduleMigrationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+ * Runs the schedule storage migration at startup when loan.schedule.migration.direction is set:
+ *   to-embedded  converts LoanInstallment rows into Loan.scheduleData
+ *   to-rows      converts Loan.scheduleData back into LoanInstallment rows
+ * Example: java -jar credit-api.jar --loan.schedule.migration.direction=to-embedded
+ */
+
+@Configuration
+@ConditionalOnProperty(name = "loan.schedule.migration.direction")
+public class ScheduleMigrationRunner {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleMigrationRunner.class);
+
+    @Bean
+    CommandLineRunner migrateSchedules(ScheduleMigrationService migrationService,
+                                       @Value("${loan.schedule.migration.direction}") String direction,
+                                       @Value("${loan.schedule.migration.batch-size:500}") int batchSize) {
+        return args -> {
+            int migrated = switch (direction) {
+                case "to-embedded" -> migrationService.migrateToEmbedded(batchSize);
+                case "to-rows" -> migrationService.migrateToRows(batchSize);
+                default -> throw new IllegalArgumentException("Unknown schedule migration direction: " + direction);
+            };
+            log.info("Schedule migration {} finished, {} loans converted", direction, migrated);
+        };
+    }
+}
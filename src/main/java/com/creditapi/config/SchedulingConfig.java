@@ -0,0 +1,12 @@
+package com.creditapi.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/*
+ * Enables @Scheduled background jobs such as the credit ledger's write-behind flush.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
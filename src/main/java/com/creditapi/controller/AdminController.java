@@ -0,0 +1,60 @@
+package com.creditapi.controller;
+
+import com.creditapi.dto.DueInstallmentDTO;
+import com.creditapi.dto.DueInstallmentPageDTO;
+import com.creditapi.dto.LoanAggregateDriftDTO;
+import com.creditapi.security.JwtUserDetails;
+import com.creditapi.service.DueInstallmentScanner;
+import com.creditapi.service.LoanAggregateChecker;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin")
+@Validated
+public class AdminController {
+    private static final int DEFAULT_DUE_PAGE_SIZE = 500;
+
+    private final LoanAggregateChecker loanAggregateChecker;
+    private final DueInstallmentScanner dueInstallmentScanner;
+
+    public AdminController(LoanAggregateChecker loanAggregateChecker, DueInstallmentScanner dueInstallmentScanner) {
+        this.loanAggregateChecker = loanAggregateChecker;
+        this.dueInstallmentScanner = dueInstallmentScanner;
+    }
+
+    // Full scan of all loans; an empty list means every stored total matches its installments
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/loan-aggregate-drift")
+    public ResponseEntity<List<LoanAggregateDriftDTO>> checkLoanAggregates(
+            @AuthenticationPrincipal JwtUserDetails user) {
+        return ResponseEntity.ok(loanAggregateChecker.check());
+    }
+
+    // Unpaid installments of all loans due between from and to (inclusive) in (dueDate, id) order.
+    // Keyset pagination: pass the X-Next-Cursor value as "after" to get the next page; the header is absent on the last page
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/due-installments")
+    public ResponseEntity<List<DueInstallmentDTO>> scanDueInstallments(
+            @AuthenticationPrincipal JwtUserDetails user,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) @Min(1) @Max(5000) Integer limit,
+            @RequestParam(required = false) String after) {
+        DueInstallmentPageDTO page = dueInstallmentScanner.scan(from, to, after, limit != null ? limit : DEFAULT_DUE_PAGE_SIZE);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(LoanController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getInstallments());
+    }
+}
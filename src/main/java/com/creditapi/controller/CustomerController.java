@@ -0,0 +1,30 @@
+package com.creditapi.controller;
+
+import com.creditapi.dto.CustomerSummaryDTO;
+import com.creditapi.security.JwtUserDetails;
+import com.creditapi.service.LoanService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/customers")
+public class CustomerController {
+    private final LoanService loanService;
+
+    public CustomerController(LoanService loanService) {
+        this.loanService = loanService;
+    }
+
+    // Portfolio overview in one call, instead of GET /loans followed by GET /loans/{id}/installments per loan
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #customerId.toString() == principal.customerId)")
+    @GetMapping("/{customerId}/summary")
+    public ResponseEntity<CustomerSummaryDTO> getSummary(
+            @AuthenticationPrincipal JwtUserDetails user,
+            @PathVariable UUID customerId) {
+        return ResponseEntity.ok(loanService.getCustomerSummary(customerId));
+    }
+}
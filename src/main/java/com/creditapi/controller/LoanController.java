@@ -1,33 +1,63 @@
 package com.creditapi.controller;
 
+import com.creditapi.dto.LoanBatchCreateRequestDTO;
+import com.creditapi.dto.LoanBatchCreateResponseDTO;
 import com.creditapi.dto.LoanCreateResponseDTO;
+import com.creditapi.dto.LoanInstallmentBatchGetRequestDTO;
+import com.creditapi.dto.LoanInstallmentBatchGetResponseDTO;
 import com.creditapi.dto.LoanInstallmentDTO;
+import com.creditapi.dto.LoanOperationDTO;
+import com.creditapi.dto.LoanPageDTO;
 import com.creditapi.dto.LoanCreateRequestDTO;
 import com.creditapi.dto.LoanResponseDTO;
 import com.creditapi.dto.PayInstallmentRequestDTO;
 import com.creditapi.dto.PayInstallmentResponseDTO;
 import com.creditapi.mapper.LoanMapper;
+import com.creditapi.service.CustomerCommandExecutor;
+import com.creditapi.service.LoanOriginationPipeline;
 import com.creditapi.service.LoanService;
 import com.creditapi.security.JwtUserDetails;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/loans")
+@Validated
 public class LoanController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     private final LoanService loanService;
     private final LoanMapper loanMapper;
+    private final LoanOriginationPipeline originationPipeline;
+    private final ObjectMapper objectMapper;
+    private final CustomerCommandExecutor customerCommands;
 
-    public LoanController(LoanService loanService, LoanMapper loanMapper) {
+    public LoanController(LoanService loanService, LoanMapper loanMapper, LoanOriginationPipeline originationPipeline, ObjectMapper objectMapper,
+                          CustomerCommandExecutor customerCommands) {
         this.loanService = loanService;
         this.loanMapper = loanMapper;
+        this.originationPipeline = originationPipeline;
+        this.objectMapper = objectMapper;
+        this.customerCommands = customerCommands;
     }
 
     @PreAuthorize("hasRole('ADMIN')")
@@ -35,37 +65,144 @@ public class LoanController {
     public ResponseEntity<LoanCreateResponseDTO> createLoan(
             @AuthenticationPrincipal JwtUserDetails user,
             @Valid @RequestBody LoanCreateRequestDTO request) {
-        LoanCreateResponseDTO response = loanService.createLoan(request);
+        // With loan.actors.enabled the command runs in the customer's mailbox, serialized with the customer's other commands
+        LoanCreateResponseDTO response = customerCommands.isEnabled() ? customerCommands.createLoan(request) : loanService.createLoan(request);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    // Queued for a background worker; the result is polled from GET /operations/{id}
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(params = "async=true")
+    public ResponseEntity<LoanOperationDTO> createLoanAsync(
+            @AuthenticationPrincipal JwtUserDetails user,
+            @Valid @RequestBody LoanCreateRequestDTO request) {
+        LoanOperationDTO operation = originationPipeline.submit(request);
+        return ResponseEntity.accepted()
+            .location(URI.create("/operations/" + operation.getId()))
+            .body(operation);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/batch")
+    public ResponseEntity<LoanBatchCreateResponseDTO> createLoans(
+            @AuthenticationPrincipal JwtUserDetails user,
+            @Valid @RequestBody LoanBatchCreateRequestDTO request) {
+        LoanBatchCreateResponseDTO response = loanService.createLoans(request.getLoans());
+        return ResponseEntity.ok(response);
+    }
+
     @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #customerId.toString() == principal.customerId)")
     @GetMapping
     public ResponseEntity<List<LoanResponseDTO>> listLoans(
+            @AuthenticationPrincipal JwtUserDetails user,
+            @RequestParam UUID customerId,
+            @RequestParam(required = false) Integer numberOfInstallments,
+            @RequestParam(required = false) Boolean isPaid,
+            @RequestParam(required = false) @Min(1) @Max(500) Integer limit,
+            @RequestParam(required = false) UUID after,
+            WebRequest webRequest) {
+        // A matching If-None-Match is answered with 304 after a single version query, which also rejects unknown customers.
+        // The same version keys the list cache, so it is read once per request
+        String listVersion = loanService.getLoanListVersion(customerId);
+        if (webRequest.checkNotModified(etag(listVersion))) {
+            return null;
+        }
+        if (limit == null && after == null) {
+            List<LoanResponseDTO> loans = loanService.listLoansByCustomerId(customerId, numberOfInstallments, isPaid, listVersion);
+            return ResponseEntity.ok(loans);
+        }
+
+        // Keyset pagination: pass the X-Next-Cursor value as "after" to get the next page; the header is absent on the last page
+        LoanPageDTO page = loanService.listLoansByCustomerId(customerId, numberOfInstallments, isPaid, after, limit != null ? limit : DEFAULT_PAGE_SIZE);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+        }
+        return response.body(page.getLoans());
+    }
+
+    // Export mode for Accept: application/x-ndjson. One loan per line, written while the rows are read from the database,
+    // so memory stays flat for customers with many loans and the client gets the first line right away
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('CUSTOMER') and #customerId.toString() == principal.customerId)")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportLoans(
             @AuthenticationPrincipal JwtUserDetails user,
             @RequestParam UUID customerId,
             @RequestParam(required = false) Integer numberOfInstallments,
             @RequestParam(required = false) Boolean isPaid) {
-        List<LoanResponseDTO> loans = loanService.listLoansByCustomerId(customerId, numberOfInstallments, isPaid);
-        return ResponseEntity.ok(loans);
+        // Checked up front: once the body is streaming, the status can no longer become a 404
+        loanService.checkCustomerExists(customerId);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                boolean[] first = {true};
+                loanService.exportLoansByCustomerId(customerId, numberOfInstallments, isPaid, loan -> {
+                    try {
+                        generator.writeObject(loan);
+                        generator.writeRaw('\n');
+                        if (first[0]) {
+                            generator.flush();
+                            first[0] = false;
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
     @GetMapping("/{loanId}/installments")
     public ResponseEntity<List<LoanInstallmentDTO>> listInstallmentsForLoan(
             @AuthenticationPrincipal JwtUserDetails user,
-            @PathVariable UUID loanId) {
+            @PathVariable UUID loanId,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(etag(loanService.getInstallmentsVersion(loanId)))) {
+            return null;
+        }
         List<LoanInstallmentDTO> installments = loanService.listInstallmentsByLoanId(loanId);
         return ResponseEntity.ok(installments);
     }
 
+    // Schedules of many loans in one request and one query, for the statement and collections services that would
+    // otherwise fetch them loan by loan. The loans may belong to anyone, so it is not open to customers
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/installments:batchGet")
+    public ResponseEntity<LoanInstallmentBatchGetResponseDTO> batchGetInstallments(
+            @Valid @RequestBody LoanInstallmentBatchGetRequestDTO request) {
+        LoanInstallmentBatchGetResponseDTO response = loanService.listInstallmentsByLoanIds(request.getLoanIds());
+        return ResponseEntity.ok(response);
+    }
+
     @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
     @PostMapping("/{loanId}/pay")
     public ResponseEntity<PayInstallmentResponseDTO> payInstallments(
             @AuthenticationPrincipal JwtUserDetails user,
             @PathVariable UUID loanId,
             @Valid @RequestBody PayInstallmentRequestDTO request) {
-        PayInstallmentResponseDTO response = loanService.payInstallments(loanId, request);
+        PayInstallmentResponseDTO response = customerCommands.isEnabled()
+            ? customerCommands.payInstallments(loanId, request)
+            : loanService.payInstallments(loanId, request);
+        return ResponseEntity.ok(response);
+    }
+
+    // Preview of a payment: the same response as /pay, but nothing is paid
+    @PreAuthorize("hasRole('ADMIN') or hasRole('CUSTOMER')")
+    @PostMapping("/{loanId}/pay/quote")
+    public ResponseEntity<PayInstallmentResponseDTO> quotePayment(
+            @AuthenticationPrincipal JwtUserDetails user,
+            @PathVariable UUID loanId,
+            @Valid @RequestBody PayInstallmentRequestDTO request) {
+        PayInstallmentResponseDTO response = loanService.quotePayment(loanId, request);
         return ResponseEntity.ok(response);
     }
+
+    // Strong ETag from a version that is read before the body, so the body is never older than its ETag.
+    // checkNotModified also sets it on the 200 response
+    private static String etag(Object version) {
+        return "\"" + version + "\"";
+    }
 }
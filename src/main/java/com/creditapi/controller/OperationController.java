@@ -0,0 +1,29 @@
+package com.creditapi.controller;
+
+import com.creditapi.dto.LoanOperationDTO;
+import com.creditapi.security.JwtUserDetails;
+import com.creditapi.service.LoanOriginationPipeline;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/operations")
+public class OperationController {
+    private final LoanOriginationPipeline originationPipeline;
+
+    public OperationController(LoanOriginationPipeline originationPipeline) {
+        this.originationPipeline = originationPipeline;
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/{operationId}")
+    public ResponseEntity<LoanOperationDTO> getOperation(
+            @AuthenticationPrincipal JwtUserDetails user,
+            @PathVariable UUID operationId) {
+        return ResponseEntity.ok(originationPipeline.getOperation(operationId));
+    }
+}
@@ -0,0 +1,33 @@
+package com.creditapi.controller;
+
+import com.creditapi.service.PaymentImportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+@RestController
+@RequestMapping("/payments")
+public class PaymentController {
+    public static final String TEXT_CSV = "text/csv";
+
+    private final PaymentImportService paymentImportService;
+
+    public PaymentController(PaymentImportService paymentImportService) {
+        this.paymentImportService = paymentImportService;
+    }
+
+    // Bank feed import: the CSV body is read as a stream and the per-line results are written back as they are produced,
+    // so neither the upload nor the result file is ever held in memory as a whole
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping(value = "/import", consumes = TEXT_CSV, produces = TEXT_CSV)
+    public void importPayments(InputStream body, HttpServletResponse response) throws IOException {
+        response.setContentType(TEXT_CSV);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        paymentImportService.importPayments(new InputStreamReader(body, StandardCharsets.UTF_8), response.getWriter());
+    }
+}
@@ -0,0 +1,32 @@
+package com.creditapi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class CustomerSummaryDTO {
+    private UUID customerId;
+    private int activeLoans;
+    private BigDecimal outstandingPrincipal;
+    private BigDecimal totalRemainingPayable;
+    private long overdueInstallments;
+    // Earliest unpaid due date from today on and the total of all installments due that day; null when nothing is due
+    private LocalDate nextDueDate;
+    private BigDecimal nextDueAmount;
+
+    // getters and setters
+    public UUID getCustomerId() { return customerId; }
+    public void setCustomerId(UUID customerId) { this.customerId = customerId; }
+    public int getActiveLoans() { return activeLoans; }
+    public void setActiveLoans(int activeLoans) { this.activeLoans = activeLoans; }
+    public BigDecimal getOutstandingPrincipal() { return outstandingPrincipal; }
+    public void setOutstandingPrincipal(BigDecimal outstandingPrincipal) { this.outstandingPrincipal = outstandingPrincipal; }
+    public BigDecimal getTotalRemainingPayable() { return totalRemainingPayable; }
+    public void setTotalRemainingPayable(BigDecimal totalRemainingPayable) { this.totalRemainingPayable = totalRemainingPayable; }
+    public long getOverdueInstallments() { return overdueInstallments; }
+    public void setOverdueInstallments(long overdueInstallments) { this.overdueInstallments = overdueInstallments; }
+    public LocalDate getNextDueDate() { return nextDueDate; }
+    public void setNextDueDate(LocalDate nextDueDate) { this.nextDueDate = nextDueDate; }
+    public BigDecimal getNextDueAmount() { return nextDueAmount; }
+    public void setNextDueAmount(BigDecimal nextDueAmount) { this.nextDueAmount = nextDueAmount; }
+}
@@ -0,0 +1,40 @@
+package com.creditapi.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// An unpaid installment found by the due installment scan, with the loan and customer it belongs to
+public class DueInstallmentDTO {
+    private UUID id;
+    private UUID loanId;
+    private UUID customerId;
+    private BigDecimal amount;
+    private BigDecimal paidAmount;
+    private LocalDate dueDate;
+
+    public DueInstallmentDTO() {}
+
+    // Used by the constructor expression in LoanInstallmentRepository.findUnpaidDueBetween
+    public DueInstallmentDTO(UUID id, UUID loanId, UUID customerId, BigDecimal amount, BigDecimal paidAmount, LocalDate dueDate) {
+        this.id = id;
+        this.loanId = loanId;
+        this.customerId = customerId;
+        this.amount = amount;
+        this.paidAmount = paidAmount;
+        this.dueDate = dueDate;
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+    public UUID getLoanId() { return loanId; }
+    public void setLoanId(UUID loanId) { this.loanId = loanId; }
+    public UUID getCustomerId() { return customerId; }
+    public void setCustomerId(UUID customerId) { this.customerId = customerId; }
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public BigDecimal getPaidAmount() { return paidAmount; }
+    public void setPaidAmount(BigDecimal paidAmount) { this.paidAmount = paidAmount; }
+    public LocalDate getDueDate() { return dueDate; }
+    public void setDueDate(LocalDate dueDate) { this.dueDate = dueDate; }
+}
@@ -0,0 +1,14 @@
+package com.creditapi.dto;
+
+import java.util.List;
+
+public class DueInstallmentPageDTO {
+    private List<DueInstallmentDTO> installments;
+    private String nextCursor;
+
+    // getters and setters
+    public List<DueInstallmentDTO> getInstallments() { return installments; }
+    public void setInstallments(List<DueInstallmentDTO> installments) { this.installments = installments; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -0,0 +1,35 @@
+package com.creditapi.dto;
+
+import com.creditapi.util.LoanAggregates;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// A loan whose stored running totals no longer match its installments
+public class LoanAggregateDriftDTO {
+    private UUID loanId;
+    private LoanAggregates stored;
+    private LoanAggregates actual;
+
+    public LoanAggregateDriftDTO() {}
+
+    public LoanAggregateDriftDTO(UUID loanId, LoanAggregates stored, LoanAggregates actual) {
+        this.loanId = loanId;
+        this.stored = stored;
+        this.actual = actual;
+    }
+
+    // Used by the constructor expression in LoanRepository.findRowAggregateDrift
+    public LoanAggregateDriftDTO(UUID loanId, int storedPaidInstallmentCount, BigDecimal storedOutstandingAmount, LocalDate storedNextDueDate,
+                                 long paidInstallmentCount, BigDecimal outstandingAmount, LocalDate nextDueDate) {
+        this(loanId, new LoanAggregates(storedPaidInstallmentCount, storedOutstandingAmount, storedNextDueDate),
+            new LoanAggregates((int) paidInstallmentCount, outstandingAmount, nextDueDate));
+    }
+
+    public UUID getLoanId() { return loanId; }
+    public void setLoanId(UUID loanId) { this.loanId = loanId; }
+    public LoanAggregates getStored() { return stored; }
+    public void setStored(LoanAggregates stored) { this.stored = stored; }
+    public LoanAggregates getActual() { return actual; }
+    public void setActual(LoanAggregates actual) { this.actual = actual; }
+}
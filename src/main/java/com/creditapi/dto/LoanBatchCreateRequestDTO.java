@@ -0,0 +1,17 @@
+package com.creditapi.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class LoanBatchCreateRequestDTO {
+    @NotEmpty
+    @Size(max = 500, message = "at most 500 loans can be created in one batch")
+    private List<@Valid LoanCreateRequestDTO> loans;
+
+    public LoanBatchCreateRequestDTO() {}
+
+    public List<LoanCreateRequestDTO> getLoans() { return loans; }
+    public void setLoans(List<LoanCreateRequestDTO> loans) { this.loans = loans; }
+}
@@ -0,0 +1,33 @@
+package com.creditapi.dto;
+
+import java.util.List;
+
+public class LoanBatchCreateResponseDTO {
+    private int createdCount;
+    private int failedCount;
+    private List<ItemResult> results;
+
+    public static class ItemResult {
+        private int index;
+        private boolean success;
+        private LoanCreateResponseDTO loan;
+        private String error;
+        // getters and setters
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+        public boolean isSuccess() { return success; }
+        public void setSuccess(boolean success) { this.success = success; }
+        public LoanCreateResponseDTO getLoan() { return loan; }
+        public void setLoan(LoanCreateResponseDTO loan) { this.loan = loan; }
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+    }
+
+    // getters and setters
+    public int getCreatedCount() { return createdCount; }
+    public void setCreatedCount(int createdCount) { this.createdCount = createdCount; }
+    public int getFailedCount() { return failedCount; }
+    public void setFailedCount(int failedCount) { this.failedCount = failedCount; }
+    public List<ItemResult> getResults() { return results; }
+    public void setResults(List<ItemResult> results) { this.results = results; }
+}
@@ -0,0 +1,18 @@
+package com.creditapi.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import java.util.UUID;
+
+public class LoanInstallmentBatchGetRequestDTO {
+    @NotEmpty
+    @Size(max = 500, message = "at most 500 loans can be read in one batch")
+    private List<@NotNull UUID> loanIds;
+
+    public LoanInstallmentBatchGetRequestDTO() {}
+
+    public List<UUID> getLoanIds() { return loanIds; }
+    public void setLoanIds(List<UUID> loanIds) { this.loanIds = loanIds; }
+}
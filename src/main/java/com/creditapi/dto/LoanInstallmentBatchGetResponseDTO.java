@@ -0,0 +1,20 @@
+package com.creditapi.dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class LoanInstallmentBatchGetResponseDTO {
+    // Keyed by loan id in request order; a loan without installments maps to an empty list
+    private Map<UUID, List<LoanInstallmentDTO>> installments;
+    // Requested ids that match no loan
+    private List<UUID> notFound;
+
+    public LoanInstallmentBatchGetResponseDTO() {}
+
+    // getters and setters
+    public Map<UUID, List<LoanInstallmentDTO>> getInstallments() { return installments; }
+    public void setInstallments(Map<UUID, List<LoanInstallmentDTO>> installments) { this.installments = installments; }
+    public List<UUID> getNotFound() { return notFound; }
+    public void setNotFound(List<UUID> notFound) { this.notFound = notFound; }
+}
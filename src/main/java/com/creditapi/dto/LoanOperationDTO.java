@@ -0,0 +1,29 @@
+package com.creditapi.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class LoanOperationDTO {
+    private UUID id;
+    private Status status;
+    private LoanCreateResponseDTO loan;
+    private String error;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+
+    public enum Status { PENDING, SUCCEEDED, FAILED }
+
+    // getters and setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    public LoanCreateResponseDTO getLoan() { return loan; }
+    public void setLoan(LoanCreateResponseDTO loan) { this.loan = loan; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+    public LocalDateTime getSubmittedAt() { return submittedAt; }
+    public void setSubmittedAt(LocalDateTime submittedAt) { this.submittedAt = submittedAt; }
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+}
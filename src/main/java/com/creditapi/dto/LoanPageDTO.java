@@ -0,0 +1,15 @@
+package com.creditapi.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+public class LoanPageDTO {
+    private List<LoanResponseDTO> loans;
+    private UUID nextCursor;
+
+    // getters and setters
+    public List<LoanResponseDTO> getLoans() { return loans; }
+    public void setLoans(List<LoanResponseDTO> loans) { this.loans = loans; }
+    public UUID getNextCursor() { return nextCursor; }
+    public void setNextCursor(UUID nextCursor) { this.nextCursor = nextCursor; }
+}
@@ -1,5 +1,6 @@
 package com.creditapi.dto;
 
+import com.creditapi.model.InstallmentOption;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -15,9 +16,30 @@ public class LoanResponseDTO {
     private boolean isPaid;
     private BigDecimal paymentAmount;
     private LocalDate firstPaymentDate;
+    private int paidInstallmentCount;
+    private BigDecimal outstandingAmount;
+    private LocalDate nextDueDate;
 
     public LoanResponseDTO() {}
 
+    // Used by the constructor expression in LoanListingRepositoryImpl so list queries select straight into the DTO
+    public LoanResponseDTO(UUID id, UUID customerId, BigDecimal loanAmount, InstallmentOption numberOfInstallments, double interestRate,
+                           LocalDate createDate, boolean isPaid, BigDecimal paymentAmount, LocalDate firstPaymentDate,
+                           int paidInstallmentCount, BigDecimal outstandingAmount, LocalDate nextDueDate) {
+        this.id = id;
+        this.customerId = customerId;
+        this.loanAmount = loanAmount;
+        this.numberOfInstallments = numberOfInstallments != null ? numberOfInstallments.getValue() : null;
+        this.interestRate = interestRate;
+        this.createDate = createDate;
+        this.isPaid = isPaid;
+        this.paymentAmount = paymentAmount;
+        this.firstPaymentDate = firstPaymentDate;
+        this.paidInstallmentCount = paidInstallmentCount;
+        this.outstandingAmount = outstandingAmount;
+        this.nextDueDate = nextDueDate;
+    }
+
     public UUID getId() { return id; }
     public void setId(UUID id) { this.id = id; }
     public UUID getCustomerId() { return customerId; }
@@ -37,4 +59,10 @@ public class LoanResponseDTO {
     public void setPaymentAmount(BigDecimal paymentAmount) { this.paymentAmount = paymentAmount; }
     public LocalDate getFirstPaymentDate() { return firstPaymentDate; }
     public void setFirstPaymentDate(LocalDate firstPaymentDate) { this.firstPaymentDate = firstPaymentDate; }
+    public int getPaidInstallmentCount() { return paidInstallmentCount; }
+    public void setPaidInstallmentCount(int paidInstallmentCount) { this.paidInstallmentCount = paidInstallmentCount; }
+    public BigDecimal getOutstandingAmount() { return outstandingAmount; }
+    public void setOutstandingAmount(BigDecimal outstandingAmount) { this.outstandingAmount = outstandingAmount; }
+    public LocalDate getNextDueDate() { return nextDueDate; }
+    public void setNextDueDate(LocalDate nextDueDate) { this.nextDueDate = nextDueDate; }
 }
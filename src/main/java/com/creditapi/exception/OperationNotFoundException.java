@@ -0,0 +1,7 @@
+package com.creditapi.exception;
+
+public class OperationNotFoundException extends RuntimeException {
+    public OperationNotFoundException(String message) {
+        super(message);
+    }
+}
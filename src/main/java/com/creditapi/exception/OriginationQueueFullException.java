@@ -0,0 +1,7 @@
+package com.creditapi.exception;
+
+public class OriginationQueueFullException extends RuntimeException {
+    public OriginationQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -2,7 +2,9 @@ package com.creditapi.handler;
 
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -26,6 +28,8 @@ import java.util.stream.Collectors;
 import com.creditapi.exception.CustomerNotFoundException;
 import com.creditapi.exception.LoanNotFoundException;
 import com.creditapi.exception.InsufficientCreditLimitException;
+import com.creditapi.exception.OperationNotFoundException;
+import com.creditapi.exception.OriginationQueueFullException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,7 +81,7 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<ErrorResponse> handleAccessDeniedException(AccessDeniedException ex, HttpServletRequest request) {
         ErrorResponse body = buildErrorResponse(HttpStatus.FORBIDDEN, "Access denied", "Access Denied", request.getRequestURI());
-        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(body);
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @ExceptionHandler(BadCredentialsException.class)
@@ -100,7 +104,8 @@ public class GlobalExceptionHandler {
     public ResponseEntity<ErrorResponse> handleCustomerNotFoundException(CustomerNotFoundException ex, HttpServletRequest request) {
         logger.warn("Customer not found: {}", ex.getMessage());
         ErrorResponse body = buildErrorResponse(HttpStatus.NOT_FOUND, ex.getMessage(), "Customer Not Found", request.getRequestURI());
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
+        // Explicit content type so the error is still written when the client only accepts application/x-ndjson (loan export)
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @ExceptionHandler(LoanNotFoundException.class)
@@ -111,6 +116,21 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
     }
 
+    @ExceptionHandler(OperationNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ResponseEntity<ErrorResponse> handleOperationNotFoundException(OperationNotFoundException ex, HttpServletRequest request) {
+        ErrorResponse body = buildErrorResponse(HttpStatus.NOT_FOUND, ex.getMessage(), "Operation Not Found", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
+    }
+
+    @ExceptionHandler(OriginationQueueFullException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<ErrorResponse> handleOriginationQueueFullException(OriginationQueueFullException ex, HttpServletRequest request) {
+        logger.warn("Loan origination queue full");
+        ErrorResponse body = buildErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage(), "Service Unavailable", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "1").body(body);
+    }
+
     @ExceptionHandler(InsufficientCreditLimitException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ErrorResponse> handleInsufficientCreditLimitException(InsufficientCreditLimitException ex, HttpServletRequest request) {
@@ -119,12 +139,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(body);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, HttpServletRequest request) {
+        logger.warn("Concurrent update conflict: {}", ex.getMessage());
+        ErrorResponse body = buildErrorResponse(HttpStatus.CONFLICT, "The resource was modified concurrently, please retry", "Conflict", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ResponseEntity<ErrorResponse> handleMethodArgumentTypeMismatchException(MethodArgumentTypeMismatchException ex, HttpServletRequest request) {
         String message = String.format("Invalid value '%s' for parameter '%s'. Expected type: %s", ex.getValue(), ex.getName(), ex.getRequiredType() != null ? ex.getRequiredType().getSimpleName() : "unknown");
         ErrorResponse body = buildErrorResponse(HttpStatus.BAD_REQUEST, message, "Type Mismatch", request.getRequestURI());
-        return ResponseEntity.badRequest().body(body);
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @ExceptionHandler(Exception.class)
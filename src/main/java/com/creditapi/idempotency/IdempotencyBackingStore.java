@@ -0,0 +1,25 @@
+package com.creditapi.idempotency;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/*
+ * Persistent second level behind the in-memory IdempotencyStore, so recorded responses survive a restart
+ * and are visible to other instances. NONE is used when no backing store bean is configured.
+ */
+public interface IdempotencyBackingStore {
+    IdempotencyBackingStore NONE = new IdempotencyBackingStore() {
+        @Override
+        public Optional<IdempotentResponse> find(String key) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void save(String key, IdempotentResponse response, Instant expiresAt) {
+        }
+    };
+
+    Optional<IdempotentResponse> find(String key);
+
+    void save(String key, IdempotentResponse response, Instant expiresAt);
+}
@@ -0,0 +1,201 @@
+package com.creditapi.idempotency;
+
+import com.creditapi.handler.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/*
+ * Makes POST /loans and POST /loans/{loanId}/pay safe to retry when the client sends an Idempotency-Key header.
+ * Keys are scoped to the authenticated user. A repeated key returns the recorded status and body without reaching
+ * the controller; a key reused with a different request is rejected with 422.
+ * Registered in IdempotencyConfig so it runs after the Spring Security filter chain has authenticated the request.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final Pattern IDEMPOTENT_PATHS = Pattern.compile("^/loans(/[^/]+/pay)?/?$");
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final long inFlightTimeoutMs;
+
+    public IdempotencyFilter(IdempotencyStore store, ObjectMapper objectMapper, long inFlightTimeoutMs) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.inFlightTimeoutMs = inFlightTimeoutMs;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+            || request.getHeader(HEADER) == null
+            || !IDEMPOTENT_PATHS.matcher(request.getRequestURI().substring(request.getContextPath().length())).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(request, response, HttpStatus.BAD_REQUEST, HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        String fingerprint = fingerprint(request, body);
+        String scopedKey = principalName() + ":" + key;
+
+        IdempotencyStore.Claim claim;
+        try {
+            claim = store.claim(scopedKey, inFlightTimeoutMs);
+        } catch (TimeoutException e) {
+            writeError(request, response, HttpStatus.CONFLICT, e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writeError(request, response, HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for the original request");
+            return;
+        }
+
+        if (!claim.isOwner()) {
+            replay(request, response, claim.recorded(), fingerprint);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapped = new ContentCachingResponseWrapper(response);
+        IdempotentResponse recorded = null;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), wrapped);
+            recorded = new IdempotentResponse(fingerprint, wrapped.getStatus(), wrapped.getContentType(), wrapped.getContentAsByteArray());
+        } finally {
+            store.complete(scopedKey, recorded);
+            wrapped.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletRequest request, HttpServletResponse response, IdempotentResponse recorded, String fingerprint) throws IOException {
+        if (!recorded.fingerprint().equals(fingerprint)) {
+            writeError(request, response, HttpStatus.UNPROCESSABLE_ENTITY, HEADER + " was already used for a different request");
+            return;
+        }
+        response.setStatus(recorded.status());
+        if (recorded.contentType() != null) {
+            response.setContentType(recorded.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(recorded.body().length);
+        response.getOutputStream().write(recorded.body());
+    }
+
+    private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        String timestamp = ZonedDateTime.now().format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+        ErrorResponse body = new ErrorResponse(timestamp, status.value(), "Idempotency Error", message, request.getRequestURI());
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+
+    private static String principalName() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "anonymous" : authentication.getName();
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ' ');
+            digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // The body has already been read to fingerprint it, so downstream readers get it from memory
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
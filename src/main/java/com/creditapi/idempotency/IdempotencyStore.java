@@ -0,0 +1,113 @@
+package com.creditapi.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+ * Bounded, TTL-evicting store of responses per idempotency key.
+ * The first request for a key becomes its owner and executes; concurrent duplicates wait on the owner's
+ * future instead of executing again. Only responses that would come out the same on a retry are recorded: 5xx and
+ * the transient 4xx statuses (a 409 from an optimistic lock conflict, 408, 425, 429) are not, so the client can retry them.
+ */
+@Component
+public class IdempotencyStore {
+    private final Cache<String, IdempotentResponse> responses;
+    private final ConcurrentMap<String, CompletableFuture<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+    private final IdempotencyBackingStore backingStore;
+    private final Duration ttl;
+
+    public IdempotencyStore(ObjectProvider<IdempotencyBackingStore> backingStore,
+                            @Value("${idempotency.ttl:24h}") Duration ttl,
+                            @Value("${idempotency.max-entries:100000}") long maxEntries) {
+        this.backingStore = backingStore.getIfAvailable(() -> IdempotencyBackingStore.NONE);
+        this.ttl = ttl;
+        this.responses = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(ttl)
+            .build();
+    }
+
+    // Returns a claim carrying the recorded response, or an owner claim when the caller must execute the request and then call complete
+    public Claim claim(String key, long timeoutMs) throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            IdempotentResponse recorded = responses.getIfPresent(key);
+            if (recorded != null) {
+                return new Claim(recorded);
+            }
+
+            CompletableFuture<IdempotentResponse> mine = new CompletableFuture<>();
+            CompletableFuture<IdempotentResponse> running = inFlight.putIfAbsent(key, mine);
+            if (running == null) {
+                // Owning the key; a response may still exist in the backing store or have been recorded just before we claimed it
+                recorded = responses.getIfPresent(key);
+                if (recorded == null) {
+                    recorded = backingStore.find(key).orElse(null);
+                    if (recorded != null) {
+                        responses.put(key, recorded);
+                    }
+                }
+                if (recorded != null) {
+                    inFlight.remove(key, mine);
+                    mine.complete(recorded);
+                    return new Claim(recorded);
+                }
+                return new Claim(null);
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException("Request with the same idempotency key is still in progress");
+            }
+            try {
+                IdempotentResponse result = running.get(remaining, TimeUnit.NANOSECONDS);
+                if (result != null) {
+                    return new Claim(result);
+                }
+                // The owner's response was not recorded; loop and try to become the owner
+            } catch (ExecutionException e) {
+                // Owner failed; loop and try to become the owner
+            }
+        }
+    }
+
+    // A null response means the owner failed without producing one; waiters then compete to execute again
+    public void complete(String key, IdempotentResponse response) {
+        boolean record = response != null && isReplayable(response.status());
+        if (record) {
+            // Recorded before the in-flight entry is removed so a new duplicate always finds one of the two
+            responses.put(key, response);
+            backingStore.save(key, response, Instant.now().plus(ttl));
+        }
+        CompletableFuture<IdempotentResponse> future = inFlight.remove(key);
+        if (future != null) {
+            future.complete(record ? response : null);
+        }
+    }
+
+    // 2xx and deterministic 4xx; the 409 GlobalExceptionHandler returns for a lock conflict succeeds on a retry, so it counts as transient
+    static boolean isReplayable(int status) {
+        return switch (status) {
+            case 408, 409, 425, 429 -> false;
+            default -> status >= 200 && status < 500;
+        };
+    }
+
+    public record Claim(IdempotentResponse recorded) {
+        public boolean isOwner() {
+            return recorded == null;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.creditapi.idempotency;
+
+/*
+ * Response recorded for an idempotency key. The fingerprint identifies the original request
+ * (method, path and body hash) so a key reused for a different request can be rejected.
+ */
+public record IdempotentResponse(String fingerprint, int status, String contentType, byte[] body) {
+}
@@ -0,0 +1,48 @@
+package com.creditapi.idempotency;
+
+import com.creditapi.model.IdempotencyRecord;
+import com.creditapi.repository.IdempotencyRecordRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/*
+ * Keeps recorded responses in the idempotency_record table. Enabled with idempotency.backing-store=jpa.
+ * Expired rows are ignored on read and purged periodically.
+ */
+@Component
+@ConditionalOnProperty(name = "idempotency.backing-store", havingValue = "jpa")
+public class JpaIdempotencyBackingStore implements IdempotencyBackingStore {
+    private final IdempotencyRecordRepository repository;
+
+    public JpaIdempotencyBackingStore(IdempotencyRecordRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public Optional<IdempotentResponse> find(String key) {
+        return repository.findById(key)
+            .filter(record -> record.getExpiresAt().isAfter(Instant.now()))
+            .map(record -> new IdempotentResponse(record.getFingerprint(), record.getStatus(), record.getContentType(), record.getBody()));
+    }
+
+    @Override
+    public void save(String key, IdempotentResponse response, Instant expiresAt) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setKey(key);
+        record.setFingerprint(response.fingerprint());
+        record.setStatus(response.status());
+        record.setContentType(response.contentType());
+        record.setBody(response.body());
+        record.setExpiresAt(expiresAt);
+        repository.save(record);
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        repository.deleteExpired(Instant.now());
+    }
+}
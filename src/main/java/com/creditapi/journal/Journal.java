@@ -0,0 +1,197 @@
+package com.creditapi.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Append-only journal of JournalRecords in preallocated, memory-mapped segment files.
+ *
+ * Appending copies the frame into the mapped segment under a short lock and assigns the next sequence number;
+ * it does not wait for the disk. Callers that need durability then call awaitDurable with the returned sequence.
+ * That is a group commit: the first waiter forces the segment for everything appended so far, waiters that arrive
+ * meanwhile block until that force is done and are usually covered by it, so concurrent requests share one fsync.
+ *
+ * A segment that cannot take the next frame is forced and closed, and a new one is started. A restart always starts
+ * a new segment after the existing ones and continues the sequence numbers, so files are never appended to twice.
+ */
+public final class Journal implements Closeable {
+    static final String SEGMENT_PREFIX = "journal-";
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentSize;
+
+    // Guarded by appendLock
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private long segmentNumber;
+    private long nextSequence;
+    private boolean closed;
+
+    // Guarded by flushMonitor
+    private final Object flushMonitor = new Object();
+    private long durableSequence;
+    private boolean flushing;
+
+    private final AtomicLong appendedRecords = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+
+    private Journal(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    public static Journal open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < JournalCodec.SEGMENT_HEADER_LENGTH + JournalCodec.MAX_FRAME_LENGTH) {
+            throw new IllegalArgumentException("Journal segment size is too small: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        Journal journal = new Journal(directory, segmentSize);
+        List<Path> segments = JournalReader.segments(directory);
+        journal.segmentNumber = segments.isEmpty() ? 0 : JournalReader.segmentNumber(segments.get(segments.size() - 1)) + 1;
+        journal.nextSequence = JournalReader.lastSequence(segments) + 1;
+        journal.durableSequence = journal.nextSequence - 1;
+        journal.startSegment();
+        return journal;
+    }
+
+    // Returns the sequence number of the record
+    public long append(JournalRecord record) throws IOException {
+        return appendAll(List.of(record));
+    }
+
+    // Appends the records in order under one lock acquisition and returns the sequence number of the last one
+    public long appendAll(List<? extends JournalRecord> records) throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IOException("Journal is closed");
+            }
+            long timestamp = System.currentTimeMillis();
+            for (JournalRecord record : records) {
+                if (segment.remaining() < JournalCodec.frameLength(record)) {
+                    rollSegment();
+                }
+                JournalCodec.writeFrame(segment, nextSequence++, timestamp, record);
+            }
+            appendedRecords.addAndGet(records.size());
+            return nextSequence - 1;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Returns once the record with this sequence number, and every one before it, is on disk
+    public void awaitDurable(long sequence) throws IOException {
+        while (true) {
+            synchronized (flushMonitor) {
+                while (durableSequence < sequence && flushing) {
+                    try {
+                        flushMonitor.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for the journal");
+                    }
+                }
+                if (durableSequence >= sequence) {
+                    return;
+                }
+                flushing = true;
+            }
+            // This thread leads the next group commit
+            long flushedUpTo = -1;
+            try {
+                MappedByteBuffer target;
+                appendLock.lock();
+                try {
+                    if (closed) {
+                        throw new IOException("Journal is closed");
+                    }
+                    target = segment;
+                    flushedUpTo = nextSequence - 1;
+                } finally {
+                    appendLock.unlock();
+                }
+                // Earlier segments were forced when they were rolled, so the current one covers everything up to flushedUpTo
+                target.force();
+                syncs.incrementAndGet();
+            } catch (IOException | RuntimeException e) {
+                flushedUpTo = -1;
+                throw e;
+            } finally {
+                synchronized (flushMonitor) {
+                    flushing = false;
+                    durableSequence = Math.max(durableSequence, flushedUpTo);
+                    flushMonitor.notifyAll();
+                }
+            }
+        }
+    }
+
+    public long getAppendedRecords() {
+        return appendedRecords.get();
+    }
+
+    // Number of fsyncs done for group commits; appended records divided by syncs is the average group size
+    public long getSyncs() {
+        return syncs.get();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            segment.force();
+            channel.close();
+            markDurable(nextSequence - 1);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Called with appendLock held
+    private void rollSegment() throws IOException {
+        segment.force();
+        channel.close();
+        markDurable(nextSequence - 1);
+        segmentNumber++;
+        startSegment();
+    }
+
+    // Called with appendLock held, or before the journal is published. The whole file is mapped up front, so it is
+    // zero filled and every append is a plain memory copy. The mapping of a closed segment is released by the GC
+    private void startSegment() throws IOException {
+        Path file = directory.resolve(JournalReader.segmentFileName(segmentNumber));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segment.putInt(JournalCodec.SEGMENT_MAGIC);
+        segment.putInt(JournalCodec.FORMAT_VERSION);
+        segment.force();
+        channel.force(true);
+    }
+
+    private void markDurable(long sequence) {
+        synchronized (flushMonitor) {
+            durableSequence = Math.max(durableSequence, sequence);
+            flushMonitor.notifyAll();
+        }
+    }
+}
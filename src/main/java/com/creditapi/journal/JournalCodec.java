@@ -0,0 +1,112 @@
+package com.creditapi.journal;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/*
+ * Binary layout of journal segments (big-endian).
+ *
+ * Segment header:
+ *   int   SEGMENT_MAGIC
+ *   int   format version
+ * Followed by frames up to the first zero length (segments are preallocated, so the unused tail is zeros):
+ *   int   payload length
+ *   int   CRC32C of the payload
+ *   payload:
+ *     byte  record type
+ *     long  sequence number
+ *     long  append time in epoch millis
+ *     LOAN_CREATED:      loanId (2 longs), customerId (2 longs), long loan amount in cents, double interest rate,
+ *                        byte number of installments, int create date as epoch day
+ *     INSTALLMENTS_PAID: loanId (2 longs), int payment date as epoch day, long amount in cents,
+ *                        short installments paid, long total spent in cents, byte loan fully paid
+ *
+ * A frame whose length runs past the segment or whose checksum does not match is a write torn by a crash;
+ * readers treat it as the end of the segment.
+ */
+final class JournalCodec {
+    static final int SEGMENT_MAGIC = 0x4C4A524E;
+    static final int FORMAT_VERSION = 1;
+    static final int SEGMENT_HEADER_LENGTH = 2 * Integer.BYTES;
+    static final int FRAME_HEADER_LENGTH = 2 * Integer.BYTES;
+
+    private static final byte LOAN_CREATED = 1;
+    private static final byte INSTALLMENTS_PAID = 2;
+    private static final int ENTRY_HEADER_LENGTH = 1 + 2 * Long.BYTES;
+    private static final int LOAN_CREATED_LENGTH = ENTRY_HEADER_LENGTH + 5 * Long.BYTES + Double.BYTES + 1 + Integer.BYTES;
+    private static final int INSTALLMENTS_PAID_LENGTH = ENTRY_HEADER_LENGTH + 3 * Long.BYTES + Integer.BYTES + Short.BYTES + Long.BYTES + 1;
+
+    static final int MAX_FRAME_LENGTH = FRAME_HEADER_LENGTH + Math.max(LOAN_CREATED_LENGTH, INSTALLMENTS_PAID_LENGTH);
+
+    private JournalCodec() {}
+
+    static int frameLength(JournalRecord record) {
+        return FRAME_HEADER_LENGTH + (record instanceof JournalRecord.LoanCreated ? LOAN_CREATED_LENGTH : INSTALLMENTS_PAID_LENGTH);
+    }
+
+    // Writes one whole frame at the buffer's position
+    static void writeFrame(ByteBuffer buffer, long sequence, long timestamp, JournalRecord record) {
+        int frameStart = buffer.position();
+        int payloadStart = frameStart + FRAME_HEADER_LENGTH;
+        buffer.position(payloadStart);
+        if (record instanceof JournalRecord.LoanCreated created) {
+            writeEntryHeader(buffer, LOAN_CREATED, sequence, timestamp);
+            putUuid(buffer, created.loanId());
+            putUuid(buffer, created.customerId());
+            buffer.putLong(created.loanAmount());
+            buffer.putDouble(created.interestRate());
+            buffer.put((byte) created.numberOfInstallments());
+            buffer.putInt((int) created.createDate().toEpochDay());
+        } else if (record instanceof JournalRecord.InstallmentsPaid paid) {
+            writeEntryHeader(buffer, INSTALLMENTS_PAID, sequence, timestamp);
+            putUuid(buffer, paid.loanId());
+            buffer.putInt((int) paid.paymentDate().toEpochDay());
+            buffer.putLong(paid.amount());
+            buffer.putShort((short) paid.installmentsPaid());
+            buffer.putLong(paid.totalSpent());
+            buffer.put((byte) (paid.loanFullyPaid() ? 1 : 0));
+        }
+        int payloadLength = buffer.position() - payloadStart;
+        buffer.putInt(frameStart, payloadLength);
+        buffer.putInt(frameStart + Integer.BYTES, checksum(buffer, payloadStart, payloadLength));
+    }
+
+    // Decodes a payload whose checksum has already been verified
+    static JournalEntry readPayload(ByteBuffer payload) {
+        byte type = payload.get();
+        long sequence = payload.getLong();
+        Instant timestamp = Instant.ofEpochMilli(payload.getLong());
+        JournalRecord record = switch (type) {
+            case LOAN_CREATED -> new JournalRecord.LoanCreated(getUuid(payload), getUuid(payload), payload.getLong(),
+                payload.getDouble(), payload.get(), LocalDate.ofEpochDay(payload.getInt()));
+            case INSTALLMENTS_PAID -> new JournalRecord.InstallmentsPaid(getUuid(payload), LocalDate.ofEpochDay(payload.getInt()),
+                payload.getLong(), payload.getShort(), payload.getLong(), payload.get() != 0);
+            default -> throw new IllegalStateException("Unknown journal record type: " + type);
+        };
+        return new JournalEntry(sequence, timestamp, record);
+    }
+
+    static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    private static void writeEntryHeader(ByteBuffer buffer, byte type, long sequence, long timestamp) {
+        buffer.put(type);
+        buffer.putLong(sequence);
+        buffer.putLong(timestamp);
+    }
+
+    private static void putUuid(ByteBuffer buffer, UUID id) {
+        buffer.putLong(id.getMostSignificantBits());
+        buffer.putLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
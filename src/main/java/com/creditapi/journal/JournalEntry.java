@@ -0,0 +1,6 @@
+package com.creditapi.journal;
+
+import java.time.Instant;
+
+// A record as read back from a segment, with the sequence number and time it was appended at
+public record JournalEntry(long sequence, Instant timestamp, JournalRecord record) {}
@@ -0,0 +1,104 @@
+package com.creditapi.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/*
+ * Reads journal segments back in append order. Each segment is read up to its first empty or torn frame,
+ * so a crash in the middle of an append loses only that record and reading carries on with the next segment.
+ */
+public final class JournalReader {
+
+    // What was found in a segment; lastSequence is 0 when it holds no record
+    public record SegmentSummary(Path file, long records, long lastSequence, boolean torn) {}
+
+    private JournalReader() {}
+
+    // Hands every record of every segment to the sink, oldest first
+    public static List<SegmentSummary> readAll(Path directory, Consumer<JournalEntry> sink) throws IOException {
+        List<SegmentSummary> summaries = new ArrayList<>();
+        for (Path segment : segments(directory)) {
+            summaries.add(readSegment(segment, sink));
+        }
+        return summaries;
+    }
+
+    public static SegmentSummary readSegment(Path file, Consumer<JournalEntry> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < JournalCodec.SEGMENT_HEADER_LENGTH || buffer.getInt() != JournalCodec.SEGMENT_MAGIC) {
+                throw new IOException("Not a journal segment: " + file);
+            }
+            int version = buffer.getInt();
+            if (version != JournalCodec.FORMAT_VERSION) {
+                throw new IOException("Unsupported journal format version " + version + " in " + file);
+            }
+
+            long records = 0;
+            long lastSequence = 0;
+            while (buffer.remaining() >= JournalCodec.FRAME_HEADER_LENGTH) {
+                int frameStart = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length == 0) {
+                    break;
+                }
+                int payloadStart = frameStart + JournalCodec.FRAME_HEADER_LENGTH;
+                if (length < 0 || length > buffer.remaining() || JournalCodec.checksum(buffer, payloadStart, length) != checksum) {
+                    return new SegmentSummary(file, records, lastSequence, true);
+                }
+                JournalEntry entry = JournalCodec.readPayload(buffer.slice(payloadStart, length));
+                buffer.position(payloadStart + length);
+                sink.accept(entry);
+                records++;
+                lastSequence = entry.sequence();
+            }
+            return new SegmentSummary(file, records, lastSequence, false);
+        }
+    }
+
+    // Segment files of the directory in append order
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(file -> {
+                    String name = file.getFileName().toString();
+                    return name.startsWith(Journal.SEGMENT_PREFIX) && name.endsWith(Journal.SEGMENT_SUFFIX);
+                })
+                .sorted()
+                .toList();
+        }
+    }
+
+    // Zero padded, so name order is append order
+    static String segmentFileName(long segmentNumber) {
+        return Journal.SEGMENT_PREFIX + String.format("%016d", segmentNumber) + Journal.SEGMENT_SUFFIX;
+    }
+
+    static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(Journal.SEGMENT_PREFIX.length(), name.length() - Journal.SEGMENT_SUFFIX.length()));
+    }
+
+    // Segments can be empty after a restart without appends, so this walks back to the last one that holds a record
+    static long lastSequence(List<Path> segments) throws IOException {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            SegmentSummary summary = readSegment(segments.get(i), entry -> {});
+            if (summary.records() > 0) {
+                return summary.lastSequence();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,18 @@
+package com.creditapi.journal;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/*
+ * A mutation recorded in the journal. Amounts are in cents (see Money), which keeps the binary form fixed length.
+ * Schedules are not recorded: they follow from the amount, rate, term and creation date of the loan.
+ */
+public sealed interface JournalRecord {
+
+    record LoanCreated(UUID loanId, UUID customerId, long loanAmount, double interestRate, int numberOfInstallments,
+                       LocalDate createDate) implements JournalRecord {}
+
+    // amount is what the customer sent, totalSpent what the paid installments cost after rewards and penalties
+    record InstallmentsPaid(UUID loanId, LocalDate paymentDate, long amount, int installmentsPaid, long totalSpent,
+                            boolean loanFullyPaid) implements JournalRecord {}
+}
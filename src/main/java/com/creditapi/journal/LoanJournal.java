@@ -0,0 +1,112 @@
+package com.creditapi.journal;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Records loan creations and payments in the Journal, as a durable audit trail next to the in-memory database.
+ *
+ * Records are collected per transaction and appended once it has committed, so rolled back or retried attempts
+ * never show up. The caller then waits for the group commit, so a request normally only returns after its mutations
+ * are on disk. The journal is not a write-ahead log: if it cannot be written, the database change is committed already,
+ * so the failure is logged and counted and the request still returns its committed result. Failing it instead would
+ * make an Idempotency-Key retry apply the change a second time.
+ *
+ * Disabled by default (journal.enabled). Appended records, fsyncs and failed writes are published as journal.records,
+ * journal.syncs and journal.failures.
+ */
+@Component
+public class LoanJournal {
+    private static final Logger logger = LoggerFactory.getLogger(LoanJournal.class);
+
+    private final Journal journal;
+    private final Counter failures;
+
+    public LoanJournal(MeterRegistry meterRegistry,
+                       @Value("${journal.enabled:false}") boolean enabled,
+                       @Value("${journal.dir:data/journal}") String directory,
+                       @Value("${journal.segment-size:64MB}") DataSize segmentSize) throws IOException {
+        if (!enabled) {
+            this.journal = null;
+            this.failures = null;
+            return;
+        }
+        this.journal = Journal.open(Path.of(directory), Math.toIntExact(segmentSize.toBytes()));
+        FunctionCounter.builder("journal.records", journal, Journal::getAppendedRecords).register(meterRegistry);
+        FunctionCounter.builder("journal.syncs", journal, Journal::getSyncs).register(meterRegistry);
+        this.failures = Counter.builder("journal.failures").register(meterRegistry);
+        logger.info("Loan journal enabled in {}", journal.getDirectory().toAbsolutePath());
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    public void recordAfterCommit(JournalRecord record) {
+        if (journal == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(List.of(record));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<JournalRecord> pending = (List<JournalRecord>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<JournalRecord> records = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, records);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    write(records);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(LoanJournal.this);
+                }
+            });
+            pending = records;
+        }
+        pending.add(record);
+    }
+
+    // All records of a transaction are appended together and waited for with a single group commit
+    private void write(List<JournalRecord> records) {
+        try {
+            journal.awaitDurable(journal.appendAll(records));
+        } catch (IOException e) {
+            if (e instanceof InterruptedIOException) {
+                Thread.currentThread().interrupt();
+            }
+            failures.increment();
+            logger.error("Could not write {} committed record(s) to the loan journal: {}", records.size(), records, e);
+        }
+    }
+
+    long getFailures() {
+        return failures != null ? (long) failures.count() : 0;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.creditapi.model.InstallmentOption;
 import com.creditapi.dto.LoanCreateResponseDTO;
 import com.creditapi.dto.LoanInstallmentDTO;
 import com.creditapi.model.LoanInstallment;
+import com.creditapi.repository.InstallmentRow;
 
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -19,6 +20,11 @@ public interface LoanMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "createDate", ignore = true)
     @Mapping(target = "paid", ignore = true)
+    @Mapping(target = "scheduleData", ignore = true)
+    @Mapping(target = "paidInstallmentCount", ignore = true)
+    @Mapping(target = "outstandingAmount", ignore = true)
+    @Mapping(target = "nextDueDate", ignore = true)
+    @Mapping(target = "version", ignore = true)
     @Mapping(target = "numberOfInstallments", source = "numberOfInstallments", qualifiedByName = "intToInstallmentOption")
     Loan toEntity(LoanCreateRequestDTO dto);
 
@@ -52,4 +58,7 @@ public interface LoanMapper {
 
     @Mapping(target = "loanId", source = "loan.id")
     LoanInstallmentDTO toLoanInstallmentDTO(LoanInstallment entity);
+
+    @Mapping(target = "paid", source = "isPaid")
+    LoanInstallmentDTO toLoanInstallmentDTO(InstallmentRow row);
 }
@@ -2,6 +2,7 @@ package com.creditapi.model;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.util.UUID;
 
@@ -14,6 +15,10 @@ public class Customer {
     private BigDecimal creditLimit;
     private BigDecimal usedCreditLimit;
 
+    // Optimistic lock guarding concurrent reservations against usedCreditLimit
+    @Version
+    private Long version;
+
     public Customer() {}
 
     public UUID getId() { return id; }
@@ -26,4 +31,6 @@ public class Customer {
     public void setCreditLimit(BigDecimal creditLimit) { this.creditLimit = creditLimit; }
     public BigDecimal getUsedCreditLimit() { return usedCreditLimit; }
     public void setUsedCreditLimit(BigDecimal usedCreditLimit) { this.usedCreditLimit = usedCreditLimit; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
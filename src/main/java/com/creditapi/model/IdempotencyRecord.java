@@ -0,0 +1,38 @@
+package com.creditapi.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+@Entity
+public class IdempotencyRecord {
+    @Id
+    @Column(name = "idempotency_key", length = 320)
+    private String key;
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    private int status;
+    private String contentType;
+
+    @Lob
+    private byte[] body;
+
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    public IdempotencyRecord() {}
+
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+    public String getFingerprint() { return fingerprint; }
+    public void setFingerprint(String fingerprint) { this.fingerprint = fingerprint; }
+    public int getStatus() { return status; }
+    public void setStatus(int status) { this.status = status; }
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+    public byte[] getBody() { return body; }
+    public void setBody(byte[] body) { this.body = body; }
+    public Instant getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -1,16 +1,19 @@
 package com.creditapi.model;
 
+import com.creditapi.util.ScheduleCodec;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
+// Schema and indexes are managed by the Flyway migrations in db/migration
 @Entity
 public class Loan {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7Id
     @Column(updatable = false, nullable = false)
     private UUID id;
     private UUID customerId;
@@ -31,6 +34,22 @@ public class Loan {
     @OneToMany(mappedBy = "loan", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<LoanInstallment> installments = new ArrayList<>();
 
+    // Compact schedule (see ScheduleCodec); when set, the loan has no LoanInstallment rows
+    @Column(length = ScheduleCodec.MAX_ENCODED_LENGTH)
+    private byte[] scheduleData;
+
+    // Running totals of the schedule, updated together with the installments (see LoanAggregates).
+    // Fully paid checks and listings read these instead of the installments
+    @Column(nullable = false)
+    private int paidInstallmentCount;
+    @Column(nullable = false)
+    private BigDecimal outstandingAmount = BigDecimal.ZERO;
+    private LocalDate nextDueDate;
+
+    // Optimistic lock, also bumped when only the installments change; it is the source of the loan and installment ETags
+    @Version
+    private Long version;
+
     public Loan() {}
 
     @PrePersist
@@ -54,4 +73,14 @@ public class Loan {
     public void setPaid(boolean paid) { isPaid = paid; }
     public List<LoanInstallment> getInstallments() { return installments; }
     public void setInstallments(List<LoanInstallment> installments) { this.installments = installments; }
+    public byte[] getScheduleData() { return scheduleData; }
+    public void setScheduleData(byte[] scheduleData) { this.scheduleData = scheduleData; }
+    public int getPaidInstallmentCount() { return paidInstallmentCount; }
+    public void setPaidInstallmentCount(int paidInstallmentCount) { this.paidInstallmentCount = paidInstallmentCount; }
+    public BigDecimal getOutstandingAmount() { return outstandingAmount; }
+    public void setOutstandingAmount(BigDecimal outstandingAmount) { this.outstandingAmount = outstandingAmount; }
+    public LocalDate getNextDueDate() { return nextDueDate; }
+    public void setNextDueDate(LocalDate nextDueDate) { this.nextDueDate = nextDueDate; }
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
@@ -9,11 +9,11 @@ import java.util.UUID;
 @Entity
 public class LoanInstallment {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @UuidV7Id
     @Column(updatable = false, nullable = false)
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "loan_id", nullable = false)
     @JsonIgnore
     private Loan loan;
@@ -0,0 +1,18 @@
+package com.creditapi.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/*
+ * Unpaid part of one active loan as aggregated by LoanRepository.findActiveLoanBalancesByCustomerId.
+ * Loans with an embedded schedule have no installment rows, so their totals are zero and scheduleData is set instead.
+ */
+public record ActiveLoanBalance(UUID loanId,
+                                double interestRate,
+                                byte[] scheduleData,
+                                BigDecimal remainingPayable,
+                                long overdueInstallments,
+                                LocalDate nextDueDate,
+                                BigDecimal nextDueAmount) {
+}
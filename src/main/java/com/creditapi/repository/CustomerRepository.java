@@ -1,12 +1,22 @@
 package com.creditapi.repository;
 
 import com.creditapi.model.Customer;
+import java.math.BigDecimal;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /*
 Spring Data JPA scans for interfaces that extend JpaRepository (or other Spring Data repository interfaces) and automatically registers them as Spring-managed beans.
 This eliminates the need to explicitly annotate them with @Repository.
 */ 
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
+    // Applied without reading the row first; "versioned" still bumps the optimistic lock column
+    @Modifying
+    @Transactional
+    @Query("update versioned Customer c set c.usedCreditLimit = c.usedCreditLimit + :delta where c.id = :customerId")
+    int addToUsedCreditLimit(@Param("customerId") UUID customerId, @Param("delta") BigDecimal delta);
 }
@@ -0,0 +1,15 @@
+package com.creditapi.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+ * Repository fragment of LoanInstallmentRepository for writing payments to installment rows.
+ */
+public interface InstallmentPaymentRepository {
+    // Pays all given installments in one statement, each with the paid amount the caller already worked out.
+    // Installments that are paid already are left alone; returns how many rows were updated
+    int markPaid(Map<UUID, BigDecimal> paidAmounts, LocalDate paymentDate);
+}
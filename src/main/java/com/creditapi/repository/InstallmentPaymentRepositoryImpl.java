@@ -0,0 +1,50 @@
+package com.creditapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+ * Sets the paid amounts through a "case i.id when ... then ..." over the ids, so a payment is still a single update
+ * while the amounts come from LoanServiceImpl.paidAmount instead of being worked out a second time in SQL.
+ * One query string per number of installments paid at once, at most the longest schedule, so Hibernate's query
+ * plan cache covers all of them.
+ */
+class InstallmentPaymentRepositoryImpl implements InstallmentPaymentRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int markPaid(Map<UUID, BigDecimal> paidAmounts, LocalDate paymentDate) {
+        if (paidAmounts.isEmpty()) {
+            return 0;
+        }
+        // Pending changes to installments must reach the database before the bulk update bypasses them
+        entityManager.flush();
+
+        StringBuilder jpql = new StringBuilder("""
+            update LoanInstallment i
+            set i.isPaid = true,
+                i.paymentDate = :paymentDate,
+                i.paidAmount = case i.id""");
+        for (int k = 0; k < paidAmounts.size(); k++) {
+            jpql.append(" when :id").append(k).append(" then :paidAmount").append(k);
+        }
+        jpql.append(" end where i.id in :ids and i.isPaid = false");
+
+        Query query = entityManager.createQuery(jpql.toString())
+            .setParameter("paymentDate", paymentDate)
+            .setParameter("ids", paidAmounts.keySet());
+        int k = 0;
+        for (Map.Entry<UUID, BigDecimal> paid : paidAmounts.entrySet()) {
+            query.setParameter("id" + k, paid.getKey());
+            query.setParameter("paidAmount" + k, paid.getValue());
+            k++;
+        }
+        return query.executeUpdate();
+    }
+}
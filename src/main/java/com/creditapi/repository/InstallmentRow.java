@@ -0,0 +1,20 @@
+package com.creditapi.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/*
+ * One row of LoanRepository.findInstallmentRowsByLoanId: the loan left joined with its installments.
+ * A loan without installment rows still yields one row with only loanId and scheduleData set,
+ * so an empty result means the loan does not exist.
+ */
+public record InstallmentRow(UUID loanId,
+                             byte[] scheduleData,
+                             UUID id,
+                             BigDecimal amount,
+                             BigDecimal paidAmount,
+                             LocalDate dueDate,
+                             LocalDate paymentDate,
+                             Boolean isPaid) {
+}
@@ -1,14 +1,63 @@
 package com.creditapi.repository;
 
+import com.creditapi.dto.DueInstallmentDTO;
 import com.creditapi.model.LoanInstallment;
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /*
 Spring Data JPA scans for interfaces that extend JpaRepository (or other Spring Data repository interfaces) and automatically registers them as Spring-managed beans.
 This eliminates the need to explicitly annotate them with @Repository.
 */ 
-public interface LoanInstallmentRepository extends JpaRepository<LoanInstallment, UUID> {
-    List<LoanInstallment> findByLoanId(UUID loanId);
+public interface LoanInstallmentRepository extends JpaRepository<LoanInstallment, UUID>, InstallmentPaymentRepository {
+    // The installments a payment of :amount pays: unpaid ones due up to :maxPayableDate in due date order, cut off at the
+    // first one the running total no longer covers, since installments are only paid in full and in order
+    @Query("""
+        select new com.creditapi.repository.PayableInstallment(p.id, p.amount, p.dueDate)
+        from (
+            select i.id as id, i.amount as amount, i.dueDate as dueDate,
+                   sum(i.amount) over (order by i.dueDate, i.id) as runningTotal
+            from LoanInstallment i
+            where i.loan.id = :loanId and i.isPaid = false and i.dueDate <= :maxPayableDate
+        ) p
+        where p.runningTotal <= :amount
+        order by p.dueDate, p.id""")
+    List<PayableInstallment> findPayableByLoanId(@Param("loanId") UUID loanId,
+                                                 @Param("maxPayableDate") LocalDate maxPayableDate,
+                                                 @Param("amount") BigDecimal amount);
+
+    // Null once every installment of the loan is paid
+    @Query("select min(i.dueDate) from LoanInstallment i where i.loan.id = :loanId and i.isPaid = false")
+    LocalDate findNextUnpaidDueDate(@Param("loanId") UUID loanId);
+
+    // First keyset page of unpaid installments due in [from, to] across all loans, in (dueDate, id) order.
+    // Walks idx_installment_paid_due_id; the loan is only joined for its customer id
+    @Query("""
+        select new com.creditapi.dto.DueInstallmentDTO(i.id, l.id, l.customerId, i.amount, i.paidAmount, i.dueDate)
+        from LoanInstallment i join i.loan l
+        where i.isPaid = false and i.dueDate between :from and :to
+        order by i.dueDate, i.id""")
+    List<DueInstallmentDTO> findUnpaidDueBetween(@Param("from") LocalDate from,
+                                                 @Param("to") LocalDate to,
+                                                 Limit limit);
+
+    // Following pages start right after the last (dueDate, id) returned. Callers move from up to the cursor date
+    // so the index range scan does not revisit earlier dates
+    @Query("""
+        select new com.creditapi.dto.DueInstallmentDTO(i.id, l.id, l.customerId, i.amount, i.paidAmount, i.dueDate)
+        from LoanInstallment i join i.loan l
+        where i.isPaid = false and i.dueDate between :from and :to
+          and (i.dueDate > :afterDueDate or (i.dueDate = :afterDueDate and i.id > :afterId))
+        order by i.dueDate, i.id""")
+    List<DueInstallmentDTO> findUnpaidDueBetweenAfter(@Param("from") LocalDate from,
+                                                      @Param("to") LocalDate to,
+                                                      @Param("afterDueDate") LocalDate afterDueDate,
+                                                      @Param("afterId") UUID afterId,
+                                                      Limit limit);
 }
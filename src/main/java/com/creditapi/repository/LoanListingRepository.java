@@ -0,0 +1,25 @@
+package com.creditapi.repository;
+
+import com.creditapi.dto.LoanResponseDTO;
+import com.creditapi.model.InstallmentOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
+
+/*
+ * Repository fragment of LoanRepository for the loan listing queries that select straight into LoanResponseDTO.
+ * Null filters and a null cursor are ignored.
+ */
+public interface LoanListingRepository {
+    // Rows pulled from the database per round trip while an export stream is consumed
+    int EXPORT_FETCH_SIZE = 500;
+
+    // Keyset page of a customer's loans in id order, without loading entities.
+    // paymentAmount is the total to be paid rounded to cents (what the installments add up to); firstPaymentDate is the first day of the month after creation
+    List<LoanResponseDTO> findResponsePageByCustomerId(UUID customerId, InstallmentOption numberOfInstallments, Boolean isPaid, UUID after, Limit limit);
+
+    // Every matching loan in id order for the NDJSON export, read from an open cursor instead of collected into a list.
+    // Must be consumed and closed inside a transaction
+    Stream<LoanResponseDTO> streamResponsesByCustomerId(UUID customerId, InstallmentOption numberOfInstallments, Boolean isPaid);
+}
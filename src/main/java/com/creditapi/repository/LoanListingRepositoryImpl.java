@@ -0,0 +1,78 @@
+package com.creditapi.repository;
+
+import com.creditapi.dto.LoanResponseDTO;
+import com.creditapi.model.InstallmentOption;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+
+/*
+ * Builds the listing query from the filters that are actually set. A "(:isPaid is null or l.isPaid = :isPaid)" guard
+ * cannot be matched against an index, so with fixed query text a filtered listing would only ever use the customer_id
+ * prefix. With plain equality predicates the database can use idx_loan_customer_paid_installments (see V2 migration).
+ * paymentAmount is AmortizationSchedule.paymentAmount in SQL: 1 + rate is converted from double to decimal like
+ * BigDecimal.valueOf does (a double near 1 has at most 16 decimals), then the product is rounded half up to cents.
+ */
+class LoanListingRepositoryImpl implements LoanListingRepository {
+    private static final String SELECT_RESPONSE = """
+        select new com.creditapi.dto.LoanResponseDTO(
+            l.id, l.customerId, l.loanAmount, l.numberOfInstallments, l.interestRate,
+            cast(l.createDate as LocalDate), l.isPaid,
+            round(l.loanAmount * cast(1 + l.interestRate as BigDecimal(38, 16)), 2),
+            cast(truncate(l.createDate, month) + 1 month as LocalDate),
+            l.paidInstallmentCount, l.outstandingAmount, l.nextDueDate)
+        from Loan l
+        where l.customerId = :customerId""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<LoanResponseDTO> findResponsePageByCustomerId(UUID customerId, InstallmentOption numberOfInstallments, Boolean isPaid, UUID after, Limit limit) {
+        TypedQuery<LoanResponseDTO> query = responseQuery(customerId, numberOfInstallments, isPaid, after);
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public Stream<LoanResponseDTO> streamResponsesByCustomerId(UUID customerId, InstallmentOption numberOfInstallments, Boolean isPaid) {
+        return responseQuery(customerId, numberOfInstallments, isPaid, null)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE)
+            .getResultStream();
+    }
+
+    // At most eight distinct query strings, so Hibernate's query plan cache still covers all of them
+    private TypedQuery<LoanResponseDTO> responseQuery(UUID customerId, InstallmentOption numberOfInstallments, Boolean isPaid, UUID after) {
+        StringBuilder jpql = new StringBuilder(SELECT_RESPONSE);
+        if (isPaid != null) {
+            jpql.append(" and l.isPaid = :isPaid");
+        }
+        if (numberOfInstallments != null) {
+            jpql.append(" and l.numberOfInstallments = :numberOfInstallments");
+        }
+        if (after != null) {
+            jpql.append(" and l.id > :after");
+        }
+        jpql.append(" order by l.id");
+
+        TypedQuery<LoanResponseDTO> query = entityManager.createQuery(jpql.toString(), LoanResponseDTO.class)
+            .setParameter("customerId", customerId);
+        if (isPaid != null) {
+            query.setParameter("isPaid", isPaid);
+        }
+        if (numberOfInstallments != null) {
+            query.setParameter("numberOfInstallments", numberOfInstallments);
+        }
+        if (after != null) {
+            query.setParameter("after", after);
+        }
+        return query;
+    }
+}
@@ -1,14 +1,106 @@
 package com.creditapi.repository;
 
+import com.creditapi.dto.LoanAggregateDriftDTO;
 import com.creditapi.model.Loan;
+import jakarta.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /*
 Spring Data JPA scans for interfaces that extend JpaRepository (or other Spring Data repository interfaces) and automatically registers them as Spring-managed beans.
 This eliminates the need to explicitly annotate them with @Repository.
 */ 
-public interface LoanRepository extends JpaRepository<Loan, UUID> {
-    List<Loan> findByCustomerId(UUID customerId);
+public interface LoanRepository extends JpaRepository<Loan, UUID>, LoanListingRepository {
+    // Payments on the same loan queue up behind this row lock, so they never read the same unpaid installments
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Loan l where l.id = :id")
+    Optional<Loan> findByIdForUpdate(@Param("id") UUID id);
+
+    @Query("select l.version from Loan l where l.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    // Fingerprint of all loans of a customer, or null when the customer does not exist. Loans are never deleted and
+    // versions only grow, so any insert or update changes it. Answered from the customer and loan rows, no installments are read
+    @Query("""
+        select concat(cast(count(l) as String), '-', cast(coalesce(sum(l.version), 0) as String))
+        from Customer c
+        left join Loan l on l.customerId = c.id
+        where c.id = :customerId
+        group by c.id""")
+    String findListVersionByCustomerId(@Param("customerId") UUID customerId);
+
+    // Existence check and installment listing in one statement, see InstallmentRow.
+    // Only columns are selected, so neither the loan nor the installments are loaded as entities
+    @Query("""
+        select new com.creditapi.repository.InstallmentRow(
+            l.id, l.scheduleData, i.id, i.amount, i.paidAmount, i.dueDate, i.paymentDate, i.isPaid)
+        from Loan l
+        left join l.installments i
+        where l.id = :loanId
+        order by i.dueDate""")
+    List<InstallmentRow> findInstallmentRowsByLoanId(@Param("loanId") UUID loanId);
+
+    // Same rows for several loans with one IN query; rows of a loan are adjacent and in due date order
+    @Query("""
+        select new com.creditapi.repository.InstallmentRow(
+            l.id, l.scheduleData, i.id, i.amount, i.paidAmount, i.dueDate, i.paymentDate, i.isPaid)
+        from Loan l
+        left join l.installments i
+        where l.id in :loanIds
+        order by l.id, i.dueDate""")
+    List<InstallmentRow> findInstallmentRowsByLoanIdIn(@Param("loanIds") Collection<UUID> loanIds);
+
+    // One row per active loan with its unpaid installments summed up, all in a single statement.
+    // The next installment due from :today on is joined through a correlated lookup on idx_installment_loan_paid_due
+    @Query("""
+        select new com.creditapi.repository.ActiveLoanBalance(
+            l.id, l.interestRate, l.scheduleData,
+            coalesce(sum(i.amount), 0),
+            coalesce(sum(case when i.dueDate < :today then 1 else 0 end), 0),
+            min(n.dueDate),
+            min(n.amount))
+        from Loan l
+        left join l.installments i on i.isPaid = false
+        left join l.installments n on n.isPaid = false and n.dueDate = (
+            select min(f.dueDate) from LoanInstallment f
+            where f.loan = l and f.isPaid = false and f.dueDate >= :today)
+        where l.customerId = :customerId and l.isPaid = false
+        group by l.id, l.interestRate, l.scheduleData""")
+    List<ActiveLoanBalance> findActiveLoanBalancesByCustomerId(@Param("customerId") UUID customerId, @Param("today") LocalDate today);
+
+    // Loans with installment rows whose stored totals differ from a recount of the rows; the comparison runs in the database
+    @Query("""
+        select new com.creditapi.dto.LoanAggregateDriftDTO(
+            l.id, l.paidInstallmentCount, l.outstandingAmount, l.nextDueDate,
+            count(case when i.isPaid = true then 1 end),
+            coalesce(sum(case when i.isPaid = false then i.amount end), 0),
+            min(case when i.isPaid = false then i.dueDate end))
+        from Loan l
+        left join l.installments i
+        where l.scheduleData is null
+        group by l.id, l.paidInstallmentCount, l.outstandingAmount, l.nextDueDate
+        having l.paidInstallmentCount <> count(case when i.isPaid = true then 1 end)
+            or l.outstandingAmount <> coalesce(sum(case when i.isPaid = false then i.amount end), 0)
+            or l.nextDueDate is distinct from min(case when i.isPaid = false then i.dueDate end)""")
+    List<LoanAggregateDriftDTO> findRowAggregateDrift();
+
+    @Query("select l.id from Loan l where l.scheduleData is null")
+    List<UUID> findIdsWithInstallmentRows();
+
+    @Query("select l.id from Loan l where l.scheduleData is not null")
+    List<UUID> findIdsWithEmbeddedSchedule();
+
+    // Which of the given ids exist, without loading the loans
+    @Query("select l.id from Loan l where l.id in :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+
+    @Query("select l.customerId from Loan l where l.id = :loanId")
+    Optional<UUID> findCustomerIdById(@Param("loanId") UUID loanId);
 }
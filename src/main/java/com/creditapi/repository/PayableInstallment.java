@@ -0,0 +1,12 @@
+package com.creditapi.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/*
+ * An installment a payment covers, as selected by LoanInstallmentRepository.findPayableByLoanId.
+ * Only what the payment needs is read; the installment entity is never loaded.
+ */
+public record PayableInstallment(UUID id, BigDecimal amount, LocalDate dueDate) {
+}
@@ -0,0 +1,33 @@
+package com.creditapi.service;
+
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.util.AmortizationSchedule;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/*
+ * Memoizes installment schedules (see AmortizationSchedule.compute) in a bounded cache.
+ * Loan products cluster on a small number of amount/rate/term combinations, so the BigDecimal
+ * division and remainder handling is done once per combination instead of once per loan.
+ */
+@Component
+public class AmortizationScheduleEngine {
+    private final Cache<ScheduleKey, AmortizationSchedule> schedules;
+
+    public AmortizationScheduleEngine(@Value("${loan.schedule.cache.max-size:256}") long maxSize) {
+        this.schedules = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .build();
+    }
+
+    public AmortizationSchedule scheduleFor(BigDecimal loanAmount, double interestRate, InstallmentOption option) {
+        // BigDecimal equality includes the scale, so "1000" and "1000.00" get separate entries and keep their exact totals
+        return schedules.get(new ScheduleKey(loanAmount, interestRate, option), key -> AmortizationSchedule.compute(key.loanAmount(), key.interestRate(), key.option()));
+    }
+
+    private record ScheduleKey(BigDecimal loanAmount, double interestRate, InstallmentOption option) {}
+}
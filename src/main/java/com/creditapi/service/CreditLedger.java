@@ -0,0 +1,204 @@
+package com.creditapi.service;
+
+import com.creditapi.exception.CustomerNotFoundException;
+import com.creditapi.exception.InsufficientCreditLimitException;
+import com.creditapi.model.Customer;
+import com.creditapi.repository.CustomerRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * In-memory, lock-free ledger of the credit each customer still has available (creditLimit - usedCreditLimit).
+ * Reservations are decided with a compare-and-set loop, so insufficient-limit rejections never touch the database
+ * and concurrent reservations for one customer do not serialize on the Customer row.
+ *
+ * Accounts are loaded lazily from CustomerRepository. A reservation made inside a transaction is released if that
+ * transaction rolls back; once it commits, the amount is queued and written to Customer.usedCreditLimit by a
+ * write-behind flush running every credit.ledger.flush-lag-ms, which bounds how far the table lags behind the ledger.
+ * After an account had reservations the flush re-reads its persisted values once, so external limit changes are picked up;
+ * accounts without reservations for credit.ledger.idle-eviction-ms are dropped and loaded again on their next reservation,
+ * so the flush only ever touches customers that are actually active.
+ *
+ * The ledger is the single source of truth for admission only while one application instance owns the customers;
+ * it is disabled by default (credit.ledger.enabled).
+ */
+@Component
+public class CreditLedger {
+    private static final Logger logger = LoggerFactory.getLogger(CreditLedger.class);
+
+    private final CustomerRepository customerRepository;
+    private final boolean enabled;
+    private final long idleEvictionNanos;
+    private final ConcurrentMap<UUID, Account> accounts = new ConcurrentHashMap<>();
+
+    public CreditLedger(CustomerRepository customerRepository, @Value("${credit.ledger.enabled:false}") boolean enabled,
+                        @Value("${credit.ledger.idle-eviction-ms:600000}") long idleEvictionMs) {
+        this.customerRepository = customerRepository;
+        this.enabled = enabled;
+        this.idleEvictionNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictionMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void reserve(UUID customerId, BigDecimal amount) {
+        // The amount is counted in flight before anything else, which keeps the account from being evicted under us;
+        // an account the flush is evicting right now is retired, and the reservation moves on to a freshly loaded one
+        Account account;
+        while (true) {
+            account = accounts.computeIfAbsent(customerId, this::load);
+            account.inFlight.accumulateAndGet(amount, BigDecimal::add);
+            if (!account.retired.get()) {
+                break;
+            }
+            account.inFlight.accumulateAndGet(amount, BigDecimal::subtract);
+        }
+        account.lastReservedAt = System.nanoTime();
+        account.reserved.set(true);
+
+        BigDecimal current;
+        do {
+            current = account.available.get();
+            if (current.compareTo(amount) < 0) {
+                account.inFlight.accumulateAndGet(amount, BigDecimal::subtract);
+                throw new InsufficientCreditLimitException("Insufficient credit limit");
+            }
+        } while (!account.available.compareAndSet(current, current.subtract(amount)));
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            confirm(account, amount);
+            return;
+        }
+        Account reservedAccount = account;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    confirm(reservedAccount, amount);
+                } else {
+                    release(reservedAccount, amount);
+                }
+            }
+        });
+    }
+
+    public BigDecimal getAvailable(UUID customerId) {
+        Account account = accounts.get(customerId);
+        return account == null ? null : account.available.get();
+    }
+
+    @Scheduled(fixedDelayString = "${credit.ledger.flush-lag-ms:500}")
+    public void flush() {
+        long now = System.nanoTime();
+        for (Map.Entry<UUID, Account> entry : accounts.entrySet()) {
+            UUID customerId = entry.getKey();
+            Account account = entry.getValue();
+            BigDecimal delta = account.unflushed.getAndSet(BigDecimal.ZERO);
+            if (delta.signum() != 0) {
+                try {
+                    customerRepository.addToUsedCreditLimit(customerId, delta);
+                } catch (RuntimeException e) {
+                    // Keep the delta queued; the next flush retries it
+                    account.unflushed.accumulateAndGet(delta, BigDecimal::add);
+                    logger.warn("Credit ledger flush failed for customer {}: {}", customerId, e.getMessage());
+                    continue;
+                }
+            }
+            // Only accounts that had reservations since the last flush are compared with the table; a reconcile skipped
+            // because something is still pending is retried next time
+            if (account.reserved.getAndSet(false) && !reconcile(customerId, account)) {
+                account.reserved.set(true);
+            }
+            if (now - account.lastReservedAt > idleEvictionNanos) {
+                evictIfQuiet(customerId);
+            }
+        }
+    }
+
+    // Accounts currently held in memory
+    int cachedAccounts() {
+        return accounts.size();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private Account load(UUID customerId) {
+        Customer customer = customerRepository.findById(customerId)
+            .orElseThrow(() -> new CustomerNotFoundException("Customer not found"));
+        return new Account(customer.getCreditLimit().subtract(customer.getUsedCreditLimit()));
+    }
+
+    // Queued for the flush before it leaves inFlight, so an account never looks quiet while it still owes a write
+    private void confirm(Account account, BigDecimal amount) {
+        account.unflushed.accumulateAndGet(amount, BigDecimal::add);
+        account.inFlight.accumulateAndGet(amount, BigDecimal::subtract);
+    }
+
+    private void release(Account account, BigDecimal amount) {
+        account.available.accumulateAndGet(amount, BigDecimal::add);
+        account.inFlight.accumulateAndGet(amount, BigDecimal::subtract);
+    }
+
+    // Replaces the in-memory balance with the persisted one when nothing is pending; any concurrent reservation makes the CAS fail and skips this round.
+    // Returns false when it was skipped because something is pending
+    private boolean reconcile(UUID customerId, Account account) {
+        BigDecimal expected = account.available.get();
+        if (account.inFlight.get().signum() != 0 || account.unflushed.get().signum() != 0) {
+            return false;
+        }
+        customerRepository.findById(customerId).ifPresent(customer -> {
+            BigDecimal persisted = customer.getCreditLimit().subtract(customer.getUsedCreditLimit());
+            if (persisted.compareTo(expected) != 0 && account.available.compareAndSet(expected, persisted)) {
+                logger.info("Credit ledger reconciled customer {} from {} to {}", customerId, expected, persisted);
+            }
+        });
+        return true;
+    }
+
+    // Retiring before looking at inFlight pairs with reserve counting in flight before looking at retired: either the
+    // eviction sees the reservation and keeps the account, or the reservation sees the retirement and reloads.
+    // unflushed is read after inFlight because confirm moves an amount the other way round
+    private void evictIfQuiet(UUID customerId) {
+        accounts.computeIfPresent(customerId, (id, account) -> {
+            account.retired.set(true);
+            if (account.inFlight.get().signum() != 0 || account.unflushed.get().signum() != 0) {
+                account.retired.set(false);
+                return account;
+            }
+            return null;
+        });
+    }
+
+    private static final class Account {
+        private final AtomicReference<BigDecimal> available;
+        private final AtomicReference<BigDecimal> inFlight = new AtomicReference<>(BigDecimal.ZERO);
+        private final AtomicReference<BigDecimal> unflushed = new AtomicReference<>(BigDecimal.ZERO);
+        // Reservations since the last flush, and whether the flush has dropped the account from the map
+        private final AtomicBoolean reserved = new AtomicBoolean();
+        private final AtomicBoolean retired = new AtomicBoolean();
+        private volatile long lastReservedAt = System.nanoTime();
+
+        private Account(BigDecimal available) {
+            this.available = new AtomicReference<>(available);
+        }
+    }
+}
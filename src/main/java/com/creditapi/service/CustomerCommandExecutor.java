@@ -0,0 +1,152 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.LoanCreateRequestDTO;
+import com.creditapi.dto.LoanCreateResponseDTO;
+import com.creditapi.dto.PayInstallmentRequestDTO;
+import com.creditapi.dto.PayInstallmentResponseDTO;
+import com.creditapi.exception.LoanNotFoundException;
+import com.creditapi.repository.LoanRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/*
+ * Optional actor-style execution of the mutating commands of a customer: loan creation and payments on the
+ * customer's loans are queued in a mailbox per customer and run one at a time on a virtual thread of that mailbox.
+ * Commands of one customer therefore never contend with each other for the Customer row (no optimistic retries)
+ * or for a loan row lock, while different customers run in parallel without any global lock.
+ *
+ * Commands still go through the transactional LoanService, so results and persistence are exactly those of the
+ * direct calls, and the database locks remain in place for callers that bypass the mailboxes (batch creation,
+ * payment import, async origination). What stays warm in memory is the owner of every loan seen, so routing a
+ * payment costs no query; with credit.ledger.enabled the available credit of the customer is kept in memory as well.
+ *
+ * A mailbox only exists while it has work and its virtual thread ends when it is drained. Callers block until their
+ * command is done, so a mailbox never holds more commands than there are concurrent requests for the customer;
+ * spring.threads.virtual.enabled=true makes that wait cheap for the request threads too.
+ * Disabled by default (loan.actors.enabled).
+ */
+@Component
+public class CustomerCommandExecutor {
+    private final LoanService loanService;
+    private final LoanRepository loanRepository;
+    private final boolean enabled;
+    private final ConcurrentMap<UUID, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final Cache<UUID, UUID> loanOwners;
+    private final ExecutorService executor;
+
+    public CustomerCommandExecutor(LoanService loanService, LoanRepository loanRepository,
+                                   @Value("${loan.actors.enabled:false}") boolean enabled,
+                                   @Value("${loan.actors.loan-owner-cache-size:1000000}") long loanOwnerCacheSize) {
+        this.loanService = loanService;
+        this.loanRepository = loanRepository;
+        this.enabled = enabled;
+        this.loanOwners = Caffeine.newBuilder().maximumSize(loanOwnerCacheSize).build();
+        this.executor = enabled ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public LoanCreateResponseDTO createLoan(LoanCreateRequestDTO request) {
+        return execute(request.getCustomerId(), () -> {
+            LoanCreateResponseDTO response = loanService.createLoan(request);
+            loanOwners.put(response.getId(), response.getCustomerId());
+            return response;
+        });
+    }
+
+    public PayInstallmentResponseDTO payInstallments(UUID loanId, PayInstallmentRequestDTO request) {
+        // A loan never changes owner, so the owner can be cached without invalidation
+        UUID customerId = loanOwners.get(loanId, id -> loanRepository.findCustomerIdById(id).orElse(null));
+        if (customerId == null) {
+            throw new LoanNotFoundException("Loan not found");
+        }
+        return execute(customerId, () -> loanService.payInstallments(loanId, request));
+    }
+
+    // Runs the command in the customer's mailbox and waits for it; exceptions reach the caller unchanged
+    <T> T execute(UUID customerId, Supplier<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                result.complete(command.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        };
+
+        boolean[] created = {false};
+        // Enqueueing and retiring a mailbox both happen inside compute on its key, so a command can never land
+        // in a mailbox whose thread has already decided to stop
+        mailboxes.compute(customerId, (id, mailbox) -> {
+            if (mailbox == null) {
+                mailbox = new Mailbox();
+                created[0] = true;
+            }
+            mailbox.commands.add(task);
+            return mailbox;
+        });
+        if (created[0]) {
+            executor.execute(() -> drain(customerId));
+        }
+
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private void drain(UUID customerId) {
+        Mailbox mailbox = mailboxes.get(customerId);
+        while (true) {
+            Runnable command = mailbox.commands.poll();
+            if (command != null) {
+                command.run();
+                continue;
+            }
+            // Retire the mailbox unless a command arrived since the poll
+            if (mailboxes.computeIfPresent(customerId, (id, current) -> current.commands.isEmpty() ? null : current) == null) {
+                return;
+            }
+        }
+    }
+
+    // Customers with queued or running commands
+    int activeMailboxes() {
+        return mailboxes.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static final class Mailbox {
+        final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    }
+}
@@ -0,0 +1,74 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.DueInstallmentDTO;
+import com.creditapi.dto.DueInstallmentPageDTO;
+import com.creditapi.repository.LoanInstallmentRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Pages through unpaid installments due in a date range across all loans, for collections and dunning runs
+ * ("everything due in the next 7 days", "everything overdue") that would otherwise walk every customer and loan.
+ * Pages are keyset pages in (dueDate, id) order, so a page costs the same however deep the walk is, and installments
+ * paid between two pages never shift the ones still to come.
+ * Only installment rows are scanned: loans stored with an embedded schedule (loan.schedule.embedded) are not included.
+ */
+@Service
+public class DueInstallmentScanner {
+    private final LoanInstallmentRepository loanInstallmentRepository;
+
+    public DueInstallmentScanner(LoanInstallmentRepository loanInstallmentRepository) {
+        this.loanInstallmentRepository = loanInstallmentRepository;
+    }
+
+    // after is the nextCursor of the previous page, null for the first page
+    public DueInstallmentPageDTO scan(LocalDate from, LocalDate to, String after, int limit) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        // One extra row tells whether there is a next page without a count query
+        List<DueInstallmentDTO> installments;
+        if (after == null) {
+            installments = loanInstallmentRepository.findUnpaidDueBetween(from, to, Limit.of(limit + 1));
+        } else {
+            Cursor cursor = Cursor.parse(after);
+            LocalDate start = cursor.dueDate().isAfter(from) ? cursor.dueDate() : from;
+            installments = loanInstallmentRepository.findUnpaidDueBetweenAfter(start, to, cursor.dueDate(), cursor.id(), Limit.of(limit + 1));
+        }
+        boolean hasMore = installments.size() > limit;
+        if (hasMore) {
+            installments = installments.subList(0, limit);
+        }
+
+        DueInstallmentPageDTO page = new DueInstallmentPageDTO();
+        page.setInstallments(installments);
+        page.setNextCursor(hasMore ? Cursor.of(installments.get(limit - 1)).toString() : null);
+        return page;
+    }
+
+    // Position after an installment, written as "<dueDate>_<id>"
+    record Cursor(LocalDate dueDate, UUID id) {
+        static Cursor of(DueInstallmentDTO installment) {
+            return new Cursor(installment.getDueDate(), installment.getId());
+        }
+
+        static Cursor parse(String value) {
+            int separator = value.indexOf('_');
+            try {
+                return new Cursor(LocalDate.parse(value.substring(0, separator)), UUID.fromString(value.substring(separator + 1)));
+            } catch (IndexOutOfBoundsException | DateTimeParseException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + value);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return dueDate + "_" + id;
+        }
+    }
+}
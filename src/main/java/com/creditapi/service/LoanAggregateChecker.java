@@ -0,0 +1,70 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.LoanAggregateDriftDTO;
+import com.creditapi.model.Loan;
+import com.creditapi.repository.LoanRepository;
+import com.creditapi.util.LoanAggregates;
+import com.creditapi.util.ScheduleCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Recomputes the running totals kept on Loan (see LoanAggregates) from the installments and reports every loan whose stored
+ * values drifted. It only reports; a drift points at a write path that changed installments without updating its loan.
+ * Loans with installment rows are compared by one aggregate query, embedded schedules are decoded batch by batch.
+ * Runs on demand through GET /admin/loan-aggregate-drift and on loan.aggregates.check-cron when that is set.
+ */
+@Service
+public class LoanAggregateChecker {
+    private static final Logger log = LoggerFactory.getLogger(LoanAggregateChecker.class);
+
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int batchSize;
+
+    public LoanAggregateChecker(LoanRepository loanRepository, PlatformTransactionManager transactionManager,
+                                @Value("${loan.aggregates.check-batch-size:500}") int batchSize) {
+        this.loanRepository = loanRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.batchSize = batchSize;
+    }
+
+    public List<LoanAggregateDriftDTO> check() {
+        List<LoanAggregateDriftDTO> drifts = new ArrayList<>(loanRepository.findRowAggregateDrift());
+
+        List<UUID> embeddedIds = loanRepository.findIdsWithEmbeddedSchedule();
+        for (int from = 0; from < embeddedIds.size(); from += batchSize) {
+            List<UUID> batch = embeddedIds.subList(from, Math.min(from + batchSize, embeddedIds.size()));
+            readOnlyTransaction.executeWithoutResult(status -> {
+                for (Loan loan : loanRepository.findAllById(batch)) {
+                    LoanAggregates stored = LoanAggregates.of(loan);
+                    LoanAggregates actual = LoanAggregates.of(ScheduleCodec.decode(loan, loan.getScheduleData()));
+                    if (!stored.matches(actual)) {
+                        drifts.add(new LoanAggregateDriftDTO(loan.getId(), stored, actual));
+                    }
+                }
+            });
+        }
+
+        for (LoanAggregateDriftDTO drift : drifts) {
+            log.warn("Loan aggregate drift on loan {}: stored {}, recomputed {}", drift.getLoanId(), drift.getStored(), drift.getActual());
+        }
+        return drifts;
+    }
+
+    @Scheduled(cron = "${loan.aggregates.check-cron:-}")
+    public void scheduledCheck() {
+        int drifted = check().size();
+        log.info("Loan aggregate check finished, {} loans drifted", drifted);
+    }
+}
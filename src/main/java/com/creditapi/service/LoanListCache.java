@@ -0,0 +1,96 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.LoanResponseDTO;
+import com.creditapi.model.InstallmentOption;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/*
+ * Caches the unpaginated loan list of a customer per filter combination.
+ * Customers poll their list far more often than it changes, so repeated polls are served without running the listing query.
+ * Each entry remembers the list version it was loaded at and is only served for that version, so a write is never
+ * hidden by an eviction that has not run yet; evicting on writes just frees the memory early.
+ * The cache is bounded by the total number of cached loans and entries expire after a TTL.
+ * Hit, miss and eviction counts are published as the cache.* meters tagged cache=loan.list.
+ */
+@Component
+public class LoanListCache {
+    public static final String CACHE_NAME = "loan.list";
+
+    private static final Boolean[] PAID_FILTERS = {null, Boolean.TRUE, Boolean.FALSE};
+
+    private final Cache<ListKey, CachedList> lists;
+
+    public LoanListCache(MeterRegistry meterRegistry,
+                         @Value("${loan.list.cache.max-loans:200000}") long maxLoans,
+                         @Value("${loan.list.cache.ttl:30s}") Duration ttl) {
+        this.lists = Caffeine.newBuilder()
+            .maximumWeight(maxLoans)
+            // Every list weighs at least 1 so empty lists are bounded too
+            .weigher((ListKey key, CachedList list) -> list.loans().size() + 1)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, lists, CACHE_NAME);
+    }
+
+    // listVersion must be read before the loader runs, so a cached list is never older than the version it is stored under.
+    // Concurrent misses for the same key share one load
+    public List<LoanResponseDTO> get(UUID customerId, Integer numberOfInstallments, Boolean isPaid, String listVersion,
+                                     Supplier<List<LoanResponseDTO>> loader) {
+        // Unsupported installment counts are not cached, they would only add keys that evict() does not know about
+        if (numberOfInstallments != null && !InstallmentOption.isValid(numberOfInstallments)) {
+            return loader.get();
+        }
+        ListKey key = new ListKey(customerId, numberOfInstallments, isPaid);
+        CachedList cached = lists.get(key, k -> new CachedList(listVersion, List.copyOf(loader.get())));
+        if (!Objects.equals(cached.version(), listVersion)) {
+            cached = new CachedList(listVersion, List.copyOf(loader.get()));
+            lists.put(key, cached);
+        }
+        return cached.loans();
+    }
+
+    // Drops every cached filter combination of the customer
+    public void evict(UUID customerId) {
+        List<ListKey> keys = new ArrayList<>((InstallmentOption.values().length + 1) * PAID_FILTERS.length);
+        for (Boolean isPaid : PAID_FILTERS) {
+            keys.add(new ListKey(customerId, null, isPaid));
+            for (InstallmentOption option : InstallmentOption.values()) {
+                keys.add(new ListKey(customerId, option.getValue(), isPaid));
+            }
+        }
+        lists.invalidateAll(keys);
+    }
+
+    // Evicting before commit would let a concurrent poll cache the old rows again, so inside a transaction it waits for the commit
+    public void evictAfterCommit(UUID customerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(customerId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(customerId);
+            }
+        });
+    }
+
+    private record ListKey(UUID customerId, Integer numberOfInstallments, Boolean isPaid) {}
+
+    private record CachedList(String version, List<LoanResponseDTO> loans) {}
+}
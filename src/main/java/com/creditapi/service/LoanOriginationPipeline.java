@@ -0,0 +1,223 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.LoanBatchCreateResponseDTO;
+import com.creditapi.dto.LoanCreateRequestDTO;
+import com.creditapi.dto.LoanCreateResponseDTO;
+import com.creditapi.dto.LoanOperationDTO;
+import com.creditapi.exception.OperationNotFoundException;
+import com.creditapi.exception.OriginationQueueFullException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Asynchronous loan origination. Requests are put on a bounded queue and the caller gets an operation id right away;
+ * worker threads drain the queue in micro-batches and create each batch through LoanService.createLoans, so the
+ * inserts of several requests share one transaction. Operations that are still pending are held until a worker
+ * finishes them, which is never more than the queue capacity plus one batch per worker. Finished operations are
+ * kept in memory for operation-ttl, at most max-operations of them. Either way they are only visible on the instance
+ * that accepted the request.
+ */
+@Component
+public class LoanOriginationPipeline {
+    private static final Logger log = LoggerFactory.getLogger(LoanOriginationPipeline.class);
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final LoanService loanService;
+    private final BlockingQueue<Command> queue;
+    private final ConcurrentMap<UUID, LoanOperationDTO> pending = new ConcurrentHashMap<>();
+    private final Cache<UUID, LoanOperationDTO> finished;
+    private final int workers;
+    private final int batchSize;
+    private final long lingerMs;
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    public LoanOriginationPipeline(LoanService loanService, MeterRegistry meterRegistry,
+                                   @Value("${loan.origination.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${loan.origination.workers:4}") int workers,
+                                   @Value("${loan.origination.batch-size:50}") int batchSize,
+                                   @Value("${loan.origination.linger-ms:2}") long lingerMs,
+                                   @Value("${loan.origination.operation-ttl:1h}") Duration operationTtl,
+                                   @Value("${loan.origination.max-operations:100000}") long maxOperations) {
+        this.loanService = loanService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.lingerMs = lingerMs;
+        // Bounded as well, so a burst of results cannot fill the heap before the TTL expires the oldest ones;
+        // pending operations are not in here, so the bound never evicts one a client is still polling for
+        this.finished = Caffeine.newBuilder()
+            .expireAfterWrite(operationTtl)
+            .maximumSize(maxOperations)
+            .build();
+        Gauge.builder("loan.origination.queue.depth", queue, BlockingQueue::size)
+            .description("Loan creation requests waiting for a worker")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "loan-origination-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::drain);
+        }
+    }
+
+    // Workers finish what is already queued before the application shuts down
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Loan origination workers did not finish, {} requests left in queue", queue.size());
+            executor.shutdownNow();
+        }
+    }
+
+    public LoanOperationDTO submit(LoanCreateRequestDTO request) {
+        LoanOperationDTO operation = new LoanOperationDTO();
+        operation.setId(UUID.randomUUID());
+        operation.setStatus(LoanOperationDTO.Status.PENDING);
+        operation.setSubmittedAt(LocalDateTime.now());
+        pending.put(operation.getId(), operation);
+
+        if (!running || !queue.offer(new Command(operation.getId(), operation.getSubmittedAt(), request))) {
+            pending.remove(operation.getId());
+            throw new OriginationQueueFullException("Loan origination queue is full, please retry later");
+        }
+        return operation;
+    }
+
+    public LoanOperationDTO getOperation(UUID operationId) {
+        // Pending first: a finished operation is published before it leaves the pending map, so one of the two has it
+        LoanOperationDTO operation = pending.get(operationId);
+        if (operation == null) {
+            operation = finished.getIfPresent(operationId);
+        }
+        if (operation == null) {
+            throw new OperationNotFoundException("Operation not found");
+        }
+        return operation;
+    }
+
+    private void drain() {
+        List<Command> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Command first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - batch.size());
+                // Wait briefly for more requests so a burst is written in fewer transactions
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Command next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Loan origination worker failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<Command> batch) {
+        List<LoanCreateRequestDTO> requests = batch.stream().map(Command::request).toList();
+        LoanBatchCreateResponseDTO response;
+        try {
+            response = loanService.createLoans(requests);
+        } catch (RuntimeException e) {
+            // The shared transaction rolled back; create one by one so a single failing request does not fail the others
+            log.warn("Origination batch of {} failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (Command command : batch) {
+                try {
+                    succeed(command, loanService.createLoan(command.request()));
+                } catch (RuntimeException individual) {
+                    fail(command, individual.getMessage());
+                }
+            }
+            return;
+        }
+
+        for (LoanBatchCreateResponseDTO.ItemResult result : response.getResults()) {
+            Command command = batch.get(result.getIndex());
+            if (result.isSuccess()) {
+                succeed(command, result.getLoan());
+            } else {
+                fail(command, result.getError());
+            }
+        }
+    }
+
+    // Each transition publishes a new DTO instead of mutating the one readers may already hold
+    private void succeed(Command command, LoanCreateResponseDTO loan) {
+        LoanOperationDTO operation = completed(command, LoanOperationDTO.Status.SUCCEEDED);
+        operation.setLoan(loan);
+        publish(operation);
+    }
+
+    private void fail(Command command, String error) {
+        LoanOperationDTO operation = completed(command, LoanOperationDTO.Status.FAILED);
+        operation.setError(error);
+        publish(operation);
+    }
+
+    private void publish(LoanOperationDTO operation) {
+        finished.put(operation.getId(), operation);
+        pending.remove(operation.getId());
+    }
+
+    private static LoanOperationDTO completed(Command command, LoanOperationDTO.Status status) {
+        LoanOperationDTO operation = new LoanOperationDTO();
+        operation.setId(command.operationId());
+        operation.setStatus(status);
+        operation.setSubmittedAt(command.submittedAt());
+        operation.setCompletedAt(LocalDateTime.now());
+        return operation;
+    }
+
+    private record Command(UUID operationId, LocalDateTime submittedAt, LoanCreateRequestDTO request) {}
+}
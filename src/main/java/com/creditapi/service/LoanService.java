@@ -1,14 +1,19 @@
 package com.creditapi.service;
 
+import com.creditapi.dto.CustomerSummaryDTO;
+import com.creditapi.dto.LoanBatchCreateResponseDTO;
+import com.creditapi.dto.LoanInstallmentBatchGetResponseDTO;
 import com.creditapi.dto.LoanInstallmentDTO;
 import com.creditapi.dto.LoanCreateRequestDTO;
 import com.creditapi.dto.LoanCreateResponseDTO;
+import com.creditapi.dto.LoanPageDTO;
 import com.creditapi.dto.LoanResponseDTO;
 import com.creditapi.dto.PayInstallmentRequestDTO;
 import com.creditapi.dto.PayInstallmentResponseDTO;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /*
  * This interface defines the contract for loan-related operations.
@@ -21,9 +26,36 @@ import java.util.UUID;
 public interface LoanService {
     LoanCreateResponseDTO createLoan(LoanCreateRequestDTO LoanCreateRequestDTO);
 
-    List<LoanResponseDTO> listLoansByCustomerId(UUID customerId, Integer numberOfInstallments, Boolean isPaid);
+    LoanBatchCreateResponseDTO createLoans(List<LoanCreateRequestDTO> loanCreateRequestDTOs);
+
+    // Changes whenever a loan of the customer is created or updated; read without loading any loan.
+    // Throws CustomerNotFoundException, so an unknown customer is never answered from a matching ETag
+    String getLoanListVersion(UUID customerId);
+
+    // listVersion is the getLoanListVersion value the caller already read; the cached list is only served for that version
+    List<LoanResponseDTO> listLoansByCustomerId(UUID customerId, Integer numberOfInstallments, Boolean isPaid, String listVersion);
+
+    LoanPageDTO listLoansByCustomerId(UUID customerId, Integer numberOfInstallments, Boolean isPaid, UUID after, int limit);
+
+    // Throws CustomerNotFoundException; lets streaming callers fail before any output is written
+    void checkCustomerExists(UUID customerId);
+
+    // Hands every matching loan to the sink as it is read, without holding the whole listing in memory
+    void exportLoansByCustomerId(UUID customerId, Integer numberOfInstallments, Boolean isPaid, Consumer<LoanResponseDTO> sink);
+
+    // Totals over all unpaid loans of the customer, read with one aggregate query instead of loading every loan and its installments
+    CustomerSummaryDTO getCustomerSummary(UUID customerId);
+
+    // Loan.version, which also changes when installments are paid; read without loading any installment
+    long getInstallmentsVersion(UUID loanId);
 
     List<LoanInstallmentDTO> listInstallmentsByLoanId(UUID loanId);
 
+    // Installments of several loans read with a single query; unknown ids are reported instead of failing the batch
+    LoanInstallmentBatchGetResponseDTO listInstallmentsByLoanIds(List<UUID> loanIds);
+
     PayInstallmentResponseDTO payInstallments(UUID loanId, PayInstallmentRequestDTO requestDTO);
+
+    // What payInstallments would return for the amount right now, computed read-only without paying anything
+    PayInstallmentResponseDTO quotePayment(UUID loanId, PayInstallmentRequestDTO requestDTO);
 }
@@ -3,20 +3,39 @@ package com.creditapi.service;
 import com.creditapi.exception.CustomerNotFoundException;
 import com.creditapi.exception.LoanNotFoundException;
 import com.creditapi.exception.InsufficientCreditLimitException;
+import com.creditapi.journal.JournalRecord;
+import com.creditapi.journal.LoanJournal;
 import com.creditapi.model.Customer;
+import com.creditapi.model.InstallmentOption;
 import com.creditapi.model.Loan;
 import com.creditapi.model.LoanInstallment;
+import com.creditapi.repository.ActiveLoanBalance;
 import com.creditapi.repository.CustomerRepository;
+import com.creditapi.repository.InstallmentRow;
 import com.creditapi.repository.LoanRepository;
+import com.creditapi.repository.PayableInstallment;
+import com.creditapi.util.AmortizationSchedule;
+import com.creditapi.util.LoanAggregates;
 import com.creditapi.util.LoanUtil;
+import com.creditapi.util.Money;
+import com.creditapi.util.ScheduleCodec;
 import com.creditapi.repository.LoanInstallmentRepository;
+import com.creditapi.dto.CustomerSummaryDTO;
+import com.creditapi.dto.LoanBatchCreateResponseDTO;
 import com.creditapi.dto.LoanCreateRequestDTO;
 import com.creditapi.dto.LoanCreateResponseDTO;
+import com.creditapi.dto.LoanPageDTO;
 import com.creditapi.dto.LoanResponseDTO;
 import com.creditapi.dto.PayInstallmentRequestDTO;
 import com.creditapi.dto.PayInstallmentResponseDTO;
 import com.creditapi.mapper.LoanMapper;
+import com.creditapi.dto.LoanInstallmentBatchGetResponseDTO;
 import com.creditapi.dto.LoanInstallmentDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,11 +43,18 @@ import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.Comparator;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class LoanServiceImpl implements LoanService {
@@ -36,100 +62,410 @@ public class LoanServiceImpl implements LoanService {
     private final LoanRepository loanRepository;
     private final LoanMapper loanMapper;
     private final LoanInstallmentRepository loanInstallmentRepository;
+    private final CreditLedger creditLedger;
+    private final AmortizationScheduleEngine scheduleEngine;
+    private final LoanListCache loanListCache;
+    private final LoanJournal loanJournal;
 
-    public LoanServiceImpl(CustomerRepository customerRepository, LoanRepository loanRepository, LoanMapper loanMapper, LoanInstallmentRepository loanInstallmentRepository) {
+    // New loans store their schedule in Loan.scheduleData instead of LoanInstallment rows; existing loans are read in whichever format they have
+    @Value("${loan.schedule.embedded:false}")
+    private boolean embeddedSchedule;
+
+    public LoanServiceImpl(CustomerRepository customerRepository, LoanRepository loanRepository, LoanMapper loanMapper, LoanInstallmentRepository loanInstallmentRepository, CreditLedger creditLedger, AmortizationScheduleEngine scheduleEngine, LoanListCache loanListCache, LoanJournal loanJournal) {
         this.customerRepository = customerRepository;
         this.loanRepository = loanRepository;
         this.loanMapper = loanMapper;
         this.loanInstallmentRepository = loanInstallmentRepository;
+        this.creditLedger = creditLedger;
+        this.scheduleEngine = scheduleEngine;
+        this.loanListCache = loanListCache;
+        this.loanJournal = loanJournal;
     }
 
     @Override
+    // A concurrent reservation for the same customer bumps Customer.version; the whole transaction is retried with jittered exponential backoff
+    @Retryable(
+        retryFor = OptimisticLockingFailureException.class,
+        maxAttemptsExpression = "${credit.reservation.retry.max-attempts:10}",
+        backoff = @Backoff(
+            delayExpression = "${credit.reservation.retry.initial-delay-ms:5}",
+            multiplierExpression = "${credit.reservation.retry.multiplier:2}",
+            maxDelayExpression = "${credit.reservation.retry.max-delay-ms:200}",
+            random = true))
     @Transactional
     public LoanCreateResponseDTO createLoan(LoanCreateRequestDTO loanCreateRequestDTO) {
 
+        // Check and reserve customer's credit limit
+        reserveCredit(loanCreateRequestDTO.getCustomerId(), loanCreateRequestDTO.getLoanAmount());
+        
+        Loan loan = loanMapper.toEntity(loanCreateRequestDTO);
+
+        // Calculate and create installments
+        AmortizationSchedule schedule = scheduleFor(loanCreateRequestDTO);
+        BigDecimal paymentAmount = schedule.paymentAmount();
+        List<LoanInstallment> installments = buildInstallments(loan, schedule);
+        LoanAggregates.of(installments).applyTo(loan);
+        if (embeddedSchedule) {
+            loan.setScheduleData(ScheduleCodec.encode(installments));
+            loanRepository.save(loan);
+        } else {
+            // Save loan first to get an ID
+            loanRepository.save(loan);
+            for (LoanInstallment installment : installments) {
+                loanInstallmentRepository.save(installment);
+            }
+        }
+        loanListCache.evictAfterCommit(loan.getCustomerId());
+        if (loanJournal.isEnabled()) {
+            loanJournal.recordAfterCommit(loanCreated(loan));
+        }
+
+        LoanCreateResponseDTO loanCreateResponseDto = loanMapper.toLoanCreateResponseDTO(loan);
+        loanCreateResponseDto.setPaymentAmount(paymentAmount);
+        loanCreateResponseDto.setFirstPaymentDate(LoanUtil.calculateFirstPaymentDate(loan.getCreateDate()));
+        return loanCreateResponseDto;
+    }
+
+    @Override
+    @Retryable(
+        retryFor = OptimisticLockingFailureException.class,
+        maxAttemptsExpression = "${credit.reservation.retry.max-attempts:10}",
+        backoff = @Backoff(
+            delayExpression = "${credit.reservation.retry.initial-delay-ms:5}",
+            multiplierExpression = "${credit.reservation.retry.multiplier:2}",
+            maxDelayExpression = "${credit.reservation.retry.max-delay-ms:200}",
+            random = true))
+    @Transactional
+    public LoanBatchCreateResponseDTO createLoans(List<LoanCreateRequestDTO> loanCreateRequestDTOs) {
+        int size = loanCreateRequestDTOs.size();
+
+        // Load every referenced customer with one query; credit checks are then grouped per customer in memory
+        Map<UUID, Customer> customers = Map.of();
+        if (!creditLedger.isEnabled()) {
+            Set<UUID> customerIds = loanCreateRequestDTOs.stream()
+                .map(LoanCreateRequestDTO::getCustomerId)
+                .collect(Collectors.toSet());
+            customers = customerRepository.findAllById(customerIds).stream()
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        }
+        Map<UUID, Customer> chargedCustomers = new LinkedHashMap<>();
+
+        List<LoanBatchCreateResponseDTO.ItemResult> results = new ArrayList<>(size);
+        List<Loan> loans = new ArrayList<>(size);
+        Loan[] createdLoans = new Loan[size];
+        BigDecimal[] paymentAmounts = new BigDecimal[size];
+
+        for (int i = 0; i < size; i++) {
+            LoanCreateRequestDTO request = loanCreateRequestDTOs.get(i);
+            LoanBatchCreateResponseDTO.ItemResult result = new LoanBatchCreateResponseDTO.ItemResult();
+            result.setIndex(i);
+            results.add(result);
+
+            if (creditLedger.isEnabled()) {
+                try {
+                    creditLedger.reserve(request.getCustomerId(), request.getLoanAmount());
+                } catch (CustomerNotFoundException | InsufficientCreditLimitException e) {
+                    result.setError(e.getMessage());
+                    continue;
+                }
+            } else {
+                Customer customer = customers.get(request.getCustomerId());
+                if (customer == null) {
+                    result.setError("Customer not found");
+                    continue;
+                }
+                // Earlier items of the same batch have already been charged to this customer
+                if (customer.getCreditLimit().subtract(customer.getUsedCreditLimit()).compareTo(request.getLoanAmount()) < 0) {
+                    result.setError("Insufficient credit limit");
+                    continue;
+                }
+                customer.setUsedCreditLimit(customer.getUsedCreditLimit().add(request.getLoanAmount()));
+                chargedCustomers.put(customer.getId(), customer);
+            }
+
+            // Installments are persisted through the Loan.installments cascade so inserts are JDBC batched
+            Loan loan = loanMapper.toEntity(request);
+            AmortizationSchedule schedule = scheduleFor(request);
+            paymentAmounts[i] = schedule.paymentAmount();
+            List<LoanInstallment> installments = buildInstallments(loan, schedule);
+            LoanAggregates.of(installments).applyTo(loan);
+            if (embeddedSchedule) {
+                loan.setScheduleData(ScheduleCodec.encode(installments));
+            } else {
+                loan.getInstallments().addAll(installments);
+            }
+            loans.add(loan);
+            createdLoans[i] = loan;
+        }
+
+        loanRepository.saveAll(loans);
+        if (!chargedCustomers.isEmpty()) {
+            customerRepository.saveAll(chargedCustomers.values());
+        }
+        loans.stream().map(Loan::getCustomerId).distinct().forEach(loanListCache::evictAfterCommit);
+        if (loanJournal.isEnabled()) {
+            loans.forEach(loan -> loanJournal.recordAfterCommit(loanCreated(loan)));
+        }
+
+        int createdCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (createdLoans[i] == null) {
+                continue;
+            }
+            LoanCreateResponseDTO loanCreateResponseDto = loanMapper.toLoanCreateResponseDTO(createdLoans[i]);
+            loanCreateResponseDto.setPaymentAmount(paymentAmounts[i]);
+            loanCreateResponseDto.setFirstPaymentDate(LoanUtil.calculateFirstPaymentDate(createdLoans[i].getCreateDate()));
+            results.get(i).setSuccess(true);
+            results.get(i).setLoan(loanCreateResponseDto);
+            createdCount++;
+        }
+
+        LoanBatchCreateResponseDTO response = new LoanBatchCreateResponseDTO();
+        response.setCreatedCount(createdCount);
+        response.setFailedCount(size - createdCount);
+        response.setResults(results);
+        return response;
+    }
+
+    private static JournalRecord.LoanCreated loanCreated(Loan loan) {
+        return new JournalRecord.LoanCreated(loan.getId(), loan.getCustomerId(), Money.toMinor(loan.getLoanAmount(), RoundingMode.HALF_UP),
+            loan.getInterestRate(), loan.getNumberOfInstallments().getValue(), loan.getCreateDate().toLocalDate());
+    }
+
+    // With the ledger enabled admission is decided in memory and the Customer row is updated by its write-behind flush
+    private void reserveCredit(UUID customerId, BigDecimal amount) {
+        if (creditLedger.isEnabled()) {
+            creditLedger.reserve(customerId, amount);
+            return;
+        }
+
         // Check if customer exists
-        Optional<Customer> customerOpt = customerRepository.findById(loanCreateRequestDTO.getCustomerId());
+        Optional<Customer> customerOpt = customerRepository.findById(customerId);
         if (customerOpt.isEmpty()) {
             throw new CustomerNotFoundException("Customer not found");
         }
 
-        // Check customer's credit limit 
+        // Check customer's credit limit
         Customer customer = customerOpt.get();
-        if (customer.getCreditLimit().subtract(customer.getUsedCreditLimit()).compareTo(loanCreateRequestDTO.getLoanAmount()) < 0) {
+        if (customer.getCreditLimit().subtract(customer.getUsedCreditLimit()).compareTo(amount) < 0) {
             throw new InsufficientCreditLimitException("Insufficient credit limit");
         }
-        
-        Loan loan = loanMapper.toEntity(loanCreateRequestDTO);
-        // Save loan first to get an ID
-        loanRepository.save(loan);
-        int numberOfInstallments = loanCreateRequestDTO.getNumberOfInstallments();
 
-        // Calculate and create installments
-        BigDecimal totalToBePaid = LoanUtil.calculateTotalToBePaid(loanCreateRequestDTO.getLoanAmount(), loanCreateRequestDTO.getInterestRate());
-
-        BigDecimal baseAmount = totalToBePaid.divide(BigDecimal.valueOf(numberOfInstallments), 2, RoundingMode.HALF_UP);
-        BigDecimal totalAssigned = baseAmount.multiply(BigDecimal.valueOf(numberOfInstallments));
-        BigDecimal remainder = totalToBePaid.subtract(totalAssigned);
-        LocalDate dueDate = LocalDate.now().plusMonths(1).withDayOfMonth(1);
-
-        for (int i = 0; i < numberOfInstallments; i++) {
-            BigDecimal amount = baseAmount;
-            if (i == numberOfInstallments - 1) {
-                amount = amount.add(remainder);
-                amount = amount.setScale(2, RoundingMode.HALF_UP); // Ensure last installment is rounded to 2 decimals
-            }
+        // Update customer's used credit limit; Customer.version rejects a concurrent update at commit
+        customer.setUsedCreditLimit(customer.getUsedCreditLimit().add(amount));
+        customerRepository.save(customer);
+    }
+
+    private AmortizationSchedule scheduleFor(LoanCreateRequestDTO request) {
+        return scheduleEngine.scheduleFor(request.getLoanAmount(), request.getInterestRate(), LoanMapper.intToInstallmentOption(request.getNumberOfInstallments()));
+    }
+
+    // Schedules are shared between loans, so only the entities are created per loan
+    private List<LoanInstallment> buildInstallments(Loan loan, AmortizationSchedule schedule) {
+        LocalDate firstDueDate = AmortizationSchedule.firstDueDate(LocalDate.now());
+
+        List<LoanInstallment> installments = new ArrayList<>(schedule.size());
+        for (int i = 0; i < schedule.size(); i++) {
             LoanInstallment installment = new LoanInstallment();
             installment.setLoan(loan);
-            installment.setAmount(amount);
+            installment.setAmount(schedule.amount(i));
             installment.setPaidAmount(BigDecimal.ZERO);
-            installment.setDueDate(dueDate.plusMonths(i));
+            installment.setDueDate(schedule.dueDate(firstDueDate, i));
             installment.setPaid(false);
-            loanInstallmentRepository.save(installment);
+            installments.add(installment);
         }
-        
-        // Update customer's used credit limit
-        customer.setUsedCreditLimit(customer.getUsedCreditLimit().add(loanCreateRequestDTO.getLoanAmount()));
-        customerRepository.save(customer);
+        return installments;
+    }
 
-        LoanCreateResponseDTO loanCreateResponseDto = loanMapper.toLoanCreateResponseDTO(loan);
-        loanCreateResponseDto.setPaymentAmount(totalToBePaid);
-        loanCreateResponseDto.setFirstPaymentDate(LoanUtil.calculateFirstPaymentDate(loan.getCreateDate()));
-        return loanCreateResponseDto;
+    @Override
+    public String getLoanListVersion(UUID customerId) {
+        String version = loanRepository.findListVersionByCustomerId(customerId);
+        if (version == null) {
+            throw new CustomerNotFoundException("Customer not found");
+        }
+        return version;
     }
 
     @Override
-    public List<LoanResponseDTO> listLoansByCustomerId(UUID customerId, Integer numberOfInstallments, Boolean isPaid) {
-        // Check if customer exists
+    public List<LoanResponseDTO> listLoansByCustomerId(UUID customerId, Integer numberOfInstallments, Boolean isPaid, String listVersion) {
+        // Served from the cache while the list version is unchanged; a cached list also implies the customer exists
+        return loanListCache.get(customerId, numberOfInstallments, isPaid, listVersion,
+            () -> findLoans(customerId, numberOfInstallments, isPaid, null, Limit.unlimited()));
+    }
+
+    @Override
+    public LoanPageDTO listLoansByCustomerId(UUID customerId, Integer numberOfInstallments, Boolean isPaid, UUID after, int limit) {
+        // One extra row tells whether there is a next page without a count query
+        List<LoanResponseDTO> loans = findLoans(customerId, numberOfInstallments, isPaid, after, Limit.of(limit + 1));
+        boolean hasMore = loans.size() > limit;
+        if (hasMore) {
+            loans = loans.subList(0, limit);
+        }
+
+        LoanPageDTO page = new LoanPageDTO();
+        page.setLoans(loans);
+        page.setNextCursor(hasMore ? loans.get(limit - 1).getId() : null);
+        return page;
+    }
+
+    // Read-only listing selects straight into DTOs, so no entities are loaded into the persistence context
+    private List<LoanResponseDTO> findLoans(UUID customerId, Integer numberOfInstallments, Boolean isPaid, UUID after, Limit limit) {
+        checkCustomerExists(customerId);
+
+        // No loan can match an installment count that is not offered
+        if (numberOfInstallments != null && !InstallmentOption.isValid(numberOfInstallments)) {
+            return List.of();
+        }
+        InstallmentOption installmentOption = LoanMapper.intToInstallmentOption(numberOfInstallments);
+        return loanRepository.findResponsePageByCustomerId(customerId, installmentOption, isPaid, after, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportLoansByCustomerId(UUID customerId, Integer numberOfInstallments, Boolean isPaid, Consumer<LoanResponseDTO> sink) {
+        // The customer is checked by the caller before the response starts, see checkCustomerExists
+        if (numberOfInstallments != null && !InstallmentOption.isValid(numberOfInstallments)) {
+            return;
+        }
+        InstallmentOption installmentOption = LoanMapper.intToInstallmentOption(numberOfInstallments);
+        // The stream holds a database cursor, so it is consumed and closed before the transaction ends
+        try (Stream<LoanResponseDTO> loans = loanRepository.streamResponsesByCustomerId(customerId, installmentOption, isPaid)) {
+            loans.forEach(sink);
+        }
+    }
+
+    @Override
+    public void checkCustomerExists(UUID customerId) {
         Optional<Customer> customer =  customerRepository.findById(customerId);
         if (customer.isEmpty()) {
             throw new CustomerNotFoundException("Customer not found");
         }
+    }
+
+    @Override
+    public CustomerSummaryDTO getCustomerSummary(UUID customerId) {
+        checkCustomerExists(customerId);
+        LocalDate today = LocalDate.now();
 
-        List<Loan> loans = loanRepository.findByCustomerId(customerId);
-        return loans.stream()
-            .filter(l -> numberOfInstallments == null || l.getNumberOfInstallments().getValue() == numberOfInstallments)
-            .filter(l -> isPaid == null || l.isPaid() == isPaid)
-            .map(loan -> {
-                LoanResponseDTO loanResponseDto = loanMapper.toResponseDto(loan);
-                loanResponseDto.setPaymentAmount(LoanUtil.calculateTotalToBePaid(loan.getLoanAmount(), loan.getInterestRate()));
-                loanResponseDto.setFirstPaymentDate(LoanUtil.calculateFirstPaymentDate(loan.getCreateDate()));
-                return loanResponseDto;
-            })
-            .toList();
+        BigDecimal outstandingPrincipal = BigDecimal.ZERO;
+        BigDecimal totalRemainingPayable = BigDecimal.ZERO;
+        long overdueInstallments = 0;
+        LocalDate nextDueDate = null;
+        BigDecimal nextDueAmount = null;
+
+        List<ActiveLoanBalance> balances = loanRepository.findActiveLoanBalancesByCustomerId(customerId, today);
+        for (ActiveLoanBalance balance : balances) {
+            if (balance.scheduleData() != null) {
+                balance = embeddedBalance(balance, today);
+            }
+            totalRemainingPayable = totalRemainingPayable.add(balance.remainingPayable());
+            // Installments carry principal and interest in the same proportion as the loan total, see AmortizationSchedule.totalToBePaid
+            outstandingPrincipal = outstandingPrincipal.add(
+                balance.remainingPayable().divide(BigDecimal.valueOf(1 + balance.interestRate()), 2, RoundingMode.HALF_UP));
+            overdueInstallments += balance.overdueInstallments();
+
+            // Installments of different loans fall due on the same first of the month, so they are added up
+            if (balance.nextDueDate() == null) {
+                continue;
+            }
+            if (nextDueDate == null || balance.nextDueDate().isBefore(nextDueDate)) {
+                nextDueDate = balance.nextDueDate();
+                nextDueAmount = balance.nextDueAmount();
+            } else if (balance.nextDueDate().equals(nextDueDate)) {
+                nextDueAmount = nextDueAmount.add(balance.nextDueAmount());
+            }
+        }
+
+        CustomerSummaryDTO summary = new CustomerSummaryDTO();
+        summary.setCustomerId(customerId);
+        summary.setActiveLoans(balances.size());
+        summary.setOutstandingPrincipal(outstandingPrincipal);
+        summary.setTotalRemainingPayable(totalRemainingPayable);
+        summary.setOverdueInstallments(overdueInstallments);
+        summary.setNextDueDate(nextDueDate);
+        summary.setNextDueAmount(nextDueAmount);
+        return summary;
+    }
+
+    // Embedded schedules are not visible to the SQL aggregate, so the same figures are taken from the decoded installments
+    private static ActiveLoanBalance embeddedBalance(ActiveLoanBalance balance, LocalDate today) {
+        Loan loan = new Loan();
+        loan.setId(balance.loanId());
+
+        BigDecimal remainingPayable = BigDecimal.ZERO;
+        long overdueInstallments = 0;
+        LoanInstallment next = null;
+        for (LoanInstallment installment : ScheduleCodec.decode(loan, balance.scheduleData())) {
+            if (installment.isPaid()) {
+                continue;
+            }
+            remainingPayable = remainingPayable.add(installment.getAmount());
+            if (installment.getDueDate().isBefore(today)) {
+                overdueInstallments++;
+            } else if (next == null) {
+                // Decoded schedules are in due date order
+                next = installment;
+            }
+        }
+        return new ActiveLoanBalance(balance.loanId(), balance.interestRate(), null, remainingPayable, overdueInstallments,
+            next != null ? next.getDueDate() : null, next != null ? next.getAmount() : null);
+    }
+
+    @Override
+    public long getInstallmentsVersion(UUID loanId) {
+        return loanRepository.findVersionById(loanId)
+            .orElseThrow(() -> new LoanNotFoundException("Loan not found"));
     }
 
     @Override
     public List<LoanInstallmentDTO> listInstallmentsByLoanId(UUID loanId) {
-        Optional<Loan> loanOpt = loanRepository.findById(loanId);
-        if (loanOpt.isEmpty()) {
+        List<InstallmentRow> rows = loanRepository.findInstallmentRowsByLoanId(loanId);
+        if (rows.isEmpty()) {
             throw new LoanNotFoundException("Loan not found");
         }
+        return toInstallmentDTOs(loanId, rows);
+    }
+
+    @Override
+    public LoanInstallmentBatchGetResponseDTO listInstallmentsByLoanIds(List<UUID> loanIds) {
+        Set<UUID> requested = new LinkedHashSet<>(loanIds);
+        Map<UUID, List<InstallmentRow>> rowsByLoan = loanRepository.findInstallmentRowsByLoanIdIn(requested).stream()
+            .collect(Collectors.groupingBy(InstallmentRow::loanId));
+
+        Map<UUID, List<LoanInstallmentDTO>> installments = new LinkedHashMap<>();
+        List<UUID> notFound = new ArrayList<>();
+        for (UUID loanId : requested) {
+            List<InstallmentRow> rows = rowsByLoan.get(loanId);
+            if (rows == null) {
+                notFound.add(loanId);
+            } else {
+                installments.put(loanId, toInstallmentDTOs(loanId, rows));
+            }
+        }
+
+        LoanInstallmentBatchGetResponseDTO response = new LoanInstallmentBatchGetResponseDTO();
+        response.setInstallments(installments);
+        response.setNotFound(notFound);
+        return response;
+    }
 
-        List<LoanInstallment> installments = loanInstallmentRepository.findByLoanId(loanId);
+    // rows are the non-empty result of the installment row query for one loan
+    private List<LoanInstallmentDTO> toInstallmentDTOs(UUID loanId, List<InstallmentRow> rows) {
+        // Embedded schedules come back as a single row carrying the encoded installments
+        byte[] scheduleData = rows.get(0).scheduleData();
+        if (scheduleData != null) {
+            Loan loan = new Loan();
+            loan.setId(loanId);
+            return ScheduleCodec.decode(loan, scheduleData).stream()
+                .map(loanMapper::toLoanInstallmentDTO)
+                .collect(Collectors.toList());
+        }
+        // The left join leaves one row without installment for a loan with an empty schedule
+        if (rows.get(0).id() == null) {
+            return List.of();
+        }
 
-        // Map entities to DTOs
-        return installments.stream()
+        return rows.stream()
             .map(loanMapper::toLoanInstallmentDTO)
             .collect(Collectors.toList());
     }
@@ -137,92 +473,163 @@ public class LoanServiceImpl implements LoanService {
     @Override
     @Transactional
     public PayInstallmentResponseDTO payInstallments(UUID loanId, PayInstallmentRequestDTO requestDTO) {
+        checkPaymentAmount(requestDTO);
 
-        if (requestDTO.getAmount() == null || requestDTO.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("Payment amount must be positive");
+        // Locked until commit: a concurrent payment on the same loan waits here and then only sees what this one left unpaid
+        Loan loan = loanRepository.findByIdForUpdate(loanId)
+            .orElseThrow(() -> new LoanNotFoundException("Loan not found"));
+
+        LocalDate now = LocalDate.now();
+        PaymentPlan plan = planPayment(loan, requestDTO.getAmount(), now);
+        List<PayInstallmentResponseDTO.InstallmentPaymentDetail> details = plan.details();
+        int paidCount = details.size();
+
+        if (paidCount > 0) {
+            if (plan.embedded()) {
+                List<LoanInstallment> schedule = plan.schedule();
+                for (int k = 0; k < paidCount; k++) {
+                    LoanInstallment inst = plan.scheduledPayable().get(k);
+                    inst.setPaidAmount(details.get(k).getPaidAmount());
+                    inst.setPaid(true);
+                    inst.setPaymentDate(now);
+                }
+                // Installments are paid strictly in due date order, so the paid ones are a prefix of the schedule
+                // and the next due one comes right after them
+                int nextIndex = loan.getPaidInstallmentCount() + paidCount;
+                loan.setNextDueDate(nextIndex < schedule.size() ? schedule.get(nextIndex).getDueDate() : null);
+                // Decoded installments are detached copies, so the updated schedule is written back as a whole
+                loan.setScheduleData(ScheduleCodec.encode(schedule));
+            } else {
+                Map<UUID, BigDecimal> paidAmounts = new LinkedHashMap<>();
+                for (PayInstallmentResponseDTO.InstallmentPaymentDetail detail : details) {
+                    paidAmounts.put(detail.getInstallmentId(), detail.getPaidAmount());
+                }
+                loanInstallmentRepository.markPaid(paidAmounts, now);
+                loan.setNextDueDate(loanInstallmentRepository.findNextUnpaidDueDate(loan.getId()));
+            }
+            loan.setPaidInstallmentCount(loan.getPaidInstallmentCount() + paidCount);
+            loan.setOutstandingAmount(loan.getOutstandingAmount().subtract(Money.toDecimal(plan.paidOff())));
         }
 
-        Optional<Loan> loanOpt = loanRepository.findById(loanId);
-        if (loanOpt.isEmpty()) {
-            throw new LoanNotFoundException("Loan not found");
+        // Nothing left to pay once there is no next due date
+        boolean loanFullyPaid = loan.getNextDueDate() == null;
+        boolean markedPaid = loanFullyPaid && !loan.isPaid();
+        if (markedPaid) {
+            loan.setPaid(true);
+        }
+        if (paidCount > 0 || markedPaid) {
+            // The loan row carries the aggregates shown in listings, and saving it also moves the version behind the ETags
+            loanRepository.save(loan);
+            loanListCache.evictAfterCommit(loan.getCustomerId());
+            if (loanJournal.isEnabled()) {
+                // Amounts beyond whole cents never change which installments are paid
+                loanJournal.recordAfterCommit(new JournalRecord.InstallmentsPaid(loan.getId(), now,
+                    Money.toMinor(requestDTO.getAmount(), RoundingMode.DOWN), paidCount, plan.totalSpent(), loanFullyPaid));
+            }
         }
 
-        Loan loan = loanOpt.get();
+        return paymentResponse(plan, loanFullyPaid);
+    }
 
-        List<LoanInstallment> installments = loanInstallmentRepository.findByLoanId(loanId);
+    @Override
+    @Transactional(readOnly = true)
+    public PayInstallmentResponseDTO quotePayment(UUID loanId, PayInstallmentRequestDTO requestDTO) {
+        checkPaymentAmount(requestDTO);
 
-        // Only unpaid installments, sorted by due date
-        LocalDate now = LocalDate.now();
-        LocalDate maxPayableDate = now.plusMonths(3).withDayOfMonth(1).minusDays(1).plusMonths(1); // End of 3rd month
+        // No lock and nothing written: a payment committed in between can make the real one cover less than quoted
+        Loan loan = loanRepository.findById(loanId)
+            .orElseThrow(() -> new LoanNotFoundException("Loan not found"));
 
-        // Only unpaid and due within 3 months
-        List<LoanInstallment> eligible = installments.stream()
-            .filter(i -> !i.isPaid())
-            .filter(i -> !i.getDueDate().isAfter(maxPayableDate))
-            .sorted(Comparator.comparing(LoanInstallment::getDueDate))
-            .toList();
-        
-        BigDecimal totalSpent = BigDecimal.ZERO;
-        BigDecimal remaining = requestDTO.getAmount();
-        int paidCount = 0;
+        PaymentPlan plan = planPayment(loan, requestDTO.getAmount(), LocalDate.now());
+        // outstandingAmount is the sum of the unpaid installments, so the loan would be paid off exactly when the
+        // payment covers all of it; that is when payInstallments finds no next due date
+        boolean loanFullyPaid = loan.getNextDueDate() == null
+            || loan.getOutstandingAmount().compareTo(Money.toDecimal(plan.paidOff())) == 0;
+        return paymentResponse(plan, loanFullyPaid);
+    }
 
-        List<PayInstallmentResponseDTO.InstallmentPaymentDetail> details = new java.util.ArrayList<>();
+    private static void checkPaymentAmount(PayInstallmentRequestDTO requestDTO) {
+        if (requestDTO.getAmount() == null || requestDTO.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Payment amount must be positive");
+        }
+    }
 
-        for (LoanInstallment inst : eligible) {
+    // Which installments the amount covers and what each of them costs, without changing anything.
+    // Shared by payInstallments and quotePayment, so a quote always shows what the payment would do
+    private PaymentPlan planPayment(Loan loan, BigDecimal amount, LocalDate now) {
+        LocalDate maxPayableDate = now.plusMonths(3).withDayOfMonth(1).minusDays(1).plusMonths(1); // End of 3rd month
 
-            if (remaining.compareTo(inst.getAmount()) < 0) {
-                break; // Only full payments allowed
-            }
+        // Only unpaid installments due within 3 months, in due date order, as far as the amount covers them in full.
+        // Row stored schedules are selected that way in the database; embedded ones are decoded and walked here
+        boolean embedded = loan.getScheduleData() != null;
+        List<LoanInstallment> schedule = embedded ? ScheduleCodec.decode(loan, loan.getScheduleData()) : List.of();
+        List<LoanInstallment> scheduledPayable = embedded ? payableFromSchedule(schedule, maxPayableDate, Money.toMinor(amount, RoundingMode.DOWN)) : List.of();
+        List<PayableInstallment> payable = embedded
+            ? scheduledPayable.stream().map(i -> new PayableInstallment(i.getId(), i.getAmount(), i.getDueDate())).toList()
+            : loanInstallmentRepository.findPayableByLoanId(loan.getId(), maxPayableDate, amount);
 
-            // Reward/Penalty logic
-            BigDecimal paidAmount = inst.getAmount();
-            boolean isReward = false;
-            boolean isPenalty = false;
-
-            long daysDiff = ChronoUnit.DAYS.between(inst.getDueDate(), now);
-            if (now.isBefore(inst.getDueDate())) {
-                // Early payment: reward (discount)
-                long daysEarly = Math.abs(daysDiff);
-                BigDecimal discount = inst.getAmount().multiply(new BigDecimal("0.001")).multiply(BigDecimal.valueOf(daysEarly)).setScale(2, RoundingMode.HALF_UP);
-                paidAmount = paidAmount.subtract(discount);
-                isReward = true;
-            } else if (now.isAfter(inst.getDueDate())) {
-                // Late payment: penalty
-                long daysLate = daysDiff;
-                BigDecimal penalty = inst.getAmount().multiply(new BigDecimal("0.001")).multiply(BigDecimal.valueOf(daysLate)).setScale(2, RoundingMode.HALF_UP);
-                paidAmount = paidAmount.add(penalty);
-                isPenalty = true;
-            }
+        // Summed in cents; amounts only become BigDecimal again on the entity and the response
+        long totalSpent = 0;
+        long paidOff = 0;
+
+        List<PayInstallmentResponseDTO.InstallmentPaymentDetail> details = new ArrayList<>();
 
-            inst.setPaidAmount(paidAmount);
-            inst.setPaid(true);
-            inst.setPaymentDate(now);
-            loanInstallmentRepository.save(inst);
-            remaining = remaining.subtract(inst.getAmount()); // always subtract original amount for payment logic
-            totalSpent = totalSpent.add(paidAmount);
-            paidCount++;
+        for (PayableInstallment inst : payable) {
+            // Reward/Penalty logic
+            long installmentAmount = Money.toMinor(inst.amount());
+            long paidAmount = paidAmount(installmentAmount, inst.dueDate(), now);
+            paidOff += installmentAmount;
+            totalSpent += paidAmount;
 
             PayInstallmentResponseDTO.InstallmentPaymentDetail detail = new PayInstallmentResponseDTO.InstallmentPaymentDetail();
-            detail.setInstallmentId(inst.getId());
-            detail.setPaidAmount(paidAmount);
-            detail.setPaymentDate(inst.getPaymentDate().toString());
-            detail.setReward(isReward);
-            detail.setPenalty(isPenalty);
+            detail.setInstallmentId(inst.id());
+            detail.setPaidAmount(Money.toDecimal(paidAmount));
+            detail.setPaymentDate(now.toString());
+            detail.setReward(now.isBefore(inst.dueDate()));
+            detail.setPenalty(now.isAfter(inst.dueDate()));
             details.add(detail);
         }
+        return new PaymentPlan(embedded, schedule, scheduledPayable, details, totalSpent, paidOff);
+    }
 
-        // If all installments are paid, mark loan as paid
-        boolean loanFullyPaid = installments.stream().allMatch(LoanInstallment::isPaid);
-        if (loanFullyPaid && !loan.isPaid()) {
-            loan.setPaid(true);
-            loanRepository.save(loan);
-        }
-        
+    private static PayInstallmentResponseDTO paymentResponse(PaymentPlan plan, boolean loanFullyPaid) {
         PayInstallmentResponseDTO resp = new PayInstallmentResponseDTO();
-        resp.setNumberOfInstallmentsPaid(paidCount);
-        resp.setTotalAmountSpent(totalSpent);
+        resp.setNumberOfInstallmentsPaid(plan.details().size());
+        resp.setTotalAmountSpent(Money.toDecimal(plan.totalSpent()));
         resp.setLoanFullyPaid(loanFullyPaid);
-        resp.setPaidInstallments(details);
+        resp.setPaidInstallments(plan.details());
         return resp;
     }
+
+    // schedule and scheduledPayable are only filled for embedded schedules; details follow the due date order
+    private record PaymentPlan(boolean embedded, List<LoanInstallment> schedule, List<LoanInstallment> scheduledPayable,
+                               List<PayInstallmentResponseDTO.InstallmentPaymentDetail> details, long totalSpent, long paidOff) {
+    }
+
+    // Same selection as LoanInstallmentRepository.findPayableByLoanId, over a schedule decoded in due date order
+    // Installment amounts are whole cents, so comparing against the amount rounded down to cents selects the same ones
+    private static List<LoanInstallment> payableFromSchedule(List<LoanInstallment> schedule, LocalDate maxPayableDate, long amount) {
+        List<LoanInstallment> payable = new ArrayList<>();
+        long runningTotal = 0;
+        for (LoanInstallment inst : schedule) {
+            if (inst.isPaid()) {
+                continue;
+            }
+            runningTotal += Money.toMinor(inst.getAmount());
+            if (inst.getDueDate().isAfter(maxPayableDate) || runningTotal > amount) {
+                break; // Only full payments allowed
+            }
+            payable.add(inst);
+        }
+        return payable;
+    }
+
+    // Early payment: 0.1% of the installment per day early as a reward (discount).
+    // Late payment: 0.1% per day late as a penalty.
+    // Amounts are in cents; the adjustment is rounded HALF_UP to a whole cent
+    static long paidAmount(long amount, LocalDate dueDate, LocalDate paymentDate) {
+        long daysLate = ChronoUnit.DAYS.between(dueDate, paymentDate);
+        long adjustment = Money.multiplyHalfUp(amount, Math.abs(daysLate), 1000);
+        return daysLate < 0 ? amount - adjustment : amount + adjustment;
+    }
 }
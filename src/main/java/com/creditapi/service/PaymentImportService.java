@@ -0,0 +1,278 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.PayInstallmentRequestDTO;
+import com.creditapi.dto.PayInstallmentResponseDTO;
+import com.creditapi.exception.LoanNotFoundException;
+import com.creditapi.repository.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Applies a bank feed CSV of "loanId,amount,reference" lines and writes one result line per input line.
+ * The input is read line by line and applied in chunks, so memory is bounded by the chunk size whatever the file size.
+ * Each chunk runs in one transaction: its lines are grouped by loan and every payment goes through
+ * LoanService.payInstallments in file order, so the allocation is exactly that of POST /loans/{loanId}/pay.
+ * If a chunk rolls back as a whole, its lines are applied again one transaction each, as separate calls would have been,
+ * so one bad line does not take the rest of the chunk down with it. A failure after the commit (an after-commit
+ * callback throwing) leaves the chunk applied and is only logged.
+ */
+@Service
+public class PaymentImportService {
+    private static final Logger log = LoggerFactory.getLogger(PaymentImportService.class);
+
+    static final String RESULT_HEADER = "line,loanId,reference,status,installmentsPaid,totalAmountSpent,loanFullyPaid,error";
+
+    public enum Status { APPLIED, REJECTED, LOAN_NOT_FOUND, FAILED }
+
+    private final LoanService loanService;
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public PaymentImportService(LoanService loanService, LoanRepository loanRepository, PlatformTransactionManager transactionManager,
+                                @Value("${payments.import.chunk-size:200}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("payments.import.chunk-size must be positive");
+        }
+        this.loanService = loanService;
+        this.loanRepository = loanRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    // An optional "loanId,amount,reference" header line and blank lines are skipped; results are flushed after every chunk
+    public void importPayments(Reader csv, Writer results) throws IOException {
+        BufferedReader reader = csv instanceof BufferedReader buffered ? buffered : new BufferedReader(csv);
+        results.write(RESULT_HEADER);
+        results.write('\n');
+
+        List<PaymentLine> chunk = new ArrayList<>(chunkSize);
+        int lineNumber = 0;
+        int applied = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && isHeader(line))) {
+                continue;
+            }
+            chunk.add(PaymentLine.parse(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                applied += write(apply(chunk), results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applied += write(apply(chunk), results);
+        }
+        log.info("Payment import: {} lines read, {} payments applied", lineNumber, applied);
+    }
+
+    private LineResult[] apply(List<PaymentLine> chunk) {
+        LineResult[] results = new LineResult[chunk.size()];
+        // Payments to the same loan stay in file order. Loans are taken in id order, so concurrent imports lock
+        // the loans they share in the same order and cannot deadlock each other
+        Map<UUID, List<Integer>> byLoan = new TreeMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            PaymentLine line = chunk.get(i);
+            if (line.error() != null) {
+                results[i] = LineResult.of(line, Status.REJECTED, line.error());
+            } else {
+                byLoan.computeIfAbsent(line.loanId(), id -> new ArrayList<>()).add(i);
+            }
+        }
+        if (byLoan.isEmpty()) {
+            return results;
+        }
+
+        AtomicInteger outcome = new AtomicInteger(TransactionSynchronization.STATUS_ROLLED_BACK);
+        try {
+            transactionTemplate.executeWithoutResult(transaction -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        outcome.set(status);
+                    }
+                });
+                // Unknown loans are answered up front: a LoanNotFoundException inside the transaction would roll the whole chunk back
+                Set<UUID> existing = new HashSet<>(loanRepository.findExistingIds(byLoan.keySet()));
+                byLoan.forEach((loanId, indexes) -> {
+                    for (int i : indexes) {
+                        PaymentLine line = chunk.get(i);
+                        results[i] = existing.contains(loanId)
+                            ? LineResult.applied(line, loanService.payInstallments(loanId, line.request()))
+                            : LineResult.of(line, Status.LOAN_NOT_FOUND, "Loan not found");
+                    }
+                });
+            });
+        } catch (RuntimeException e) {
+            if (outcome.get() == TransactionSynchronization.STATUS_COMMITTED) {
+                // Every payment of the chunk is in and its results are filled in; applying the lines again would pay twice
+                log.warn("Payment import: chunk starting at line {} committed but failed afterwards", chunk.get(0).lineNumber(), e);
+                return results;
+            }
+            if (outcome.get() == TransactionSynchronization.STATUS_UNKNOWN) {
+                // The commit may or may not have gone through, so nothing is applied again
+                log.error("Payment import: outcome of chunk starting at line {} is unknown", chunk.get(0).lineNumber(), e);
+                for (List<Integer> indexes : byLoan.values()) {
+                    for (int i : indexes) {
+                        results[i] = LineResult.of(chunk.get(i), Status.FAILED, "Outcome unknown: " + e.getMessage());
+                    }
+                }
+                return results;
+            }
+            log.warn("Payment import: chunk starting at line {} rolled back, applying its lines one by one", chunk.get(0).lineNumber(), e);
+            for (List<Integer> indexes : byLoan.values()) {
+                for (int i : indexes) {
+                    results[i] = applyAlone(chunk.get(i));
+                }
+            }
+        }
+        return results;
+    }
+
+    private LineResult applyAlone(PaymentLine line) {
+        try {
+            return transactionTemplate.execute(status -> LineResult.applied(line, loanService.payInstallments(line.loanId(), line.request())));
+        } catch (LoanNotFoundException e) {
+            return LineResult.of(line, Status.LOAN_NOT_FOUND, e.getMessage());
+        } catch (RuntimeException e) {
+            return LineResult.of(line, Status.FAILED, e.getMessage());
+        }
+    }
+
+    // Returns the number of applied lines
+    private static int write(LineResult[] results, Writer out) throws IOException {
+        int applied = 0;
+        for (LineResult result : results) {
+            PayInstallmentResponseDTO response = result.response();
+            out.write(String.join(",",
+                String.valueOf(result.lineNumber()),
+                csv(result.loanId()),
+                csv(result.reference()),
+                result.status().name(),
+                response != null ? String.valueOf(response.getNumberOfInstallmentsPaid()) : "",
+                response != null ? response.getTotalAmountSpent().toPlainString() : "",
+                response != null ? String.valueOf(response.isLoanFullyPaid()) : "",
+                csv(result.error())));
+            out.write('\n');
+            if (result.status() == Status.APPLIED) {
+                applied++;
+            }
+        }
+        out.flush();
+        return applied;
+    }
+
+    private static boolean isHeader(String line) {
+        List<String> fields = split(line);
+        return !fields.isEmpty() && fields.get(0).trim().equalsIgnoreCase("loanId");
+    }
+
+    // Quoted when it contains a separator, a quote or a line break
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // Comma separated fields; a field may be double quoted, with "" for a quote inside it. Quoted line breaks are not supported
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // A parsed input line; lines that cannot be applied carry the reason in error
+    private record PaymentLine(int lineNumber, String loanIdText, UUID loanId, BigDecimal amount, String reference, String error) {
+        static PaymentLine parse(int lineNumber, String line) {
+            List<String> fields = split(line);
+            String loanIdText = fields.get(0).trim();
+            String reference = fields.size() > 2 ? fields.get(2).trim() : null;
+            if (fields.size() < 2 || fields.size() > 3) {
+                return rejected(lineNumber, loanIdText, reference, "Expected loanId,amount,reference");
+            }
+            UUID loanId;
+            try {
+                loanId = UUID.fromString(loanIdText);
+            } catch (IllegalArgumentException e) {
+                return rejected(lineNumber, loanIdText, reference, "Invalid loanId");
+            }
+            BigDecimal amount;
+            try {
+                amount = new BigDecimal(fields.get(1).trim());
+            } catch (NumberFormatException e) {
+                return rejected(lineNumber, loanIdText, reference, "Invalid amount");
+            }
+            if (amount.signum() <= 0) {
+                return rejected(lineNumber, loanIdText, reference, "Payment amount must be positive");
+            }
+            return new PaymentLine(lineNumber, loanIdText, loanId, amount, reference, null);
+        }
+
+        static PaymentLine rejected(int lineNumber, String loanIdText, String reference, String error) {
+            return new PaymentLine(lineNumber, loanIdText, null, null, reference, error);
+        }
+
+        PayInstallmentRequestDTO request() {
+            PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
+            request.setAmount(amount);
+            return request;
+        }
+    }
+
+    private record LineResult(int lineNumber, String loanId, String reference, Status status, PayInstallmentResponseDTO response, String error) {
+        static LineResult applied(PaymentLine line, PayInstallmentResponseDTO response) {
+            return new LineResult(line.lineNumber(), line.loanIdText(), line.reference(), Status.APPLIED, response, null);
+        }
+
+        static LineResult of(PaymentLine line, Status status, String error) {
+            return new LineResult(line.lineNumber(), line.loanIdText(), line.reference(), status, null, error);
+        }
+    }
+}
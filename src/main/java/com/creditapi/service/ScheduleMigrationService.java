@@ -0,0 +1,92 @@
+package com.creditapi.service;
+
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import com.creditapi.repository.LoanRepository;
+import com.creditapi.util.ScheduleCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Converts loans between the two schedule storage formats: one LoanInstallment row per installment,
+ * or the compact Loan.scheduleData column. Each batch of loans is converted in its own transaction so
+ * a large table can be migrated without holding one long transaction, and a failed run can simply be restarted.
+ */
+@Service
+public class ScheduleMigrationService {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleMigrationService.class);
+
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public ScheduleMigrationService(LoanRepository loanRepository, PlatformTransactionManager transactionManager) {
+        this.loanRepository = loanRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Returns the number of converted loans
+    public int migrateToEmbedded(int batchSize) {
+        return migrate(loanRepository.findIdsWithInstallmentRows(), batchSize, this::toEmbedded);
+    }
+
+    public int migrateToRows(int batchSize) {
+        return migrate(loanRepository.findIdsWithEmbeddedSchedule(), batchSize, this::toRows);
+    }
+
+    private int migrate(List<UUID> loanIds, int batchSize, LoanConverter converter) {
+        int migrated = 0;
+        for (int from = 0; from < loanIds.size(); from += batchSize) {
+            List<UUID> batch = loanIds.subList(from, Math.min(from + batchSize, loanIds.size()));
+            Integer converted = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Loan loan : loanRepository.findAllById(batch)) {
+                    if (converter.convert(loan)) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+            migrated += converted == null ? 0 : converted;
+            log.info("Schedule migration: {}/{} loans processed", Math.min(from + batchSize, loanIds.size()), loanIds.size());
+        }
+        return migrated;
+    }
+
+    // Orphan removal on Loan.installments deletes the rows once the schedule is embedded
+    private boolean toEmbedded(Loan loan) {
+        if (loan.getScheduleData() != null) {
+            return false;
+        }
+        List<LoanInstallment> installments = new ArrayList<>(loan.getInstallments());
+        installments.sort(Comparator.comparing(LoanInstallment::getDueDate));
+        loan.setScheduleData(ScheduleCodec.encode(installments));
+        loan.getInstallments().clear();
+        return true;
+    }
+
+    // Rows get freshly generated ids; the derived ids of the embedded format are not kept
+    private boolean toRows(Loan loan) {
+        if (loan.getScheduleData() == null) {
+            return false;
+        }
+        for (LoanInstallment installment : ScheduleCodec.decode(loan, loan.getScheduleData())) {
+            installment.setId(null);
+            loan.getInstallments().add(installment);
+        }
+        loan.setScheduleData(null);
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface LoanConverter {
+        boolean convert(Loan loan);
+    }
+}
@@ -0,0 +1,71 @@
+package com.creditapi.util;
+
+import com.creditapi.model.InstallmentOption;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Immutable installment plan for one (loanAmount, interestRate, installment option) combination.
+ * Amounts are already rounded to cents with the remainder folded into the last installment.
+ * Due dates are stored as month offsets from the first due date so one schedule can be shared by loans created on different days.
+ */
+public record AmortizationSchedule(BigDecimal totalToBePaid, List<BigDecimal> amounts, List<Integer> dueMonthOffsets) {
+
+    public AmortizationSchedule {
+        amounts = List.copyOf(amounts);
+        dueMonthOffsets = List.copyOf(dueMonthOffsets);
+    }
+
+    public static LocalDate firstDueDate(LocalDate createDate) {
+        return createDate.plusMonths(1).withDayOfMonth(1);
+    }
+
+    public static BigDecimal totalToBePaid(BigDecimal loanAmount, double interestRate) {
+        return loanAmount.multiply(BigDecimal.valueOf(1 + interestRate));
+    }
+
+    // What the installments add up to: the total rounded half up to cents. Every endpoint reports this as paymentAmount;
+    // LoanListingRepositoryImpl computes the same value in SQL
+    public static BigDecimal paymentAmount(BigDecimal loanAmount, double interestRate) {
+        return totalToBePaid(loanAmount, interestRate).setScale(Money.SCALE, RoundingMode.HALF_UP);
+    }
+
+    // Splits the total into equal installments due on the first day of each following month; the last one absorbs the rounding remainder.
+    // The total can carry more than two decimals, so the base installment is divided from it once; the rest is done in cents
+    public static AmortizationSchedule compute(BigDecimal loanAmount, double interestRate, InstallmentOption option) {
+        int numberOfInstallments = option.getValue();
+        BigDecimal totalToBePaid = totalToBePaid(loanAmount, interestRate);
+        long baseAmount = Money.toMinor(totalToBePaid.divide(BigDecimal.valueOf(numberOfInstallments), Money.SCALE, RoundingMode.HALF_UP));
+        // Rounding the remainder onto whole cents is the same as rounding the total, as the other installments are whole cents
+        long lastAmount = Money.toMinor(totalToBePaid, RoundingMode.HALF_UP) - baseAmount * (numberOfInstallments - 1);
+
+        List<BigDecimal> amounts = new ArrayList<>(numberOfInstallments);
+        List<Integer> offsets = new ArrayList<>(numberOfInstallments);
+        BigDecimal base = Money.toDecimal(baseAmount);
+        for (int i = 0; i < numberOfInstallments; i++) {
+            amounts.add(i == numberOfInstallments - 1 ? Money.toDecimal(lastAmount) : base);
+            offsets.add(i);
+        }
+        return new AmortizationSchedule(totalToBePaid, amounts, offsets);
+    }
+
+    public BigDecimal paymentAmount() {
+        return totalToBePaid.setScale(Money.SCALE, RoundingMode.HALF_UP);
+    }
+
+    public int size() {
+        return amounts.size();
+    }
+
+    public BigDecimal amount(int index) {
+        return amounts.get(index);
+    }
+
+    public LocalDate dueDate(LocalDate firstDueDate, int index) {
+        return firstDueDate.plusMonths(dueMonthOffsets.get(index));
+    }
+}
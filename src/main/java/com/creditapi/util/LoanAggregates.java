@@ -0,0 +1,51 @@
+package com.creditapi.util;
+
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * The running totals kept on Loan (paidInstallmentCount, outstandingAmount, nextDueDate), either as stored on the loan
+ * or recomputed from its installments. Writes keep the stored values up to date incrementally; recomputing is only needed
+ * when a loan is created and by LoanAggregateChecker.
+ */
+public record LoanAggregates(int paidInstallmentCount, BigDecimal outstandingAmount, LocalDate nextDueDate) {
+
+    public static LoanAggregates of(List<LoanInstallment> installments) {
+        int paidInstallmentCount = 0;
+        BigDecimal outstandingAmount = BigDecimal.ZERO;
+        LocalDate nextDueDate = null;
+        for (LoanInstallment installment : installments) {
+            if (installment.isPaid()) {
+                paidInstallmentCount++;
+                continue;
+            }
+            outstandingAmount = outstandingAmount.add(installment.getAmount());
+            if (nextDueDate == null || installment.getDueDate().isBefore(nextDueDate)) {
+                nextDueDate = installment.getDueDate();
+            }
+        }
+        return new LoanAggregates(paidInstallmentCount, outstandingAmount, nextDueDate);
+    }
+
+    public static LoanAggregates of(Loan loan) {
+        return new LoanAggregates(loan.getPaidInstallmentCount(), loan.getOutstandingAmount(), loan.getNextDueDate());
+    }
+
+    public void applyTo(Loan loan) {
+        loan.setPaidInstallmentCount(paidInstallmentCount);
+        loan.setOutstandingAmount(outstandingAmount);
+        loan.setNextDueDate(nextDueDate);
+    }
+
+    // Amounts are compared by value, the database may hand them back with a different scale
+    public boolean matches(LoanAggregates other) {
+        return paidInstallmentCount == other.paidInstallmentCount
+            && outstandingAmount.compareTo(other.outstandingAmount) == 0
+            && Objects.equals(nextDueDate, other.nextDueDate);
+    }
+}
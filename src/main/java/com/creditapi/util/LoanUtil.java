@@ -9,11 +9,11 @@ public class LoanUtil {
 
     public static BigDecimal calculateTotalToBePaid(BigDecimal amount, double interestRate) {
         if (amount == null) return BigDecimal.ZERO;
-        return amount.multiply(BigDecimal.valueOf(1 + interestRate));
+        return AmortizationSchedule.totalToBePaid(amount, interestRate);
     }
 
     public static LocalDate calculateFirstPaymentDate(LocalDateTime createDate) {
         if (createDate == null) return null;
-        return createDate.toLocalDate().plusMonths(1).withDayOfMonth(1);
+        return AmortizationSchedule.firstDueDate(createDate.toLocalDate());
     }
 }
@@ -0,0 +1,41 @@
+package com.creditapi.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/*
+ * Fixed-point money arithmetic on whole minor units (cents) held in a long.
+ * Values are plain longs rather than objects so loops over installments allocate nothing per amount;
+ * BigDecimal only appears where amounts enter or leave, i.e. at the entity and DTO boundary.
+ * Rounding is always HALF_UP as BigDecimal does it: ties go away from zero.
+ * Overflow throws ArithmeticException instead of wrapping.
+ */
+public final class Money {
+    public static final int SCALE = 2;
+
+    private Money() {}
+
+    // Exact conversion; fractions of a cent are rejected with ArithmeticException
+    public static long toMinor(BigDecimal amount) {
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    public static long toMinor(BigDecimal amount, RoundingMode rounding) {
+        return amount.setScale(SCALE, rounding).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    // minor * numerator / denominator rounded HALF_UP to a whole minor unit; denominator must be positive
+    public static long multiplyHalfUp(long minor, long numerator, long denominator) {
+        long product = Math.multiplyExact(minor, numerator);
+        long quotient = product / denominator;
+        long remainder = Math.abs(product % denominator);
+        if (remainder * 2 >= denominator) {
+            quotient += Long.signum(product);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,113 @@
+package com.creditapi.util;
+
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Fixed-width binary encoding of a loan's installment schedule, stored in Loan.scheduleData instead of LoanInstallment rows.
+ *
+ * Layout (big-endian):
+ *   byte  format version
+ *   byte  installment count
+ *   int   paid bitmap, bit i set when installment i is paid
+ *   per installment, ordered by due date:
+ *     long  amount in minor units (cents)
+ *     long  paid amount in minor units
+ *     int   due date as epoch day
+ *     int   payment date as epoch day, NO_DATE when unpaid
+ *
+ * Decoded installments are detached LoanInstallment instances; their ids are derived from the loan id and the
+ * installment index so they stay stable across reads and can be used in payment responses.
+ */
+public class ScheduleCodec {
+    public static final int MAX_INSTALLMENTS = Integer.SIZE;
+    public static final int HEADER_LENGTH = 2 + Integer.BYTES;
+    public static final int ENTRY_LENGTH = 2 * Long.BYTES + 2 * Integer.BYTES;
+    public static final int MAX_ENCODED_LENGTH = HEADER_LENGTH + MAX_INSTALLMENTS * ENTRY_LENGTH;
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int MINOR_UNIT_SCALE = 2;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private ScheduleCodec() {}
+
+    // Installments must already be ordered by due date; their position becomes the index used for ids
+    public static byte[] encode(List<LoanInstallment> installments) {
+        int count = installments.size();
+        if (count > MAX_INSTALLMENTS) {
+            throw new IllegalArgumentException("Embedded schedule supports at most " + MAX_INSTALLMENTS + " installments");
+        }
+
+        int paidBitmap = 0;
+        for (int i = 0; i < count; i++) {
+            if (installments.get(i).isPaid()) {
+                paidBitmap |= 1 << i;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + count * ENTRY_LENGTH);
+        buffer.put(FORMAT_VERSION);
+        buffer.put((byte) count);
+        buffer.putInt(paidBitmap);
+        for (LoanInstallment installment : installments) {
+            buffer.putLong(toMinorUnits(installment.getAmount()));
+            buffer.putLong(toMinorUnits(installment.getPaidAmount()));
+            buffer.putInt(toEpochDay(installment.getDueDate()));
+            buffer.putInt(toEpochDay(installment.getPaymentDate()));
+        }
+        return buffer.array();
+    }
+
+    public static List<LoanInstallment> decode(Loan loan, byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported schedule format version: " + version);
+        }
+        int count = buffer.get();
+        int paidBitmap = buffer.getInt();
+
+        List<LoanInstallment> installments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setId(installmentId(loan.getId(), i));
+            installment.setLoan(loan);
+            installment.setAmount(BigDecimal.valueOf(buffer.getLong(), MINOR_UNIT_SCALE));
+            installment.setPaidAmount(BigDecimal.valueOf(buffer.getLong(), MINOR_UNIT_SCALE));
+            installment.setDueDate(fromEpochDay(buffer.getInt()));
+            installment.setPaymentDate(fromEpochDay(buffer.getInt()));
+            installment.setPaid((paidBitmap & (1 << i)) != 0);
+            installments.add(installment);
+        }
+        return installments;
+    }
+
+    public static UUID installmentId(UUID loanId, int index) {
+        ByteBuffer name = ByteBuffer.allocate(2 * Long.BYTES + Integer.BYTES);
+        name.putLong(loanId.getMostSignificantBits());
+        name.putLong(loanId.getLeastSignificantBits());
+        name.putInt(index);
+        return UUID.nameUUIDFromBytes(name.array());
+    }
+
+    private static long toMinorUnits(BigDecimal value) {
+        if (value == null) return 0L;
+        // Throws if the value carries sub-cent precision instead of silently rounding it away
+        return value.movePointRight(MINOR_UNIT_SCALE).longValueExact();
+    }
+
+    private static int toEpochDay(LocalDate date) {
+        return date == null ? NO_DATE : Math.toIntExact(date.toEpochDay());
+    }
+
+    private static LocalDate fromEpochDay(int epochDay) {
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
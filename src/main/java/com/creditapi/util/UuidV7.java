@@ -0,0 +1,50 @@
+package com.creditapi.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Time-ordered UUID version 7 (RFC 9562): 48-bit Unix millisecond timestamp, 12-bit counter, 62 random bits.
+ * The counter keeps ids generated within the same millisecond strictly increasing in this JVM; it starts at a
+ * random value below 2048 each millisecond and, if it overflows, borrows from the next millisecond.
+ * The random part comes from SecureRandom so ids stay as hard to guess as the version 4 ids they replace.
+ */
+public class UuidV7 {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_SEED_MASK = (1L << (COUNTER_BITS - 1)) - 1;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    // Last issued timestamp and counter as (millis << COUNTER_BITS) | counter
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private UuidV7() {}
+
+    public static UUID randomUuid() {
+        long state = nextState(System.currentTimeMillis());
+        long millis = state >>> COUNTER_BITS;
+        long counter = state & ((1L << COUNTER_BITS) - 1);
+        long mostSigBits = (millis << 16) | VERSION | counter;
+        long leastSigBits = VARIANT | (RANDOM.nextLong() & RANDOM_MASK);
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    public static long timestampMillis(UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    private static long nextState(long now) {
+        while (true) {
+            long previous = LAST.get();
+            long candidate = (now << COUNTER_BITS) | (RANDOM.nextInt() & COUNTER_SEED_MASK);
+            // Same millisecond or clock moved backwards: keep counting up from the last issued value
+            long next = candidate > previous ? candidate : previous + 1;
+            if (LAST.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+}
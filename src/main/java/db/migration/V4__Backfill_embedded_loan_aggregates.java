@@ -0,0 +1,77 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/*
+ * Fills in the loan aggregates added by V3 for loans with an embedded schedule.
+ * SQL cannot look into loan.schedule_data, so the schedules are decoded here. The decoding and the arithmetic are
+ * copied from ScheduleCodec (format version 1) and LoanAggregates as they were at this version, so later changes to
+ * the application classes cannot change what this migration does.
+ */
+public class V4__Backfill_embedded_loan_aggregates extends BaseJavaMigration {
+    private static final int BATCH_SIZE = 500;
+    private static final byte FORMAT_VERSION = 1;
+    private static final int MINOR_UNIT_SCALE = 2;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (Statement select = connection.createStatement();
+             ResultSet loans = select.executeQuery("select id, schedule_data from loan where schedule_data is not null");
+             PreparedStatement update = connection.prepareStatement(
+                 "update loan set paid_installment_count = ?, outstanding_amount = ?, next_due_date = ? where id = ?")) {
+            int pending = 0;
+            while (loans.next()) {
+                ByteBuffer schedule = ByteBuffer.wrap(loans.getBytes(2));
+                byte version = schedule.get();
+                if (version != FORMAT_VERSION) {
+                    throw new IllegalStateException("Unsupported schedule format version: " + version);
+                }
+                int count = schedule.get();
+                int paidBitmap = schedule.getInt();
+
+                // Per installment: amount and paid amount in cents, due date and payment date as epoch days
+                int paidInstallmentCount = 0;
+                long outstandingCents = 0;
+                LocalDate nextDueDate = null;
+                for (int i = 0; i < count; i++) {
+                    long amountCents = schedule.getLong();
+                    schedule.getLong();
+                    LocalDate dueDate = LocalDate.ofEpochDay(schedule.getInt());
+                    schedule.getInt();
+                    if ((paidBitmap & (1 << i)) != 0) {
+                        paidInstallmentCount++;
+                        continue;
+                    }
+                    outstandingCents += amountCents;
+                    if (nextDueDate == null || dueDate.isBefore(nextDueDate)) {
+                        nextDueDate = dueDate;
+                    }
+                }
+
+                update.setInt(1, paidInstallmentCount);
+                update.setBigDecimal(2, BigDecimal.valueOf(outstandingCents, MINOR_UNIT_SCALE));
+                update.setDate(3, nextDueDate != null ? Date.valueOf(nextDueDate) : null);
+                update.setObject(4, loans.getObject(1));
+                update.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    update.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                update.executeBatch();
+            }
+        }
+    }
+}
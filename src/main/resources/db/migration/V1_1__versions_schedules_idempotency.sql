@@ -0,0 +1,21 @@
+-- Added to the entities before the schema moved to Flyway, so databases adopted at version 1 do not have them yet
+
+-- Optimistic locks; rows that predate them start at version 0
+alter table customer add column version bigint default 0;
+alter table loan add column version bigint default 0;
+
+-- Compact embedded schedule (ScheduleCodec), null for loans with installment rows
+alter table loan add column schedule_data varbinary(774);
+
+create table idempotency_record (
+    status integer not null,
+    expires_at timestamp(6) with time zone not null,
+    fingerprint varchar(64) not null,
+    idempotency_key varchar(320) not null,
+    content_type varchar(255),
+    body blob,
+    primary key (idempotency_key)
+);
+
+-- Keyset pages of a customer's loans in id order
+create index idx_loan_customer_id on loan (customer_id, id);
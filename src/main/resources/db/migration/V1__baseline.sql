@@ -0,0 +1,42 @@
+-- Schema as previously created by spring.jpa.hibernate.ddl-auto=update from the original entities.
+-- Existing databases are adopted at this version (spring.flyway.baseline-version=1), so it must not change.
+
+create table app_user (
+    customer_id varchar(255),
+    password varchar(255),
+    role varchar(255),
+    username varchar(255) not null,
+    primary key (username)
+);
+
+create table customer (
+    credit_limit numeric(38,2),
+    used_credit_limit numeric(38,2),
+    id uuid not null,
+    name varchar(255),
+    surname varchar(255),
+    primary key (id)
+);
+
+create table loan (
+    interest_rate float(53) not null,
+    is_paid boolean not null,
+    loan_amount numeric(38,2) not null,
+    create_date timestamp(6),
+    customer_id uuid,
+    id uuid not null,
+    number_of_installments enum ('NINE','SIX','TWELVE','TWENTY_FOUR') not null,
+    primary key (id)
+);
+
+create table loan_installment (
+    amount numeric(38,2),
+    due_date date,
+    is_paid boolean not null,
+    paid_amount numeric(38,2),
+    payment_date date,
+    id uuid not null,
+    loan_id uuid not null,
+    primary key (id),
+    constraint fk_loan_installment_loan foreign key (loan_id) references loan
+);
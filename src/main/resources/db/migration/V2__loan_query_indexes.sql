@@ -0,0 +1,5 @@
+-- Filtered loan listing: GET /loans?customerId=..&isPaid=..&numberOfInstallments=..
+create index idx_loan_customer_paid_installments on loan (customer_id, is_paid, number_of_installments);
+
+-- Unpaid installments of a loan in due date order, as read by a payment
+create index idx_installment_loan_paid_due on loan_installment (loan_id, is_paid, due_date);
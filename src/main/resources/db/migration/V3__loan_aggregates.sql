@@ -0,0 +1,11 @@
+-- Running totals of a loan's schedule, maintained by every write that touches its installments
+alter table loan add column paid_installment_count integer default 0 not null;
+alter table loan add column outstanding_amount numeric(38,2) default 0 not null;
+alter table loan add column next_due_date date;
+
+-- Loans with installment rows; embedded schedules are filled in by V4
+update loan l set
+    paid_installment_count = (select count(*) from loan_installment i where i.loan_id = l.id and i.is_paid = true),
+    outstanding_amount = coalesce((select sum(i.amount) from loan_installment i where i.loan_id = l.id and i.is_paid = false), 0),
+    next_due_date = (select min(i.due_date) from loan_installment i where i.loan_id = l.id and i.is_paid = false)
+where l.schedule_data is null;
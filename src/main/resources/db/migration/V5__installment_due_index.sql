@@ -0,0 +1,2 @@
+-- Unpaid installments across all loans in (due_date, id) order, as walked by GET /admin/due-installments
+create index idx_installment_paid_due_id on loan_installment (is_paid, due_date, id);
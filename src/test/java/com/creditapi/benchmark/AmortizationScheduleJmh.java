@@ -0,0 +1,107 @@
+package com.creditapi.benchmark;
+
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.service.AmortizationScheduleEngine;
+import com.creditapi.util.AmortizationSchedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Compares the per-loan schedule loop that used to live in LoanServiceImpl.createLoan with the memoized engine.
+ * "distinctProducts" controls how many amount/rate/term combinations the request mix draws from.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.creditapi.benchmark.AmortizationScheduleJmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmortizationScheduleJmh {
+    private static final InstallmentOption[] OPTIONS = InstallmentOption.values();
+
+    @Param({"16", "1024"})
+    public int distinctProducts;
+
+    private BigDecimal[] amounts;
+    private double[] rates;
+    private InstallmentOption[] options;
+    private AmortizationScheduleEngine engine;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new BigDecimal[distinctProducts];
+        rates = new double[distinctProducts];
+        options = new InstallmentOption[distinctProducts];
+        for (int i = 0; i < distinctProducts; i++) {
+            amounts[i] = BigDecimal.valueOf(1_000 + random.nextInt(50_000));
+            rates[i] = 0.1 + random.nextInt(5) * 0.1;
+            options[i] = OPTIONS[random.nextInt(OPTIONS.length)];
+        }
+        engine = new AmortizationScheduleEngine(4096);
+    }
+
+    @Benchmark
+    public void inlineLoop(Blackhole blackhole) {
+        int i = next();
+        int numberOfInstallments = options[i].getValue();
+        BigDecimal totalToBePaid = amounts[i].multiply(BigDecimal.valueOf(1 + rates[i]));
+        BigDecimal baseAmount = totalToBePaid.divide(BigDecimal.valueOf(numberOfInstallments), 2, RoundingMode.HALF_UP);
+        BigDecimal totalAssigned = baseAmount.multiply(BigDecimal.valueOf(numberOfInstallments));
+        BigDecimal remainder = totalToBePaid.subtract(totalAssigned);
+        LocalDate dueDate = LocalDate.now().plusMonths(1).withDayOfMonth(1);
+        for (int n = 0; n < numberOfInstallments; n++) {
+            BigDecimal amount = baseAmount;
+            if (n == numberOfInstallments - 1) {
+                amount = amount.add(remainder).setScale(2, RoundingMode.HALF_UP);
+            }
+            blackhole.consume(amount);
+            blackhole.consume(dueDate.plusMonths(n));
+        }
+    }
+
+    @Benchmark
+    public void memoizedEngine(Blackhole blackhole) {
+        int i = next();
+        var schedule = engine.scheduleFor(amounts[i], rates[i], options[i]);
+        LocalDate firstDueDate = AmortizationSchedule.firstDueDate(LocalDate.now());
+        for (int n = 0; n < schedule.size(); n++) {
+            blackhole.consume(schedule.amount(n));
+            blackhole.consume(schedule.dueDate(firstDueDate, n));
+        }
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = (cursor + 1) % distinctProducts;
+        return i;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(AmortizationScheduleJmh.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,200 @@
+package com.creditapi.benchmark;
+
+import com.creditapi.dto.LoanCreateRequestDTO;
+import com.creditapi.dto.LoanCreateResponseDTO;
+import com.creditapi.dto.PayInstallmentRequestDTO;
+import com.creditapi.dto.PayInstallmentResponseDTO;
+import com.creditapi.model.Customer;
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.repository.CustomerRepository;
+import com.creditapi.repository.LoanRepository;
+import com.creditapi.service.CreditLedger;
+import com.creditapi.service.CustomerCommandExecutor;
+import com.creditapi.service.LoanService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Many concurrent callers, each on a virtual thread, creating and paying loans across a large customer base.
+ * There are bench.callersPerCustomer callers for every customer and they move through the customers in step, so at
+ * any moment every customer has that many commands in flight at once. The same load runs straight against
+ * LoanService and through the customer mailboxes of a CustomerCommandExecutor, each run on fresh customers; the
+ * order of the two paths alternates between rounds so neither always gets the smaller database. Reports throughput,
+ * the optimistic conflicts that reached the caller and the @Retryable retries of every run, and verifies the used
+ * credit limit of every customer afterwards.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=CustomerActorBenchmark -Dbench.customers=10000 -Dbench.callersPerCustomer=2 -Dbench.commandsPerCaller=2 -Dbench.rounds=2
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class CustomerActorBenchmark {
+    private static final BigDecimal LOAN_AMOUNT = new BigDecimal("120");
+
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private CreditLedger creditLedger;
+    @Autowired
+    private RetryCounter retryCounter;
+
+    @Test
+    void directVersusMailboxes() throws Exception {
+        int customers = Integer.getInteger("bench.customers", 10_000);
+        int callersPerCustomer = Integer.getInteger("bench.callersPerCustomer", 2);
+        int commandsPerCaller = Integer.getInteger("bench.commandsPerCaller", 2);
+        int rounds = Integer.getInteger("bench.rounds", 2);
+
+        CustomerCommandExecutor mailboxes = new CustomerCommandExecutor(loanService, loanRepository, true, 1_000_000);
+        try {
+            Commands direct = new Commands(loanService::createLoan, loanService::payInstallments);
+            Commands queued = new Commands(mailboxes::createLoan, mailboxes::payInstallments);
+
+            // Warm up both paths so the JIT and the query plan caches are settled
+            run("warmup-direct", direct, customers / 10, callersPerCustomer, 2);
+            run("warmup-mailboxes", queued, customers / 10, callersPerCustomer, 2);
+
+            for (int round = 1; round <= rounds; round++) {
+                if (round % 2 == 1) {
+                    run("direct-" + round, direct, customers, callersPerCustomer, commandsPerCaller);
+                    run("mailboxes-" + round, queued, customers, callersPerCustomer, commandsPerCaller);
+                } else {
+                    run("mailboxes-" + round, queued, customers, callersPerCustomer, commandsPerCaller);
+                    run("direct-" + round, direct, customers, callersPerCustomer, commandsPerCaller);
+                }
+            }
+        } finally {
+            mailboxes.shutdown();
+        }
+    }
+
+    private void run(String path, Commands commands, int customers, int callersPerCustomer, int commandsPerCaller) throws Exception {
+        int callers = customers * callersPerCustomer;
+        List<Customer> seeded = new ArrayList<>(customers);
+        for (int c = 0; c < customers; c++) {
+            Customer customer = new Customer();
+            customer.setId(UUID.randomUUID());
+            customer.setName("Busy");
+            customer.setSurname("Customer " + c);
+            customer.setCreditLimit(LOAN_AMOUNT.multiply(BigDecimal.valueOf((long) callersPerCustomer * commandsPerCaller)));
+            customer.setUsedCreditLimit(BigDecimal.ZERO);
+            seeded.add(customer);
+        }
+        List<UUID> customerIds = customerRepository.saveAll(seeded).stream().map(Customer::getId).toList();
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger[] createdPerCustomer = new AtomicInteger[customers];
+        for (int c = 0; c < customers; c++) {
+            createdPerCustomer[c] = new AtomicInteger();
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        retryCounter.reset();
+        long startedAt;
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < callers; t++) {
+                int caller = t;
+                pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < commandsPerCaller; i++) {
+                        // Callers c, c + customers, c + 2 * customers, ... share a customer at every step
+                        int customer = (caller + i) % customers;
+                        LoanCreateRequestDTO request = new LoanCreateRequestDTO();
+                        request.setCustomerId(customerIds.get(customer));
+                        request.setLoanAmount(LOAN_AMOUNT);
+                        request.setInterestRate(0.1);
+                        request.setNumberOfInstallments(InstallmentOption.SIX.getValue());
+                        try {
+                            LoanCreateResponseDTO loan = commands.createLoan().apply(request);
+                            createdPerCustomer[customer].incrementAndGet();
+                            completed.incrementAndGet();
+
+                            PayInstallmentRequestDTO payment = new PayInstallmentRequestDTO();
+                            payment.setAmount(loan.getPaymentAmount());
+                            commands.payInstallments().apply(loan.getId(), payment);
+                            completed.incrementAndGet();
+                        } catch (OptimisticLockingFailureException e) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            startedAt = System.nanoTime();
+            start.countDown();
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(30, TimeUnit.MINUTES));
+        }
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        creditLedger.flush();
+
+        System.out.printf("path=%s ledger=%s callers=%d customers=%d commands=%d conflicts=%d retries=%d time=%.2fs throughput=%.1f ops/s%n",
+            path, creditLedger.isEnabled(), callers, customers, completed.get(), conflicts.get(), retryCounter.retries(),
+            seconds, completed.get() / seconds);
+
+        for (int c = 0; c < customers; c++) {
+            Customer reloaded = customerRepository.findById(customerIds.get(c)).orElseThrow();
+            BigDecimal expectedUsed = LOAN_AMOUNT.multiply(BigDecimal.valueOf(createdPerCustomer[c].get()));
+            assertEquals(0, expectedUsed.compareTo(reloaded.getUsedCreditLimit()), path + " customer " + c);
+        }
+    }
+
+    // Picked up by every @Retryable advice as a global listener; counts the attempts that were repeated
+    static class RetryCounter implements RetryListener {
+        private final AtomicLong retries = new AtomicLong();
+
+        @Override
+        public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+            // The last failed attempt of an exhausted retry is not followed by another one
+            retries.addAndGet(context.getRetryCount() - (throwable != null ? 1 : 0));
+        }
+
+        void reset() {
+            retries.set(0);
+        }
+
+        long retries() {
+            return retries.get();
+        }
+    }
+
+    @TestConfiguration
+    static class RetryCounterConfig {
+        @Bean
+        RetryCounter retryCounter() {
+            return new RetryCounter();
+        }
+    }
+
+    private record Commands(Function<LoanCreateRequestDTO, LoanCreateResponseDTO> createLoan,
+                            BiFunction<UUID, PayInstallmentRequestDTO, PayInstallmentResponseDTO> payInstallments) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.creditapi.benchmark;
+
+import com.creditapi.dto.LoanCreateRequestDTO;
+import com.creditapi.exception.InsufficientCreditLimitException;
+import com.creditapi.model.Customer;
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.repository.CustomerRepository;
+import com.creditapi.service.CreditLedger;
+import com.creditapi.service.LoanService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Hammers a single customer with concurrent loan originations.
+ * Reports throughput and verifies that the final used credit limit equals the sum of the
+ * loans that were actually created, i.e. that no reservation was lost.
+ *
+ * Run with: mvn test -Pbenchmark -Dbench.threads=32 -Dbench.loansPerThread=50
+ * Add -Dcredit.ledger.enabled=true to measure the in-memory ledger instead of optimistic retries.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class HotCustomerReservationBenchmark {
+    private static final BigDecimal LOAN_AMOUNT = new BigDecimal("100");
+
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private CreditLedger creditLedger;
+
+    @Test
+    void hotCustomerReservations() throws Exception {
+        int threads = Integer.getInteger("bench.threads", 16);
+        int loansPerThread = Integer.getInteger("bench.loansPerThread", 25);
+        int totalLoans = threads * loansPerThread;
+
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setName("Hot");
+        customer.setSurname("Customer");
+        // Room for three quarters of the attempts so the limit check is exercised as well
+        customer.setCreditLimit(LOAN_AMOUNT.multiply(BigDecimal.valueOf(totalLoans * 3L / 4)));
+        customer.setUsedCreditLimit(BigDecimal.ZERO);
+        customerRepository.save(customer);
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < loansPerThread; i++) {
+                    LoanCreateRequestDTO request = new LoanCreateRequestDTO();
+                    request.setCustomerId(customer.getId());
+                    request.setLoanAmount(LOAN_AMOUNT);
+                    request.setInterestRate(0.2);
+                    request.setNumberOfInstallments(InstallmentOption.TWELVE.getValue());
+                    try {
+                        loanService.createLoan(request);
+                        created.incrementAndGet();
+                    } catch (InsufficientCreditLimitException e) {
+                        rejected.incrementAndGet();
+                    } catch (OptimisticLockingFailureException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+        creditLedger.flush();
+
+        Customer reloaded = customerRepository.findById(customer.getId()).orElseThrow();
+        BigDecimal expectedUsed = LOAN_AMOUNT.multiply(BigDecimal.valueOf(created.get()));
+        System.out.printf("ledger=%s threads=%d attempts=%d created=%d rejected=%d conflicts=%d time=%.2fs throughput=%.1f ops/s%n",
+            creditLedger.isEnabled(), threads, totalLoans, created.get(), rejected.get(), conflicts.get(), seconds, totalLoans / seconds);
+        System.out.printf("creditLimit=%s usedCreditLimit=%s expectedUsed=%s%n",
+            reloaded.getCreditLimit(), reloaded.getUsedCreditLimit(), expectedUsed);
+
+        assertEquals(totalLoans, created.get() + rejected.get() + conflicts.get());
+        assertEquals(0, expectedUsed.compareTo(reloaded.getUsedCreditLimit()));
+        assertTrue(reloaded.getUsedCreditLimit().compareTo(reloaded.getCreditLimit()) <= 0);
+    }
+}
@@ -0,0 +1,127 @@
+package com.creditapi.benchmark;
+
+import com.creditapi.dto.LoanResponseDTO;
+import com.creditapi.mapper.LoanMapper;
+import com.creditapi.model.Customer;
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.model.Loan;
+import com.creditapi.repository.CustomerRepository;
+import com.creditapi.repository.LoanRepository;
+import com.creditapi.util.AmortizationSchedule;
+import com.creditapi.util.LoanUtil;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Lists every loan of a customer with many loans, once by loading Loan entities with a plain JPQL query and mapping
+ * them (the previous listing path) and once through the DTO projection query that GET /loans serves.
+ * Reports the average time per listing for both.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=LoanListingProjectionBenchmark -Dbench.loans=10000 -Dbench.iterations=20
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class LoanListingProjectionBenchmark {
+    private static final int SEED_BATCH = 1_000;
+
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private LoanMapper loanMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Test
+    void compareEntityAndProjectionListing() {
+        int loans = Integer.getInteger("bench.loans", 10_000);
+        int iterations = Integer.getInteger("bench.iterations", 20);
+        UUID customerId = seed(loans);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Supplier<List<LoanResponseDTO>> entityListing = () -> readOnly.execute(status ->
+            entityManager.createQuery("select l from Loan l where l.customerId = :customerId order by l.id", Loan.class)
+                .setParameter("customerId", customerId)
+                .getResultStream()
+                .map(loan -> {
+                    LoanResponseDTO dto = loanMapper.toResponseDto(loan);
+                    dto.setPaymentAmount(AmortizationSchedule.paymentAmount(loan.getLoanAmount(), loan.getInterestRate()));
+                    dto.setFirstPaymentDate(LoanUtil.calculateFirstPaymentDate(loan.getCreateDate()));
+                    return dto;
+                })
+                .toList());
+        Supplier<List<LoanResponseDTO>> projectionListing = () -> readOnly.execute(status ->
+            loanRepository.findResponsePageByCustomerId(customerId, null, null, null, Limit.unlimited()));
+
+        // Warm up both paths so the JIT and the query plan caches are settled
+        for (int i = 0; i < 3; i++) {
+            assertEquals(loans, entityListing.get().size());
+            assertEquals(loans, projectionListing.get().size());
+        }
+
+        long entityMs = time(entityListing, iterations);
+        long projectionMs = time(projectionListing, iterations);
+
+        System.out.printf("Loan listing benchmark: loans=%d iterations=%d entity=%.1f ms/list projection=%.1f ms/list speedup=%.2fx%n",
+            loans, iterations, (double) entityMs / iterations, (double) projectionMs / iterations, (double) entityMs / projectionMs);
+    }
+
+    private UUID seed(int loans) {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setName("Busy");
+        customer.setSurname("Customer");
+        customer.setCreditLimit(new BigDecimal("1000").multiply(BigDecimal.valueOf(loans)));
+        customer.setUsedCreditLimit(BigDecimal.ZERO);
+        customerRepository.save(customer);
+
+        InstallmentOption[] options = InstallmentOption.values();
+        List<Loan> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < loans; i++) {
+            Loan loan = new Loan();
+            loan.setCustomerId(customer.getId());
+            loan.setLoanAmount(new BigDecimal("1000"));
+            loan.setInterestRate(0.2);
+            loan.setNumberOfInstallments(options[i % options.length]);
+            loan.setCreateDate(LocalDateTime.now().minusDays(i % 365));
+            loan.setPaid(i % 4 == 0);
+            batch.add(loan);
+            if (batch.size() == SEED_BATCH) {
+                loanRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        loanRepository.saveAll(batch);
+        return customer.getId();
+    }
+
+    private long time(Supplier<List<LoanResponseDTO>> listing, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            listing.get();
+        }
+        return Math.max((System.nanoTime() - start) / 1_000_000, 1);
+    }
+}
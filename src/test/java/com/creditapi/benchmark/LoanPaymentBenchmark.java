@@ -0,0 +1,162 @@
+package com.creditapi.benchmark;
+
+import com.creditapi.dto.PayInstallmentRequestDTO;
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import com.creditapi.repository.InstallmentRow;
+import com.creditapi.repository.LoanInstallmentRepository;
+import com.creditapi.repository.LoanRepository;
+import com.creditapi.service.LoanService;
+import com.creditapi.util.LoanAggregates;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pays 24-installment loans in several payments, once through the previous payment path (load every installment,
+ * filter and sort in Java, save one installment at a time) and once through LoanService.payInstallments, which
+ * locks the loan, selects the payable installments in the database and pays them with one bulk update.
+ * Reports the average time per payment for both.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=LoanPaymentBenchmark -Dbench.loans=500 -Dbench.installmentsPerPayment=4
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Tag("benchmark")
+class LoanPaymentBenchmark {
+    private static final int INSTALLMENTS = InstallmentOption.TWENTY_FOUR.getValue();
+    private static final BigDecimal INSTALLMENT_AMOUNT = new BigDecimal("50.00");
+
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void compareRowByRowAndSetBasedPayment() {
+        int loans = Integer.getInteger("bench.loans", 500);
+        int installmentsPerPayment = Integer.getInteger("bench.installmentsPerPayment", 4);
+        BigDecimal amount = INSTALLMENT_AMOUNT.multiply(BigDecimal.valueOf(installmentsPerPayment));
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // Warm up both paths on loans of their own so the JIT and the query plan caches are settled
+        List<UUID> warmUp = seed(20);
+        run(warmUp.subList(0, 10), installmentsPerPayment, loanId -> transaction.executeWithoutResult(status -> payRowByRow(loanId, amount)));
+        run(warmUp.subList(10, 20), installmentsPerPayment, loanId -> loanService.payInstallments(loanId, request(amount)));
+
+        List<UUID> rowByRowLoans = seed(loans);
+        List<UUID> setBasedLoans = seed(loans);
+        long rowByRowMs = run(rowByRowLoans, installmentsPerPayment, loanId -> transaction.executeWithoutResult(status -> payRowByRow(loanId, amount)));
+        long setBasedMs = run(setBasedLoans, installmentsPerPayment, loanId -> loanService.payInstallments(loanId, request(amount)));
+
+        // Both paths end with every loan fully paid
+        for (UUID loanId : List.of(rowByRowLoans.get(0), setBasedLoans.get(0))) {
+            assertTrue(loanRepository.findInstallmentRowsByLoanId(loanId).stream().allMatch(InstallmentRow::isPaid));
+            assertEquals(INSTALLMENTS, loanRepository.findById(loanId).orElseThrow().getPaidInstallmentCount());
+        }
+
+        int payments = loans * (INSTALLMENTS / installmentsPerPayment);
+        System.out.printf("Loan payment benchmark: loans=%d installments=%d payments=%d rowByRow=%.3f ms/payment setBased=%.3f ms/payment speedup=%.2fx%n",
+            loans, INSTALLMENTS, payments, (double) rowByRowMs / payments, (double) setBasedMs / payments, (double) rowByRowMs / setBasedMs);
+    }
+
+    // The payment path before the set-based rewrite, kept here as the baseline
+    private void payRowByRow(UUID loanId, BigDecimal amount) {
+        Loan loan = loanRepository.findById(loanId).orElseThrow();
+        LocalDate now = LocalDate.now();
+        LocalDate maxPayableDate = now.plusMonths(3).withDayOfMonth(1).minusDays(1).plusMonths(1);
+        List<LoanInstallment> installments = loan.getInstallments();
+        List<LoanInstallment> eligible = installments.stream()
+            .filter(i -> !i.isPaid())
+            .filter(i -> !i.getDueDate().isAfter(maxPayableDate))
+            .sorted(Comparator.comparing(LoanInstallment::getDueDate))
+            .toList();
+
+        BigDecimal remaining = amount;
+        BigDecimal paidOff = BigDecimal.ZERO;
+        int paidCount = 0;
+        for (LoanInstallment inst : eligible) {
+            if (remaining.compareTo(inst.getAmount()) < 0) {
+                break;
+            }
+            long daysLate = ChronoUnit.DAYS.between(inst.getDueDate(), now);
+            BigDecimal adjustment = inst.getAmount().multiply(new BigDecimal("0.001")).multiply(BigDecimal.valueOf(Math.abs(daysLate))).setScale(2, RoundingMode.HALF_UP);
+            inst.setPaidAmount(daysLate < 0 ? inst.getAmount().subtract(adjustment) : inst.getAmount().add(adjustment));
+            inst.setPaid(true);
+            inst.setPaymentDate(now);
+            loanInstallmentRepository.save(inst);
+            remaining = remaining.subtract(inst.getAmount());
+            paidOff = paidOff.add(inst.getAmount());
+            paidCount++;
+        }
+
+        List<LoanInstallment> unpaid = installments.stream().filter(i -> !i.isPaid()).sorted(Comparator.comparing(LoanInstallment::getDueDate)).toList();
+        loan.setPaidInstallmentCount(loan.getPaidInstallmentCount() + paidCount);
+        loan.setOutstandingAmount(loan.getOutstandingAmount().subtract(paidOff));
+        loan.setNextDueDate(unpaid.isEmpty() ? null : unpaid.get(0).getDueDate());
+        loan.setPaid(unpaid.isEmpty());
+        loanRepository.save(loan);
+    }
+
+    // Every loan is paid off in INSTALLMENTS / installmentsPerPayment payments
+    private long run(List<UUID> loanIds, int installmentsPerPayment, Consumer<UUID> pay) {
+        long start = System.nanoTime();
+        for (int p = 0; p < INSTALLMENTS / installmentsPerPayment; p++) {
+            for (UUID loanId : loanIds) {
+                pay.accept(loanId);
+            }
+        }
+        return Math.max((System.nanoTime() - start) / 1_000_000, 1);
+    }
+
+    // Loans whose whole schedule is overdue, so every installment is payable right away
+    private List<UUID> seed(int loans) {
+        LocalDate firstDueDate = LocalDate.now().minusMonths(INSTALLMENTS + 1);
+        List<Loan> batch = new ArrayList<>(loans);
+        for (int l = 0; l < loans; l++) {
+            Loan loan = new Loan();
+            loan.setCustomerId(UUID.randomUUID());
+            loan.setLoanAmount(INSTALLMENT_AMOUNT.multiply(BigDecimal.valueOf(INSTALLMENTS)));
+            loan.setInterestRate(0.1);
+            loan.setNumberOfInstallments(InstallmentOption.TWENTY_FOUR);
+            for (int m = 0; m < INSTALLMENTS; m++) {
+                LoanInstallment installment = new LoanInstallment();
+                installment.setLoan(loan);
+                installment.setAmount(INSTALLMENT_AMOUNT);
+                installment.setPaidAmount(BigDecimal.ZERO);
+                installment.setDueDate(firstDueDate.plusMonths(m));
+                loan.getInstallments().add(installment);
+            }
+            LoanAggregates.of(loan.getInstallments()).applyTo(loan);
+            batch.add(loan);
+        }
+        return loanRepository.saveAll(batch).stream().map(Loan::getId).toList();
+    }
+
+    private static PayInstallmentRequestDTO request(BigDecimal amount) {
+        PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
+        request.setAmount(amount);
+        return request;
+    }
+}
@@ -0,0 +1,94 @@
+package com.creditapi.benchmark;
+
+import com.creditapi.util.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Compares the reward/penalty loop of LoanServiceImpl.payInstallments on BigDecimal, as it used to be written,
+ * with the same loop on cents held in longs. Both return the total spent as a BigDecimal like the response does.
+ * Add "-prof gc" through the runner options (or run the JMH jar with it) to see gc.alloc.rate.norm per payment.
+ * Run with: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.creditapi.benchmark.PaymentCalculationJmh
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentCalculationJmh {
+    private static final BigDecimal RATE = new BigDecimal("0.001");
+
+    @Param({"6", "24"})
+    public int installments;
+
+    private BigDecimal[] amounts;
+    private long[] minorAmounts;
+    private LocalDate[] dueDates;
+    private LocalDate paymentDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new BigDecimal[installments];
+        minorAmounts = new long[installments];
+        dueDates = new LocalDate[installments];
+        paymentDate = LocalDate.of(2025, 6, 15);
+        for (int i = 0; i < installments; i++) {
+            minorAmounts[i] = 10_000 + random.nextInt(1_000_000);
+            amounts[i] = Money.toDecimal(minorAmounts[i]);
+            dueDates[i] = paymentDate.plusDays(random.nextInt(-60, 90));
+        }
+    }
+
+    @Benchmark
+    public BigDecimal decimal() {
+        BigDecimal totalSpent = BigDecimal.ZERO;
+        for (int i = 0; i < installments; i++) {
+            BigDecimal amount = amounts[i];
+            long daysLate = ChronoUnit.DAYS.between(dueDates[i], paymentDate);
+            BigDecimal adjustment = amount.multiply(RATE).multiply(BigDecimal.valueOf(Math.abs(daysLate))).setScale(2, RoundingMode.HALF_UP);
+            totalSpent = totalSpent.add(daysLate < 0 ? amount.subtract(adjustment) : amount.add(adjustment));
+        }
+        return totalSpent;
+    }
+
+    @Benchmark
+    public BigDecimal minorUnits() {
+        long totalSpent = 0;
+        for (int i = 0; i < installments; i++) {
+            long amount = minorAmounts[i];
+            long daysLate = ChronoUnit.DAYS.between(dueDates[i], paymentDate);
+            long adjustment = Money.multiplyHalfUp(amount, Math.abs(daysLate), 1000);
+            totalSpent += daysLate < 0 ? amount - adjustment : amount + adjustment;
+        }
+        return Money.toDecimal(totalSpent);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(PaymentCalculationJmh.class.getSimpleName())
+            .addProfiler("gc")
+            .build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.creditapi.benchmark;
+
+import com.creditapi.util.UuidV7;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Compares insert throughput into a UUID primary key table on embedded H2 for random (v4) and
+ * time-ordered (v7) ids. The table mirrors loan_installment; rows are inserted with JDBC batches like Hibernate does.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=UuidInsertBenchmark -Dbench.rows=1000000
+ * Use -Dbench.url=jdbc:h2:file:./target/uuid-bench to measure against a file database instead of memory.
+ */
+@Tag("benchmark")
+class UuidInsertBenchmark {
+    private static final int BATCH_SIZE = 50;
+    private static final int REPORT_EVERY = 250_000;
+
+    @Test
+    void compareV4AndV7Inserts() throws Exception {
+        int rows = Integer.getInteger("bench.rows", 1_000_000);
+        String url = System.getProperty("bench.url", "jdbc:h2:mem:uuid-bench");
+
+        // Warm up the JIT on a small table first so neither run pays for it
+        insert(url + "-warmup", 50_000, UUID::randomUUID, "warmup");
+
+        long v4 = insert(url + "-v4", rows, UUID::randomUUID, "v4");
+        long v7 = insert(url + "-v7", rows, UuidV7::randomUuid, "v7");
+
+        System.out.printf("UUID insert benchmark: rows=%d v4=%d ms (%.0f rows/s) v7=%d ms (%.0f rows/s) speedup=%.2fx%n",
+            rows, v4, rows * 1000.0 / v4, v7, rows * 1000.0 / v7, (double) v4 / v7);
+    }
+
+    private long insert(String url, int rows, Supplier<UUID> ids, String label) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("drop table if exists installment");
+                statement.execute("create table installment (id uuid primary key, loan_id uuid not null, amount numeric(38,2), "
+                    + "paid_amount numeric(38,2), due_date date, payment_date date, is_paid boolean not null)");
+            }
+            connection.setAutoCommit(false);
+
+            LocalDate dueDate = LocalDate.of(2025, 1, 1);
+            BigDecimal amount = new BigDecimal("91.67");
+            long start = System.nanoTime();
+            long lap = start;
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into installment (id, loan_id, amount, paid_amount, due_date, payment_date, is_paid) values (?, ?, ?, ?, ?, null, false)")) {
+                UUID loanId = ids.get();
+                for (int i = 1; i <= rows; i++) {
+                    if (i % 12 == 1) {
+                        loanId = ids.get();
+                    }
+                    insert.setObject(1, ids.get());
+                    insert.setObject(2, loanId);
+                    insert.setBigDecimal(3, amount);
+                    insert.setBigDecimal(4, BigDecimal.ZERO);
+                    insert.setDate(5, Date.valueOf(dueDate.plusMonths(i % 12)));
+                    insert.addBatch();
+                    if (i % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                    if (i % REPORT_EVERY == 0) {
+                        long now = System.nanoTime();
+                        System.out.printf("  %s: %d rows, last %d in %d ms%n", label, i, REPORT_EVERY, (now - lap) / 1_000_000);
+                        lap = now;
+                    }
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet count = statement.executeQuery("select count(*) from installment")) {
+                count.next();
+                assertEquals(rows, count.getInt(1));
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("drop table installment");
+            }
+            return Math.max(elapsedMs, 1);
+        }
+    }
+}
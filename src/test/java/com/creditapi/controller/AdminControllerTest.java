@@ -0,0 +1,85 @@
+package com.creditapi.controller;
+
+import com.creditapi.dto.DueInstallmentDTO;
+import com.creditapi.dto.DueInstallmentPageDTO;
+import com.creditapi.dto.LoanAggregateDriftDTO;
+import com.creditapi.service.DueInstallmentScanner;
+import com.creditapi.service.LoanAggregateChecker;
+import com.creditapi.util.LoanAggregates;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AdminController.class)
+class AdminControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LoanAggregateChecker loanAggregateChecker;
+    @MockitoBean
+    private DueInstallmentScanner dueInstallmentScanner;
+
+    @Test
+    @WithMockUser
+    void shouldReportLoanAggregateDrift() throws Exception {
+        UUID loanId = UUID.randomUUID();
+        LoanAggregateDriftDTO drift = new LoanAggregateDriftDTO(loanId,
+            new LoanAggregates(1, new BigDecimal("300.00"), LocalDate.of(2025, 3, 1)),
+            new LoanAggregates(2, new BigDecimal("200.00"), LocalDate.of(2025, 4, 1)));
+        Mockito.when(loanAggregateChecker.check()).thenReturn(List.of(drift));
+
+        mockMvc.perform(get("/admin/loan-aggregate-drift"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].loanId", is(loanId.toString())))
+                .andExpect(jsonPath("$[0].stored.paidInstallmentCount", is(1)))
+                .andExpect(jsonPath("$[0].actual.paidInstallmentCount", is(2)))
+                .andExpect(jsonPath("$[0].actual.nextDueDate", is("2025-04-01")));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldScanDueInstallmentsWithCursorHeader() throws Exception {
+        DueInstallmentDTO installment = new DueInstallmentDTO(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+            new BigDecimal("110.00"), BigDecimal.ZERO, LocalDate.of(2025, 7, 3));
+        DueInstallmentPageDTO page = new DueInstallmentPageDTO();
+        page.setInstallments(List.of(installment));
+        page.setNextCursor("2025-07-03_" + installment.getId());
+        Mockito.when(dueInstallmentScanner.scan(LocalDate.of(2025, 7, 1), LocalDate.of(2025, 7, 7), null, 1)).thenReturn(page);
+
+        mockMvc.perform(get("/admin/due-installments")
+                .param("from", "2025-07-01")
+                .param("to", "2025-07-07")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2025-07-03_" + installment.getId()))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].customerId", is(installment.getCustomerId().toString())))
+                .andExpect(jsonPath("$[0].dueDate", is("2025-07-03")));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldRejectDueInstallmentScanWithInvalidLimit() throws Exception {
+        mockMvc.perform(get("/admin/due-installments")
+                .param("from", "2025-07-01")
+                .param("to", "2025-07-07")
+                .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        Mockito.verifyNoInteractions(dueInstallmentScanner);
+    }
+}
@@ -0,0 +1,64 @@
+package com.creditapi.controller;
+
+import com.creditapi.dto.CustomerSummaryDTO;
+import com.creditapi.exception.CustomerNotFoundException;
+import com.creditapi.service.LoanService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(CustomerController.class)
+class CustomerControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LoanService loanService;
+
+    @Test
+    @WithMockUser
+    void shouldReturnCustomerSummary() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        CustomerSummaryDTO summary = new CustomerSummaryDTO();
+        summary.setCustomerId(customerId);
+        summary.setActiveLoans(2);
+        summary.setOutstandingPrincipal(new BigDecimal("1000.00"));
+        summary.setTotalRemainingPayable(new BigDecimal("1200.00"));
+        summary.setOverdueInstallments(1);
+        summary.setNextDueDate(LocalDate.of(2025, 7, 1));
+        summary.setNextDueAmount(new BigDecimal("300.00"));
+        Mockito.when(loanService.getCustomerSummary(customerId)).thenReturn(summary);
+
+        mockMvc.perform(get("/customers/" + customerId + "/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.customerId", is(customerId.toString())))
+                .andExpect(jsonPath("$.activeLoans", is(2)))
+                .andExpect(jsonPath("$.totalRemainingPayable", is(1200.00)))
+                .andExpect(jsonPath("$.overdueInstallments", is(1)))
+                .andExpect(jsonPath("$.nextDueDate", is("2025-07-01")))
+                .andExpect(jsonPath("$.nextDueAmount", is(300.00)));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnNotFoundForUnknownCustomer() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        Mockito.when(loanService.getCustomerSummary(customerId)).thenThrow(new CustomerNotFoundException("Customer not found"));
+
+        mockMvc.perform(get("/customers/" + customerId + "/summary"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", is("Customer not found")));
+    }
+}
@@ -1,13 +1,21 @@
 package com.creditapi.controller;
 
+import com.creditapi.dto.LoanBatchCreateResponseDTO;
 import com.creditapi.dto.LoanCreateResponseDTO;
+import com.creditapi.dto.LoanInstallmentBatchGetResponseDTO;
 import com.creditapi.dto.LoanInstallmentDTO;
+import com.creditapi.dto.LoanOperationDTO;
+import com.creditapi.dto.LoanPageDTO;
 import com.creditapi.dto.LoanCreateRequestDTO;
 import com.creditapi.dto.LoanResponseDTO;
 import com.creditapi.dto.PayInstallmentRequestDTO;
 import com.creditapi.dto.PayInstallmentResponseDTO;
+import com.creditapi.exception.CustomerNotFoundException;
 import com.creditapi.exception.LoanNotFoundException;
+import com.creditapi.exception.OriginationQueueFullException;
 import com.creditapi.mapper.LoanMapper;
+import com.creditapi.service.CustomerCommandExecutor;
+import com.creditapi.service.LoanOriginationPipeline;
 import com.creditapi.service.LoanService;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -16,12 +24,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.security.test.context.support.WithMockUser;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -40,6 +51,12 @@ class LoanControllerTest {
     @MockitoBean
     private LoanMapper loanMapper;
 
+    @MockitoBean
+    private LoanOriginationPipeline originationPipeline;
+
+    @MockitoBean
+    private CustomerCommandExecutor customerCommands;
+
     @Test
     @WithMockUser
     void shouldCreateLoan() throws Exception {
@@ -73,6 +90,100 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$.firstPaymentDate", notNullValue()));
     }
 
+    @Test
+    @WithMockUser
+    void shouldAcceptLoanForAsyncCreation() throws Exception {
+        LoanOperationDTO operation = new LoanOperationDTO();
+        operation.setId(UUID.randomUUID());
+        operation.setStatus(LoanOperationDTO.Status.PENDING);
+        Mockito.when(originationPipeline.submit(any(LoanCreateRequestDTO.class))).thenReturn(operation);
+
+        String requestJson = "{" +
+                "\"customerId\": \"" + UUID.randomUUID() + "\"," +
+                "\"loanAmount\": 1000," +
+                "\"interestRate\": 0.2," +
+                "\"numberOfInstallments\": 12}";
+
+        mockMvc.perform(post("/loans")
+                .param("async", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson)
+                .with(csrf()))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/operations/" + operation.getId()))
+                .andExpect(jsonPath("$.id", is(operation.getId().toString())))
+                .andExpect(jsonPath("$.status", is("PENDING")));
+        Mockito.verify(loanService, Mockito.never()).createLoan(any(LoanCreateRequestDTO.class));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnServiceUnavailableWhenOriginationQueueIsFull() throws Exception {
+        Mockito.when(originationPipeline.submit(any(LoanCreateRequestDTO.class))).thenThrow(new OriginationQueueFullException("Loan origination queue is full, please retry later"));
+
+        String requestJson = "{" +
+                "\"customerId\": \"" + UUID.randomUUID() + "\"," +
+                "\"loanAmount\": 1000," +
+                "\"interestRate\": 0.2," +
+                "\"numberOfInstallments\": 12}";
+
+        mockMvc.perform(post("/loans")
+                .param("async", "true")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestJson)
+                .with(csrf()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldCreateLoansInBatch() throws Exception {
+        LoanBatchCreateResponseDTO.ItemResult created = new LoanBatchCreateResponseDTO.ItemResult();
+        created.setIndex(0);
+        created.setSuccess(true);
+        created.setLoan(new LoanCreateResponseDTO());
+        LoanBatchCreateResponseDTO.ItemResult failed = new LoanBatchCreateResponseDTO.ItemResult();
+        failed.setIndex(1);
+        failed.setError("Insufficient credit limit");
+        LoanBatchCreateResponseDTO batchResponse = new LoanBatchCreateResponseDTO();
+        batchResponse.setCreatedCount(1);
+        batchResponse.setFailedCount(1);
+        batchResponse.setResults(List.of(created, failed));
+
+        Mockito.when(loanService.createLoans(Mockito.anyList())).thenReturn(batchResponse);
+
+        String item = "{" +
+                "\"customerId\": \"" + UUID.randomUUID() + "\"," +
+                "\"loanAmount\": 1000," +
+                "\"interestRate\": 0.2," +
+                "\"numberOfInstallments\": 12}";
+        mockMvc.perform(post("/loans/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"loans\": [" + item + "," + item + "]}")
+                .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.createdCount", is(1)))
+                .andExpect(jsonPath("$.failedCount", is(1)))
+                .andExpect(jsonPath("$.results[1].error", is("Insufficient credit limit")));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldRejectInvalidItemInBatch() throws Exception {
+        String item = "{" +
+                "\"customerId\": \"" + UUID.randomUUID() + "\"," +
+                "\"loanAmount\": 1000," +
+                "\"interestRate\": 0.2," +
+                "\"numberOfInstallments\": 36}";
+        mockMvc.perform(post("/loans/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"loans\": [" + item + "]}")
+                .with(csrf()))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("loans[0]")));
+    }
+
     @Test
     @WithMockUser
     void shouldListLoansByCustomerId() throws Exception {
@@ -87,7 +198,7 @@ class LoanControllerTest {
         response.setPaymentAmount(new BigDecimal("1200.0"));
         response.setFirstPaymentDate(LocalDate.now().plusMonths(1).withDayOfMonth(1));
 
-        Mockito.when(loanService.listLoansByCustomerId(response.getCustomerId(), null, null)).thenReturn(List.of(response));
+        Mockito.when(loanService.listLoansByCustomerId(response.getCustomerId(), null, null, null)).thenReturn(List.of(response));
 
         mockMvc.perform(get("/loans?customerId=" + response.getCustomerId()))
                 .andExpect(status().isOk())
@@ -173,7 +284,7 @@ class LoanControllerTest {
 
         // Only response2 matches all filters
         Mockito.when(loanService.listLoansByCustomerId(
-            response1.getCustomerId(), 12, true)).thenReturn(List.of(response2));
+            response1.getCustomerId(), 12, true, null)).thenReturn(List.of(response2));
 
         mockMvc.perform(get("/loans")
                 .param("customerId", response1.getCustomerId().toString())
@@ -212,7 +323,7 @@ class LoanControllerTest {
         response2.setFirstPaymentDate(LocalDate.now().plusMonths(1).withDayOfMonth(1));
 
         Mockito.when(loanService.listLoansByCustomerId(
-            response1.getCustomerId(), null, true)).thenReturn(List.of(response2));
+            response1.getCustomerId(), null, true, null)).thenReturn(List.of(response2));
 
         mockMvc.perform(get("/loans")
                 .param("customerId", response1.getCustomerId().toString())
@@ -250,7 +361,7 @@ class LoanControllerTest {
         response2.setFirstPaymentDate(LocalDate.now().plusMonths(1).withDayOfMonth(1));
 
         Mockito.when(loanService.listLoansByCustomerId(
-            response1.getCustomerId(), 6, null)).thenReturn(List.of(response1));
+            response1.getCustomerId(), 6, null, null)).thenReturn(List.of(response1));
 
         mockMvc.perform(get("/loans")
                 .param("customerId", response1.getCustomerId().toString())
@@ -262,6 +373,93 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$[0].isPaid", is(false)));
     }
 
+    @Test
+    @WithMockUser
+    void shouldListLoansPageWithNextCursorHeader() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        UUID after = UUID.randomUUID();
+        LoanResponseDTO response = new LoanResponseDTO();
+        response.setId(UUID.randomUUID());
+        response.setCustomerId(customerId);
+        response.setLoanAmount(new BigDecimal("1000"));
+        LoanPageDTO page = new LoanPageDTO();
+        page.setLoans(List.of(response));
+        page.setNextCursor(response.getId());
+
+        Mockito.when(loanService.listLoansByCustomerId(customerId, null, true, after, 1)).thenReturn(page);
+
+        mockMvc.perform(get("/loans")
+                .param("customerId", customerId.toString())
+                .param("isPaid", "true")
+                .param("limit", "1")
+                .param("after", after.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(LoanController.NEXT_CURSOR_HEADER, response.getId().toString()))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].loanAmount", is(1000)));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldRejectPageLimitOutOfRange() throws Exception {
+        mockMvc.perform(get("/loans")
+                .param("customerId", UUID.randomUUID().toString())
+                .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldExportLoansAsNdjson() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        LoanResponseDTO first = new LoanResponseDTO();
+        first.setId(UUID.randomUUID());
+        first.setLoanAmount(new BigDecimal("1000"));
+        first.setFirstPaymentDate(LocalDate.of(2025, 7, 1));
+        LoanResponseDTO second = new LoanResponseDTO();
+        second.setId(UUID.randomUUID());
+        second.setLoanAmount(new BigDecimal("2000"));
+        Mockito.doAnswer(invocation -> {
+            Consumer<LoanResponseDTO> sink = invocation.getArgument(3);
+            sink.accept(first);
+            sink.accept(second);
+            return null;
+        }).when(loanService).exportLoansByCustomerId(Mockito.eq(customerId), Mockito.isNull(), Mockito.eq(false), any());
+
+        MvcResult result = mockMvc.perform(get("/loans")
+                .param("customerId", customerId.toString())
+                .param("isPaid", "false")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+        org.junit.jupiter.api.Assertions.assertEquals(2, lines.length);
+        org.junit.jupiter.api.Assertions.assertTrue(lines[0].contains(first.getId().toString()));
+        org.junit.jupiter.api.Assertions.assertTrue(lines[0].contains("\"firstPaymentDate\":\"2025-07-01\""));
+        org.junit.jupiter.api.Assertions.assertTrue(lines[1].contains(second.getId().toString()));
+        Mockito.verify(loanService, Mockito.never()).listLoansByCustomerId(any(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnNotFoundWhenExportingUnknownCustomer() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        Mockito.doThrow(new CustomerNotFoundException("Customer not found"))
+            .when(loanService).checkCustomerExists(customerId);
+
+        mockMvc.perform(get("/loans")
+                .param("customerId", customerId.toString())
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error", is("Customer Not Found")));
+        Mockito.verify(loanService, Mockito.never()).exportLoansByCustomerId(any(), any(), any(), any());
+    }
+
     @Test
     @WithMockUser
     void shouldListInstallmentsForLoan() throws Exception {
@@ -289,6 +487,91 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$[1].dueDate", is("2025-08-01")));
     }
 
+    @Test
+    @WithMockUser
+    void shouldReturnInstallmentsWithEtagAndNotModifiedWhenUnchanged() throws Exception {
+        UUID loanId = UUID.randomUUID();
+        Mockito.when(loanService.getInstallmentsVersion(loanId)).thenReturn(3L);
+        Mockito.when(loanService.listInstallmentsByLoanId(loanId)).thenReturn(List.of(new LoanInstallmentDTO()));
+
+        mockMvc.perform(get("/loans/" + loanId + "/installments"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+
+        mockMvc.perform(get("/loans/" + loanId + "/installments").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+        // The 304 is decided from the version alone
+        Mockito.verify(loanService, Mockito.times(1)).listInstallmentsByLoanId(loanId);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldBatchGetInstallmentsKeyedByLoanId() throws Exception {
+        UUID loanId = UUID.randomUUID();
+        UUID missingId = UUID.randomUUID();
+        LoanInstallmentDTO installment = new LoanInstallmentDTO();
+        installment.setLoanId(loanId);
+        installment.setAmount(new BigDecimal("100"));
+        installment.setDueDate(LocalDate.of(2025, 7, 1));
+        LoanInstallmentBatchGetResponseDTO response = new LoanInstallmentBatchGetResponseDTO();
+        response.setInstallments(Map.of(loanId, List.of(installment)));
+        response.setNotFound(List.of(missingId));
+        Mockito.when(loanService.listInstallmentsByLoanIds(List.of(loanId, missingId))).thenReturn(response);
+
+        mockMvc.perform(post("/loans/installments:batchGet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"loanIds\": [\"" + loanId + "\", \"" + missingId + "\"]}")
+                .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.installments['" + loanId + "']", hasSize(1)))
+                .andExpect(jsonPath("$.installments['" + loanId + "'][0].dueDate", is("2025-07-01")))
+                .andExpect(jsonPath("$.notFound[0]", is(missingId.toString())));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldRejectEmptyInstallmentBatch() throws Exception {
+        mockMvc.perform(post("/loans/installments:batchGet")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"loanIds\": []}")
+                .with(csrf()))
+                .andExpect(status().isBadRequest());
+        Mockito.verifyNoInteractions(loanService);
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnNotModifiedForUnchangedLoanList() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        Mockito.when(loanService.getLoanListVersion(customerId)).thenReturn("2-5");
+
+        mockMvc.perform(get("/loans")
+                .param("customerId", customerId.toString())
+                .header("If-None-Match", "\"2-5\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/loans")
+                .param("customerId", customerId.toString())
+                .header("If-None-Match", "\"2-4\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2-5\""));
+
+        Mockito.verify(loanService, Mockito.times(1)).listLoansByCustomerId(customerId, null, null, "2-5");
+    }
+
+    @Test
+    @WithMockUser
+    void shouldNotAnswerUnknownCustomerFromETag() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        Mockito.when(loanService.getLoanListVersion(customerId)).thenThrow(new CustomerNotFoundException("Customer not found"));
+
+        mockMvc.perform(get("/loans")
+                .param("customerId", customerId.toString())
+                .header("If-None-Match", "\"0-0\""))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @WithMockUser
     void shouldReturnNotFoundWhenLoanDoesNotExist() throws Exception {
@@ -338,6 +621,49 @@ class LoanControllerTest {
                 .andExpect(jsonPath("$.loanFullyPaid", is(false)));
     }
 
+    @Test
+    @WithMockUser
+    void shouldRoutePaymentThroughCustomerMailboxWhenEnabled() throws Exception {
+        UUID loanId = UUID.randomUUID();
+        PayInstallmentResponseDTO response = new PayInstallmentResponseDTO();
+        response.setNumberOfInstallmentsPaid(1);
+        response.setTotalAmountSpent(new BigDecimal("100"));
+        response.setPaidInstallments(List.of());
+        Mockito.when(customerCommands.isEnabled()).thenReturn(true);
+        Mockito.when(customerCommands.payInstallments(Mockito.eq(loanId), any(PayInstallmentRequestDTO.class))).thenReturn(response);
+
+        mockMvc.perform(post("/loans/" + loanId + "/pay")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":100}")
+                .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.numberOfInstallmentsPaid", is(1)));
+        Mockito.verifyNoInteractions(loanService);
+    }
+
+    @Test
+    @WithMockUser
+    void shouldQuotePaymentWithoutPaying() throws Exception {
+        UUID loanId = UUID.randomUUID();
+        PayInstallmentResponseDTO response = new PayInstallmentResponseDTO();
+        response.setNumberOfInstallmentsPaid(2);
+        response.setTotalAmountSpent(new BigDecimal("199.50"));
+        response.setLoanFullyPaid(true);
+        response.setPaidInstallments(List.of());
+        Mockito.when(loanService.quotePayment(Mockito.eq(loanId), any(PayInstallmentRequestDTO.class))).thenReturn(response);
+
+        mockMvc.perform(post("/loans/" + loanId + "/pay/quote")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"amount\":200}")
+                .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.numberOfInstallmentsPaid", is(2)))
+                .andExpect(jsonPath("$.totalAmountSpent", is(199.50)))
+                .andExpect(jsonPath("$.loanFullyPaid", is(true)));
+        Mockito.verify(loanService, Mockito.never()).payInstallments(any(), any());
+        Mockito.verifyNoInteractions(customerCommands);
+    }
+
     @Test
     @WithMockUser
     void shouldPayMultipleInstallments() throws Exception {
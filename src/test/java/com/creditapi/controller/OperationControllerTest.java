@@ -0,0 +1,60 @@
+package com.creditapi.controller;
+
+import com.creditapi.dto.LoanCreateResponseDTO;
+import com.creditapi.dto.LoanOperationDTO;
+import com.creditapi.exception.OperationNotFoundException;
+import com.creditapi.service.LoanOriginationPipeline;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(OperationController.class)
+class OperationControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private LoanOriginationPipeline originationPipeline;
+
+    @Test
+    @WithMockUser
+    void shouldReturnCompletedOperation() throws Exception {
+        UUID operationId = UUID.randomUUID();
+        LoanCreateResponseDTO loan = new LoanCreateResponseDTO();
+        loan.setId(UUID.randomUUID());
+        loan.setLoanAmount(new BigDecimal("1000"));
+        LoanOperationDTO operation = new LoanOperationDTO();
+        operation.setId(operationId);
+        operation.setStatus(LoanOperationDTO.Status.SUCCEEDED);
+        operation.setLoan(loan);
+        Mockito.when(originationPipeline.getOperation(operationId)).thenReturn(operation);
+
+        mockMvc.perform(get("/operations/" + operationId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("SUCCEEDED")))
+                .andExpect(jsonPath("$.loan.id", is(loan.getId().toString())))
+                .andExpect(jsonPath("$.loan.loanAmount", is(1000)));
+    }
+
+    @Test
+    @WithMockUser
+    void shouldReturnNotFoundForUnknownOperation() throws Exception {
+        UUID operationId = UUID.randomUUID();
+        Mockito.when(originationPipeline.getOperation(operationId)).thenThrow(new OperationNotFoundException("Operation not found"));
+
+        mockMvc.perform(get("/operations/" + operationId))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", is("Operation not found")));
+    }
+}
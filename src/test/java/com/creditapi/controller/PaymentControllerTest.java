@@ -0,0 +1,48 @@
+package com.creditapi.controller;
+
+import com.creditapi.service.PaymentImportService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.io.Writer;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PaymentController.class)
+class PaymentControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private PaymentImportService paymentImportService;
+
+    @Test
+    @WithMockUser
+    void shouldStreamCsvBodyToImportAndReturnResultFile() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Reader csv = invocation.getArgument(0);
+            Writer results = invocation.getArgument(1);
+            results.write("read:" + new BufferedReader(csv).readLine() + "\n");
+            return null;
+        }).when(paymentImportService).importPayments(any(Reader.class), any(Writer.class));
+
+        mockMvc.perform(post("/payments/import")
+                .contentType("text/csv")
+                .content("loanId,amount,reference\n")
+                .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith("text/csv")))
+                .andExpect(content().string("read:loanId,amount,reference\n"));
+    }
+}
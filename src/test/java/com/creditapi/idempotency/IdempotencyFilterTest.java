@@ -0,0 +1,192 @@
+package com.creditapi.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+    private IdempotencyStore store;
+    private IdempotencyFilter filter;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        store = new IdempotencyStore(new StaticListableBeanFactory().getBeanProvider(IdempotencyBackingStore.class), Duration.ofMinutes(5), 100);
+        filter = new IdempotencyFilter(store, new ObjectMapper(), 5_000);
+        executions = new AtomicInteger();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldReplayRecordedResponseWithoutExecutingAgain() throws Exception {
+        FilterChain chain = respondingChain(201, "{\"id\":\"1\"}");
+
+        MockHttpServletResponse first = execute(request("/loans", "key-1", "{\"loanAmount\":1000}"), chain);
+        MockHttpServletResponse second = execute(request("/loans", "key-1", "{\"loanAmount\":1000}"), chain);
+
+        assertEquals(1, executions.get());
+        assertEquals(201, second.getStatus());
+        assertEquals(first.getContentAsString(), second.getContentAsString());
+        assertEquals("true", second.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentRequest() throws Exception {
+        FilterChain chain = respondingChain(200, "{}");
+
+        execute(request("/loans/abc/pay", "key-2", "{\"amount\":100}"), chain);
+        MockHttpServletResponse response = execute(request("/loans/abc/pay", "key-2", "{\"amount\":200}"), chain);
+
+        assertEquals(1, executions.get());
+        assertEquals(422, response.getStatus());
+    }
+
+    @Test
+    void shouldScopeKeysToAuthenticatedUser() throws Exception {
+        FilterChain chain = respondingChain(200, "{}");
+
+        execute(request("/loans", "key-3", "{}"), chain);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("user1", null, List.of()));
+        execute(request("/loans", "key-3", "{}"), chain);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void shouldNotRecordServerErrors() throws Exception {
+        execute(request("/loans", "key-4", "{}"), respondingChain(503, "{}"));
+        MockHttpServletResponse retry = execute(request("/loans", "key-4", "{}"), respondingChain(201, "{}"));
+
+        assertEquals(2, executions.get());
+        assertEquals(201, retry.getStatus());
+    }
+
+    @Test
+    void shouldNotRecordConflicts() throws Exception {
+        execute(request("/loans/abc/pay", "key-8", "{}"), respondingChain(409, "{}"));
+        MockHttpServletResponse retry = execute(request("/loans/abc/pay", "key-8", "{}"), respondingChain(200, "{}"));
+
+        assertEquals(2, executions.get());
+        assertEquals(200, retry.getStatus());
+        assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void shouldRecordClientErrors() throws Exception {
+        execute(request("/loans", "key-9", "{}"), respondingChain(400, "{}"));
+        MockHttpServletResponse second = execute(request("/loans", "key-9", "{}"), respondingChain(201, "{}"));
+
+        assertEquals(1, executions.get());
+        assertEquals(400, second.getStatus());
+    }
+
+    @Test
+    void shouldIgnoreRequestsWithoutKeyOrOutsideIdempotentEndpoints() throws Exception {
+        FilterChain chain = respondingChain(200, "{}");
+
+        execute(request("/loans", null, "{}"), chain);
+        execute(request("/loans", null, "{}"), chain);
+        execute(request("/loans/batch", "key-5", "{}"), chain);
+        execute(request("/loans/batch", "key-5", "{}"), chain);
+
+        assertEquals(4, executions.get());
+    }
+
+    @Test
+    void shouldMakeConcurrentDuplicatesWaitForInFlightRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowChain = (req, res) -> {
+            executions.incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ((HttpServletResponse) res).setStatus(201);
+            res.getOutputStream().write("{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MockHttpServletResponse> owner = executor.submit(() -> executeAs("admin", request("/loans", "key-6", "{}"), slowChain));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<MockHttpServletResponse> duplicate = executor.submit(() -> executeAs("admin", request("/loans", "key-6", "{}"), slowChain));
+            Thread.sleep(100);
+            assertFalse(duplicate.isDone());
+
+            release.countDown();
+
+            assertEquals(201, owner.get(5, TimeUnit.SECONDS).getStatus());
+            MockHttpServletResponse replay = duplicate.get(5, TimeUnit.SECONDS);
+            assertEquals(201, replay.getStatus());
+            assertEquals("{\"id\":\"1\"}", replay.getContentAsString());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private FilterChain respondingChain(int status, String body) {
+        return (req, res) -> {
+            executions.incrementAndGet();
+            // The downstream chain must still be able to read the body after it was fingerprinted
+            assertNotNull(req.getInputStream().readAllBytes());
+            ((HttpServletResponse) res).setStatus(status);
+            res.setContentType("application/json");
+            res.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private MockHttpServletRequest request(String uri, String key, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        if (key != null) {
+            request.addHeader(IdempotencyFilter.HEADER, key);
+        }
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private MockHttpServletResponse execute(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private MockHttpServletResponse executeAs(String user, MockHttpServletRequest request, FilterChain chain) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null, List.of()));
+        try {
+            return execute(request, chain);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.creditapi.journal;
+
+import com.creditapi.dto.PayInstallmentRequestDTO;
+import com.creditapi.exception.LoanNotFoundException;
+import com.creditapi.mapper.LoanMapperImpl;
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import com.creditapi.repository.LoanRepository;
+import com.creditapi.service.AmortizationScheduleEngine;
+import com.creditapi.service.CreditLedger;
+import com.creditapi.service.LoanListCache;
+import com.creditapi.service.LoanService;
+import com.creditapi.service.LoanServiceImpl;
+import com.creditapi.util.LoanAggregates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Payments through the service with the journal enabled; every payment commits, so records are written for real.
+ */
+@DataJpaTest
+@Import({LoanServiceImpl.class, LoanMapperImpl.class, CreditLedger.class, AmortizationScheduleEngine.class,
+    LoanListCache.class, LoanJournal.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoanJournalTest {
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("journal.enabled", () -> "true");
+        registry.add("journal.dir", () -> journalDirectory.toString());
+    }
+
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void recordsCommittedPayments() throws IOException {
+        UUID loanId = saveLoan();
+
+        loanService.payInstallments(loanId, request("100.009"));
+
+        JournalRecord.InstallmentsPaid paid = lastPaymentOf(loanId);
+        assertEquals(LocalDate.now(), paid.paymentDate());
+        assertEquals(10_000, paid.amount());
+        assertEquals(1, paid.installmentsPaid());
+        assertEquals(10_000, paid.totalSpent());
+        assertFalse(paid.loanFullyPaid());
+    }
+
+    @Test
+    void skipsRolledBackPaymentsAndWritesTransactionOnce() throws IOException {
+        UUID kept = saveLoan();
+        UUID rolledBack = saveLoan();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            loanService.payInstallments(rolledBack, request("100.00"));
+            status.setRollbackOnly();
+        });
+        transaction.executeWithoutResult(status -> {
+            loanService.payInstallments(kept, request("100.00"));
+            loanService.payInstallments(kept, request("100.00"));
+        });
+        assertThrows(LoanNotFoundException.class, () -> loanService.payInstallments(UUID.randomUUID(), request("100.00")));
+
+        List<JournalEntry> entries = readAll();
+        assertTrue(entries.stream().noneMatch(entry -> entry.record() instanceof JournalRecord.InstallmentsPaid paid && paid.loanId().equals(rolledBack)));
+        List<JournalEntry> keptEntries = entries.stream()
+            .filter(entry -> entry.record() instanceof JournalRecord.InstallmentsPaid paid && paid.loanId().equals(kept))
+            .toList();
+        assertEquals(2, keptEntries.size());
+        // Appended together after the commit, so they carry consecutive sequence numbers
+        assertEquals(keptEntries.get(0).sequence() + 1, keptEntries.get(1).sequence());
+    }
+
+    @Test
+    void countsFailedWriteWithoutFailingTheCaller(@TempDir Path directory) throws IOException {
+        LoanJournal closed = new LoanJournal(new SimpleMeterRegistry(), true, directory.toString(), DataSize.ofMegabytes(1));
+        closed.close();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertDoesNotThrow(() -> transaction.executeWithoutResult(status ->
+            closed.recordAfterCommit(new JournalRecord.InstallmentsPaid(UUID.randomUUID(), LocalDate.now(), 10_000, 1, 10_000, false))));
+
+        assertEquals(1, closed.getFailures());
+    }
+
+    private JournalRecord.InstallmentsPaid lastPaymentOf(UUID loanId) throws IOException {
+        return readAll().stream()
+            .map(JournalEntry::record)
+            .filter(record -> record instanceof JournalRecord.InstallmentsPaid paid && paid.loanId().equals(loanId))
+            .map(JournalRecord.InstallmentsPaid.class::cast)
+            .reduce((first, second) -> second)
+            .orElseThrow();
+    }
+
+    private List<JournalEntry> readAll() throws IOException {
+        List<JournalEntry> entries = new ArrayList<>();
+        JournalReader.readAll(journalDirectory, entries::add);
+        return entries;
+    }
+
+    private UUID saveLoan() {
+        Loan loan = new Loan();
+        loan.setCustomerId(UUID.randomUUID());
+        loan.setLoanAmount(new BigDecimal("300.00"));
+        loan.setInterestRate(0.1);
+        loan.setNumberOfInstallments(InstallmentOption.SIX);
+        for (int i = 0; i < 3; i++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setLoan(loan);
+            installment.setAmount(new BigDecimal("100.00"));
+            installment.setPaidAmount(BigDecimal.ZERO);
+            installment.setDueDate(LocalDate.now().plusMonths(i));
+            loan.getInstallments().add(installment);
+        }
+        LoanAggregates.of(loan.getInstallments()).applyTo(loan);
+        return loanRepository.save(loan).getId();
+    }
+
+    private static PayInstallmentRequestDTO request(String amount) {
+        PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
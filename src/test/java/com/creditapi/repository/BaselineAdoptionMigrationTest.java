@@ -0,0 +1,45 @@
+package com.creditapi.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Adopts a database created by the former ddl-auto=update at version 1, the way spring.flyway.baseline-on-migrate
+ * does at startup, and checks that the later migrations bring it up to the schema the entities expect.
+ */
+class BaselineAdoptionMigrationTest {
+
+    @Test
+    void upgradesDatabaseAdoptedAtBaseline() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:baseline-adoption;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        // The schema without any Flyway history, as ddl-auto=update left it
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline.sql")).execute(dataSource);
+        UUID customerId = UUID.randomUUID();
+        jdbcTemplate.update("insert into customer (id, name, surname, credit_limit, used_credit_limit) values (?, ?, ?, ?, ?)",
+            customerId, "Old", "Customer", new BigDecimal("1000"), BigDecimal.ZERO);
+        UUID loanId = UUID.randomUUID();
+        jdbcTemplate.update("insert into loan (id, customer_id, loan_amount, interest_rate, number_of_installments, is_paid) values (?, ?, ?, ?, ?, ?)",
+            loanId, customerId, new BigDecimal("300"), 0.1, "SIX", false);
+
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+        assertEquals(0L, jdbcTemplate.queryForObject("select version from customer where id = ?", Long.class, customerId));
+        assertEquals(0L, jdbcTemplate.queryForObject("select version from loan where id = ?", Long.class, loanId));
+        assertNull(jdbcTemplate.queryForObject("select schedule_data from loan where id = ?", byte[].class, loanId));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from idempotency_record", Integer.class));
+        List<String> loanIndexes = jdbcTemplate.queryForList(
+            "select index_name from information_schema.indexes where table_name = 'LOAN'", String.class);
+        assertTrue(loanIndexes.contains("IDX_LOAN_CUSTOMER_ID"), loanIndexes.toString());
+    }
+}
@@ -0,0 +1,72 @@
+package com.creditapi.repository;
+
+import com.creditapi.model.LoanInstallment;
+import com.creditapi.util.ScheduleCodec;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Migrates a database with loans in both schedule formats from V2 to the latest version
+ * and checks that V3 and V4 fill in the loan aggregates from the existing installments.
+ */
+class LoanAggregatesMigrationTest {
+
+    @Test
+    void backfillsAggregatesForRowAndEmbeddedSchedules() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:loan-aggregates-migration;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Flyway.configure().dataSource(dataSource).target("2").load().migrate();
+
+        UUID rowLoanId = UUID.randomUUID();
+        insertLoan(jdbcTemplate, rowLoanId, null);
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("insert into loan_installment (id, loan_id, amount, paid_amount, due_date, is_paid) values (?, ?, ?, ?, ?, ?)",
+                UUID.randomUUID(), rowLoanId, new BigDecimal("100.00"), i == 0 ? new BigDecimal("100.00") : BigDecimal.ZERO,
+                LocalDate.of(2025, 2, 1).plusMonths(i), i == 0);
+        }
+        UUID embeddedLoanId = UUID.randomUUID();
+        List<LoanInstallment> installments = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setAmount(new BigDecimal("50.00"));
+            installment.setPaid(i < 2);
+            installment.setPaidAmount(i < 2 ? new BigDecimal("50.00") : BigDecimal.ZERO);
+            installment.setDueDate(LocalDate.of(2025, 2, 1).plusMonths(i));
+            installments.add(installment);
+        }
+        insertLoan(jdbcTemplate, embeddedLoanId, ScheduleCodec.encode(installments));
+        UUID emptyLoanId = UUID.randomUUID();
+        insertLoan(jdbcTemplate, emptyLoanId, null);
+
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        assertAggregates(jdbcTemplate, rowLoanId, 1, "200.00", LocalDate.of(2025, 3, 1));
+        assertAggregates(jdbcTemplate, embeddedLoanId, 2, "50.00", LocalDate.of(2025, 4, 1));
+        assertAggregates(jdbcTemplate, emptyLoanId, 0, "0.00", null);
+    }
+
+    private static void insertLoan(JdbcTemplate jdbcTemplate, UUID id, byte[] scheduleData) {
+        jdbcTemplate.update("insert into loan (id, customer_id, loan_amount, interest_rate, number_of_installments, is_paid, schedule_data, version) values (?, ?, ?, ?, ?, ?, ?, ?)",
+            id, UUID.randomUUID(), new BigDecimal("300"), 0.0, "SIX", false, scheduleData, 0L);
+    }
+
+    private static void assertAggregates(JdbcTemplate jdbcTemplate, UUID loanId, int paidInstallmentCount, String outstandingAmount, LocalDate nextDueDate) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+            "select paid_installment_count, outstanding_amount, next_due_date from loan where id = ?", loanId);
+        assertEquals(paidInstallmentCount, ((Number) row.get("PAID_INSTALLMENT_COUNT")).intValue());
+        assertEquals(0, new BigDecimal(outstandingAmount).compareTo((BigDecimal) row.get("OUTSTANDING_AMOUNT")));
+        Object storedNextDueDate = row.get("NEXT_DUE_DATE");
+        assertEquals(nextDueDate, storedNextDueDate != null ? ((java.sql.Date) storedNextDueDate).toLocalDate() : null);
+    }
+}
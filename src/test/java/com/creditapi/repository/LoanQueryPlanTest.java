@@ -0,0 +1,147 @@
+package com.creditapi.repository;
+
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Runs the hot queries through the repositories, captures the SQL Hibernate sends and asks H2 for its plan,
+ * so the check covers the statements the application really executes against the Flyway schema.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.creditapi.repository.LoanQueryPlanTest$RecordingStatementInspector")
+class LoanQueryPlanTest {
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private LoanInstallmentRepository loanInstallmentRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UUID customerId = UUID.randomUUID();
+    private Loan loan;
+
+    @BeforeEach
+    void setUp() {
+        // A few customers with several loans each so the optimizer has something to choose between
+        for (int c = 0; c < 20; c++) {
+            UUID owner = c == 0 ? customerId : UUID.randomUUID();
+            for (int i = 0; i < 10; i++) {
+                Loan saved = new Loan();
+                saved.setCustomerId(owner);
+                saved.setLoanAmount(new BigDecimal("1000"));
+                saved.setInterestRate(0.2);
+                saved.setNumberOfInstallments(i % 2 == 0 ? InstallmentOption.SIX : InstallmentOption.TWELVE);
+                saved.setPaid(i % 3 == 0);
+                for (int m = 0; m < 6; m++) {
+                    LoanInstallment installment = new LoanInstallment();
+                    installment.setLoan(saved);
+                    installment.setAmount(new BigDecimal("200.00"));
+                    installment.setDueDate(LocalDate.of(2025, 1, 1).plusMonths(m));
+                    // Loans are half way through their schedule
+                    installment.setPaid(m < 3);
+                    installment.setPaidAmount(m < 3 ? installment.getAmount() : BigDecimal.ZERO);
+                    saved.getInstallments().add(installment);
+                }
+                loan = loanRepository.save(saved);
+            }
+        }
+        loanRepository.flush();
+        jdbcTemplate.execute("analyze");
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void filteredLoanListingUsesCompositeCustomerIndex() {
+        loanRepository.findResponsePageByCustomerId(customerId, InstallmentOption.SIX, true, null, Limit.unlimited());
+
+        String plan = explain(lastStatement(), customerId, true, InstallmentOption.SIX.name());
+        assertTrue(plan.contains("IDX_LOAN_CUSTOMER_PAID_INSTALLMENTS"), plan);
+    }
+
+    @Test
+    void unfilteredLoanListingUsesCustomerIndex() {
+        loanRepository.findResponsePageByCustomerId(customerId, null, null, null, Limit.of(10));
+
+        String plan = explain(lastStatement(), customerId, 10);
+        assertTrue(plan.contains("IDX_LOAN_CUSTOMER"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void payableInstallmentsUseLoanPaidDueIndex() {
+        LocalDate maxPayableDate = LocalDate.of(2025, 6, 30);
+        BigDecimal amount = new BigDecimal("400.00");
+        loanInstallmentRepository.findPayableByLoanId(loan.getId(), maxPayableDate, amount);
+
+        String plan = explain(lastStatement(), loan.getId(), maxPayableDate, amount);
+        assertTrue(plan.contains("IDX_INSTALLMENT_LOAN_PAID_DUE"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    // H2 backs fk_loan_installment_loan with its own index on exactly loan_id and may prefer it here,
+    // so this only checks for an index lookup on loan_id
+    @Test
+    void installmentRowsOfLoanUseLoanIndex() {
+        loanRepository.findInstallmentRowsByLoanId(loan.getId());
+
+        String plan = explain(lastStatement(), loan.getId());
+        assertTrue(plan.contains("LOAN_ID = L1_0.ID */"), plan);
+        assertFalse(plan.contains("LOAN_INSTALLMENT.tableScan"), plan);
+    }
+
+    @Test
+    void dueInstallmentScanUsesDueIndex() {
+        LocalDate from = LocalDate.of(2025, 4, 1);
+        LocalDate to = LocalDate.of(2025, 5, 1);
+        loanInstallmentRepository.findUnpaidDueBetween(from, to, Limit.of(50));
+
+        String plan = explain(lastStatement(), from, to, 50);
+        assertTrue(plan.contains("IDX_INSTALLMENT_PAID_DUE_ID"), plan);
+    }
+
+    @Test
+    void dueInstallmentScanAfterCursorUsesDueIndex() {
+        LocalDate from = LocalDate.of(2025, 4, 1);
+        LocalDate to = LocalDate.of(2025, 5, 1);
+        UUID afterId = UUID.randomUUID();
+        loanInstallmentRepository.findUnpaidDueBetweenAfter(from, to, from, afterId, Limit.of(50));
+
+        String plan = explain(lastStatement(), from, to, from, from, afterId, 50);
+        assertTrue(plan.contains("IDX_INSTALLMENT_PAID_DUE_ID"), plan);
+    }
+
+    private String lastStatement() {
+        List<String> statements = RecordingStatementInspector.STATEMENTS;
+        assertFalse(statements.isEmpty());
+        return statements.get(statements.size() - 1);
+    }
+
+    private String explain(String sql, Object... parameters) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class, parameters);
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
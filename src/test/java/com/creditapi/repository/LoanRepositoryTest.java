@@ -0,0 +1,245 @@
+package com.creditapi.repository;
+
+import com.creditapi.dto.LoanResponseDTO;
+import com.creditapi.model.Customer;
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import com.creditapi.util.AmortizationSchedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class LoanRepositoryTest {
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    private final UUID customerId = UUID.randomUUID();
+    private final List<Loan> saved = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 10; i++) {
+            saved.add(loanRepository.save(loan(customerId, i % 2 == 0 ? InstallmentOption.SIX : InstallmentOption.TWELVE, i % 3 == 0)));
+        }
+        loanRepository.save(loan(UUID.randomUUID(), InstallmentOption.SIX, false));
+    }
+
+    @Test
+    void shouldWalkAllLoansOfCustomerPageByPageInIdOrder() {
+        List<UUID> seen = new ArrayList<>();
+        UUID after = null;
+        do {
+            List<LoanResponseDTO> page = loanRepository.findResponsePageByCustomerId(customerId, null, null, after, Limit.of(3));
+            page.forEach(loan -> seen.add(loan.getId()));
+            after = page.size() == 3 ? page.get(2).getId() : null;
+        } while (after != null);
+
+        // Ids are UUIDv7, so id order is also insertion order
+        assertEquals(saved.stream().map(Loan::getId).toList(), seen);
+    }
+
+    @Test
+    void shouldApplyFiltersInQuery() {
+        List<LoanResponseDTO> loans = loanRepository.findResponsePageByCustomerId(customerId, InstallmentOption.SIX, true, null, Limit.unlimited());
+
+        // Indexes 0 and 6 are both SIX and paid
+        assertEquals(List.of(saved.get(0).getId(), saved.get(6).getId()), loans.stream().map(LoanResponseDTO::getId).toList());
+    }
+
+    @Test
+    void shouldApplyCursorTogetherWithFilters() {
+        List<LoanResponseDTO> loans = loanRepository.findResponsePageByCustomerId(customerId, InstallmentOption.TWELVE, null, saved.get(3).getId(), Limit.of(2));
+
+        assertEquals(List.of(saved.get(5).getId(), saved.get(7).getId()), loans.stream().map(LoanResponseDTO::getId).toList());
+    }
+
+    @Test
+    void shouldProjectLoansIntoResponseDtosWithComputedFields() {
+        UUID otherCustomer = UUID.randomUUID();
+        Loan loan = loan(otherCustomer, InstallmentOption.TWELVE, false);
+        loan.setLoanAmount(new BigDecimal("1234.56"));
+        loan.setInterestRate(0.1);
+        loanRepository.saveAndFlush(loan);
+        // createDate is set on persist; move it to a month end to check the month roll-over
+        loan.setCreateDate(LocalDateTime.of(2025, 12, 31, 23, 30));
+        loanRepository.saveAndFlush(loan);
+
+        List<LoanResponseDTO> dtos = loanRepository.findResponsePageByCustomerId(otherCustomer, null, null, null, Limit.unlimited());
+
+        assertEquals(1, dtos.size());
+        LoanResponseDTO dto = dtos.get(0);
+        assertEquals(loan.getId(), dto.getId());
+        assertEquals(otherCustomer, dto.getCustomerId());
+        assertEquals(12, dto.getNumberOfInstallments());
+        assertEquals(0.1, dto.getInterestRate());
+        assertFalse(dto.isPaid());
+        assertEquals(LocalDate.of(2025, 12, 31), dto.getCreateDate());
+        // 1234.56 * 1.1 = 1358.016
+        assertEquals(new BigDecimal("1358.02"), dto.getPaymentAmount());
+        assertEquals(LocalDate.of(2026, 1, 1), dto.getFirstPaymentDate());
+    }
+
+    @Test
+    void shouldStreamFilteredLoansInIdOrder() {
+        List<UUID> streamed;
+        try (Stream<LoanResponseDTO> loans = loanRepository.streamResponsesByCustomerId(customerId, InstallmentOption.TWELVE, null)) {
+            streamed = loans.map(LoanResponseDTO::getId).toList();
+        }
+
+        List<UUID> expected = loanRepository.findResponsePageByCustomerId(customerId, InstallmentOption.TWELVE, null, null, Limit.unlimited())
+            .stream().map(LoanResponseDTO::getId).toList();
+        assertEquals(5, streamed.size());
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    void shouldChangeListVersionWhenLoanIsAddedOrUpdated() {
+        customerRepository.save(customer(customerId));
+        UUID withoutLoans = customerRepository.save(customer(UUID.randomUUID())).getId();
+        String initial = loanRepository.findListVersionByCustomerId(customerId);
+        assertEquals("10-0", initial);
+
+        Loan loan = saved.get(1);
+        loan.setPaid(true);
+        loanRepository.saveAndFlush(loan);
+        String afterUpdate = loanRepository.findListVersionByCustomerId(customerId);
+        loanRepository.saveAndFlush(loan(customerId, InstallmentOption.SIX, false));
+        String afterInsert = loanRepository.findListVersionByCustomerId(customerId);
+
+        assertEquals("10-1", afterUpdate);
+        assertEquals("11-1", afterInsert);
+        assertEquals("0-0", loanRepository.findListVersionByCustomerId(withoutLoans));
+        assertNull(loanRepository.findListVersionByCustomerId(UUID.randomUUID()));
+    }
+
+    @Test
+    void shouldProjectTotalToBePaidAsPaymentAmount() {
+        assertEquals(0, new BigDecimal("1200").compareTo(
+            loanRepository.findResponsePageByCustomerId(customerId, null, null, null, Limit.of(1)).get(0).getPaymentAmount()));
+    }
+
+    @Test
+    void shouldProjectSamePaymentAmountAsCreation() {
+        UUID owner = UUID.randomUUID();
+        Loan loan = loan(owner, InstallmentOption.SIX, false);
+        loan.setLoanAmount(new BigDecimal("10000"));
+        // More decimals than a six digit cast of the rate would keep: 10000 * 1.123456789 = 11234.56789
+        loan.setInterestRate(0.123456789);
+        loanRepository.saveAndFlush(loan);
+
+        BigDecimal projected = loanRepository.findResponsePageByCustomerId(owner, null, null, null, Limit.unlimited()).get(0).getPaymentAmount();
+
+        assertEquals(new BigDecimal("11234.57"), projected);
+        assertEquals(AmortizationSchedule.paymentAmount(new BigDecimal("10000"), 0.123456789), projected);
+    }
+
+    @Test
+    void shouldAggregateUnpaidInstallmentsPerActiveLoan() {
+        UUID owner = UUID.randomUUID();
+        LocalDate today = LocalDate.of(2025, 3, 15);
+        // Paid in January, overdue in February and March, then due in April and May
+        Loan first = loanRepository.save(withInstallments(loan(owner, InstallmentOption.SIX, false), today,
+            new String[] {"100.00", "100.00", "100.00", "100.00", "100.50"}, 1));
+        Loan second = loanRepository.save(withInstallments(loan(owner, InstallmentOption.SIX, false), today,
+            new String[] {"50.00", "50.00", "50.00", "50.00", "50.00"}, 3));
+        loanRepository.save(withInstallments(loan(owner, InstallmentOption.SIX, true), today,
+            new String[] {"10.00", "10.00", "10.00", "10.00", "10.00"}, 5));
+        loanRepository.flush();
+
+        List<ActiveLoanBalance> balances = loanRepository.findActiveLoanBalancesByCustomerId(owner, today).stream()
+            .sorted(Comparator.comparing(ActiveLoanBalance::loanId))
+            .toList();
+
+        assertEquals(2, balances.size());
+        ActiveLoanBalance firstBalance = balances.get(0);
+        assertEquals(first.getId(), firstBalance.loanId());
+        assertEquals(0, new BigDecimal("400.50").compareTo(firstBalance.remainingPayable()));
+        assertEquals(2, firstBalance.overdueInstallments());
+        assertEquals(LocalDate.of(2025, 4, 1), firstBalance.nextDueDate());
+        assertEquals(0, new BigDecimal("100.00").compareTo(firstBalance.nextDueAmount()));
+        assertNull(firstBalance.scheduleData());
+
+        ActiveLoanBalance secondBalance = balances.get(1);
+        assertEquals(second.getId(), secondBalance.loanId());
+        assertEquals(0, new BigDecimal("100.00").compareTo(secondBalance.remainingPayable()));
+        assertEquals(0, secondBalance.overdueInstallments());
+        assertEquals(LocalDate.of(2025, 4, 1), secondBalance.nextDueDate());
+    }
+
+    @Test
+    void shouldReadInstallmentRowsOfSeveralLoansGroupedByLoan() {
+        LocalDate today = LocalDate.of(2025, 3, 15);
+        Loan first = loanRepository.save(withInstallments(loan(customerId, InstallmentOption.SIX, false), today,
+            new String[] {"100.00", "100.00", "100.00"}, 1));
+        Loan second = loanRepository.save(withInstallments(loan(customerId, InstallmentOption.SIX, false), today,
+            new String[] {"50.00", "50.00"}, 0));
+        Loan empty = loanRepository.save(loan(customerId, InstallmentOption.SIX, false));
+        loanRepository.flush();
+
+        List<InstallmentRow> rows = loanRepository.findInstallmentRowsByLoanIdIn(
+            List.of(first.getId(), second.getId(), empty.getId(), UUID.randomUUID()));
+
+        assertEquals(6, rows.size());
+        Map<UUID, List<InstallmentRow>> byLoan = rows.stream().collect(Collectors.groupingBy(InstallmentRow::loanId));
+        assertEquals(3, byLoan.get(first.getId()).size());
+        assertEquals(LocalDate.of(2025, 1, 1), byLoan.get(first.getId()).get(0).dueDate());
+        assertTrue(byLoan.get(first.getId()).get(0).isPaid());
+        assertEquals(LocalDate.of(2025, 3, 1), byLoan.get(first.getId()).get(2).dueDate());
+        assertEquals(2, byLoan.get(second.getId()).size());
+        assertEquals(1, byLoan.get(empty.getId()).size());
+        assertNull(byLoan.get(empty.getId()).get(0).id());
+    }
+
+    // Monthly installments from January of the year of today on; the first paidCount of them are paid
+    private static Loan withInstallments(Loan loan, LocalDate today, String[] amounts, int paidCount) {
+        for (int i = 0; i < amounts.length; i++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setLoan(loan);
+            installment.setAmount(new BigDecimal(amounts[i]));
+            installment.setDueDate(today.withDayOfYear(1).plusMonths(i));
+            installment.setPaid(i < paidCount);
+            installment.setPaidAmount(i < paidCount ? installment.getAmount() : BigDecimal.ZERO);
+            loan.getInstallments().add(installment);
+        }
+        return loan;
+    }
+
+    private static Customer customer(UUID id) {
+        Customer customer = new Customer();
+        customer.setId(id);
+        customer.setName("List");
+        customer.setSurname("Owner");
+        customer.setCreditLimit(new BigDecimal("10000"));
+        customer.setUsedCreditLimit(BigDecimal.ZERO);
+        return customer;
+    }
+
+    private static Loan loan(UUID customerId, InstallmentOption option, boolean paid) {
+        Loan loan = new Loan();
+        loan.setCustomerId(customerId);
+        loan.setLoanAmount(new BigDecimal("1000"));
+        loan.setInterestRate(0.2);
+        loan.setNumberOfInstallments(option);
+        loan.setPaid(paid);
+        return loan;
+    }
+}
@@ -0,0 +1,86 @@
+package com.creditapi.service;
+
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.util.AmortizationSchedule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmortizationScheduleEngineTest {
+    private final AmortizationScheduleEngine engine = new AmortizationScheduleEngine(16);
+
+    @Test
+    void splitsTotalAndFoldsRemainderIntoLastInstallment() {
+        AmortizationSchedule schedule = engine.scheduleFor(new BigDecimal("1000"), 0.1, InstallmentOption.TWELVE);
+
+        assertEquals(12, schedule.size());
+        assertEquals(0, new BigDecimal("1100.0").compareTo(schedule.totalToBePaid()));
+        assertEquals(new BigDecimal("91.67"), schedule.amount(0));
+        assertEquals(new BigDecimal("91.63"), schedule.amount(11));
+        BigDecimal sum = schedule.amounts().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, schedule.totalToBePaid().compareTo(sum));
+    }
+
+    @Test
+    void reportsWhatInstallmentsAddUpToAsPaymentAmount() {
+        // 1234.56 * 1.1 = 1358.016
+        AmortizationSchedule schedule = engine.scheduleFor(new BigDecimal("1234.56"), 0.1, InstallmentOption.TWELVE);
+
+        BigDecimal sum = schedule.amounts().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(new BigDecimal("1358.02"), schedule.paymentAmount());
+        assertEquals(sum, schedule.paymentAmount());
+        assertEquals(schedule.paymentAmount(), AmortizationSchedule.paymentAmount(new BigDecimal("1234.56"), 0.1));
+    }
+
+    @Test
+    void returnsSameScheduleForRepeatedCombination() {
+        AmortizationSchedule first = engine.scheduleFor(new BigDecimal("2400"), 0.2, InstallmentOption.SIX);
+        AmortizationSchedule second = engine.scheduleFor(new BigDecimal("2400"), 0.2, InstallmentOption.SIX);
+        AmortizationSchedule otherScale = engine.scheduleFor(new BigDecimal("2400.00"), 0.2, InstallmentOption.SIX);
+
+        assertSame(first, second);
+        assertNotSame(first, otherScale);
+    }
+
+    @Test
+    void matchesUncachedComputation() {
+        AmortizationSchedule cached = engine.scheduleFor(new BigDecimal("777.77"), 0.37, InstallmentOption.TWENTY_FOUR);
+        assertEquals(AmortizationSchedule.compute(new BigDecimal("777.77"), 0.37, InstallmentOption.TWENTY_FOUR), cached);
+    }
+
+    @Test
+    void centScheduleMatchesDecimalSplit() {
+        Random random = new Random(20251017L);
+        InstallmentOption[] options = InstallmentOption.values();
+        for (int i = 0; i < 20_000; i++) {
+            BigDecimal loanAmount = BigDecimal.valueOf(random.nextLong(1, 100_000_000), random.nextInt(3));
+            double interestRate = random.nextInt(1, 100) / 100.0;
+            InstallmentOption option = options[random.nextInt(options.length)];
+
+            AmortizationSchedule schedule = AmortizationSchedule.compute(loanAmount, interestRate, option);
+
+            // The split as it was done on BigDecimal before amounts moved to cents
+            int n = option.getValue();
+            BigDecimal total = loanAmount.multiply(BigDecimal.valueOf(1 + interestRate));
+            BigDecimal base = total.divide(BigDecimal.valueOf(n), 2, RoundingMode.HALF_UP);
+            BigDecimal last = base.add(total.subtract(base.multiply(BigDecimal.valueOf(n)))).setScale(2, RoundingMode.HALF_UP);
+            String context = loanAmount + " at " + interestRate + " over " + n;
+            assertEquals(base, schedule.amount(0), context);
+            assertEquals(last, schedule.amount(n - 1), context);
+        }
+    }
+
+    @Test
+    void resolvesDueDatesFromFirstDueDate() {
+        AmortizationSchedule schedule = engine.scheduleFor(new BigDecimal("900"), 0.1, InstallmentOption.NINE);
+        LocalDate firstDueDate = AmortizationSchedule.firstDueDate(LocalDate.of(2025, 1, 31));
+
+        assertEquals(LocalDate.of(2025, 2, 1), firstDueDate);
+        assertEquals(LocalDate.of(2025, 10, 1), schedule.dueDate(firstDueDate, 8));
+    }
+}
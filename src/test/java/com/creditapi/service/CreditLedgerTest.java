@@ -0,0 +1,185 @@
+package com.creditapi.service;
+
+import com.creditapi.exception.CustomerNotFoundException;
+import com.creditapi.exception.InsufficientCreditLimitException;
+import com.creditapi.model.Customer;
+import com.creditapi.repository.CustomerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CreditLedgerTest {
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private CreditLedger creditLedger;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setCreditLimit(new BigDecimal("1000"));
+        customer.setUsedCreditLimit(new BigDecimal("200"));
+        when(customerRepository.findById(customer.getId())).thenReturn(Optional.of(customer));
+        creditLedger = new CreditLedger(customerRepository, true, 600_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldLoadAccountLazilyAndRejectWithoutTouchingTheDatabaseAgain() {
+        creditLedger.reserve(customer.getId(), new BigDecimal("500"));
+        assertThrows(InsufficientCreditLimitException.class, () -> creditLedger.reserve(customer.getId(), new BigDecimal("301")));
+
+        assertEquals(0, new BigDecimal("300").compareTo(creditLedger.getAvailable(customer.getId())));
+        verify(customerRepository, times(1)).findById(customer.getId());
+    }
+
+    @Test
+    void shouldThrowWhenCustomerDoesNotExist() {
+        UUID unknown = UUID.randomUUID();
+        when(customerRepository.findById(unknown)).thenReturn(Optional.empty());
+        assertThrows(CustomerNotFoundException.class, () -> creditLedger.reserve(unknown, BigDecimal.ONE));
+    }
+
+    @Test
+    void shouldReleaseReservationWhenTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        creditLedger.reserve(customer.getId(), new BigDecimal("500"));
+        assertEquals(0, new BigDecimal("300").compareTo(creditLedger.getAvailable(customer.getId())));
+
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(0, new BigDecimal("800").compareTo(creditLedger.getAvailable(customer.getId())));
+        creditLedger.flush();
+        verify(customerRepository, never()).addToUsedCreditLimit(any(UUID.class), any(BigDecimal.class));
+    }
+
+    @Test
+    void shouldWriteCommittedReservationsBehindInOneUpdate() {
+        TransactionSynchronizationManager.initSynchronization();
+        creditLedger.reserve(customer.getId(), new BigDecimal("100"));
+        creditLedger.reserve(customer.getId(), new BigDecimal("50"));
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        creditLedger.flush();
+        creditLedger.flush();
+
+        verify(customerRepository, times(1)).addToUsedCreditLimit(customer.getId(), new BigDecimal("150"));
+    }
+
+    @Test
+    void shouldRequeueDeltaWhenFlushFails() {
+        creditLedger.reserve(customer.getId(), new BigDecimal("100"));
+        when(customerRepository.addToUsedCreditLimit(any(UUID.class), any(BigDecimal.class)))
+            .thenThrow(new IllegalStateException("database unavailable"))
+            .thenReturn(1);
+
+        creditLedger.flush();
+        creditLedger.flush();
+
+        verify(customerRepository, times(2)).addToUsedCreditLimit(customer.getId(), new BigDecimal("100"));
+    }
+
+    @Test
+    void shouldReconcileOnlyAccountsWithReservationsSinceLastFlush() {
+        creditLedger.reserve(customer.getId(), new BigDecimal("100"));
+        when(customerRepository.addToUsedCreditLimit(any(UUID.class), any(BigDecimal.class))).thenReturn(1);
+
+        creditLedger.flush();
+        creditLedger.flush();
+        creditLedger.flush();
+
+        // Loaded once, re-read once after the reservation, and left alone while it has nothing new
+        verify(customerRepository, times(2)).findById(customer.getId());
+    }
+
+    @Test
+    void shouldEvictIdleAccountsAndReloadThemOnNextReservation() {
+        creditLedger = new CreditLedger(customerRepository, true, 0);
+        creditLedger.reserve(customer.getId(), new BigDecimal("100"));
+        when(customerRepository.addToUsedCreditLimit(any(UUID.class), any(BigDecimal.class))).thenAnswer(invocation -> {
+            customer.setUsedCreditLimit(customer.getUsedCreditLimit().add(invocation.getArgument(1)));
+            return 1;
+        });
+
+        creditLedger.flush();
+
+        assertEquals(0, creditLedger.cachedAccounts());
+        creditLedger.reserve(customer.getId(), new BigDecimal("50"));
+        assertEquals(0, new BigDecimal("650").compareTo(creditLedger.getAvailable(customer.getId())));
+    }
+
+    @Test
+    void shouldKeepAccountsWithPendingReservations() {
+        creditLedger = new CreditLedger(customerRepository, true, 0);
+        TransactionSynchronizationManager.initSynchronization();
+        creditLedger.reserve(customer.getId(), new BigDecimal("100"));
+
+        creditLedger.flush();
+        assertEquals(1, creditLedger.cachedAccounts());
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+        creditLedger.flush();
+        assertEquals(0, creditLedger.cachedAccounts());
+        verify(customerRepository).addToUsedCreditLimit(customer.getId(), new BigDecimal("100"));
+    }
+
+    @Test
+    void shouldNeverOversubscribeUnderConcurrentReservations() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    try {
+                        creditLedger.reserve(customer.getId(), BigDecimal.ONE);
+                        accepted.incrementAndGet();
+                    } catch (InsufficientCreditLimitException e) {
+                        // expected once the 800 available are used up
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(800, accepted.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(creditLedger.getAvailable(customer.getId())));
+    }
+
+    private void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
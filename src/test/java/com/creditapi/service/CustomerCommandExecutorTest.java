@@ -0,0 +1,146 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.PayInstallmentRequestDTO;
+import com.creditapi.dto.PayInstallmentResponseDTO;
+import com.creditapi.exception.LoanNotFoundException;
+import com.creditapi.repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CustomerCommandExecutorTest {
+    private LoanService loanService;
+    private LoanRepository loanRepository;
+    private CustomerCommandExecutor commands;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        loanService = mock(LoanService.class);
+        loanRepository = mock(LoanRepository.class);
+        commands = new CustomerCommandExecutor(loanService, loanRepository, true, 1000);
+        callers = Executors.newFixedThreadPool(16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        commands.shutdown();
+    }
+
+    @Test
+    void runsCommandsOfOneCustomerOneAtATime() throws Exception {
+        UUID customerId = UUID.randomUUID();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(callers.submit(() -> commands.execute(customerId, () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.onSpinWait();
+                running.decrementAndGet();
+                return done.incrementAndGet();
+            })));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+
+        assertEquals(200, done.get());
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void runsDifferentCustomersInParallel() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        // Each command only finishes once the other customer's command has started as well
+        Future<Boolean> first = callers.submit(() -> commands.execute(UUID.randomUUID(), () -> awaitOther(bothStarted)));
+        Future<Boolean> second = callers.submit(() -> commands.execute(UUID.randomUUID(), () -> awaitOther(bothStarted)));
+
+        assertTrue(first.get(30, TimeUnit.SECONDS));
+        assertTrue(second.get(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void passesExceptionsToCallerAndKeepsMailboxWorking() {
+        UUID customerId = UUID.randomUUID();
+        IllegalArgumentException failure = new IllegalArgumentException("boom");
+
+        IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, () -> commands.execute(customerId, () -> {
+            throw failure;
+        }));
+
+        assertSame(failure, thrown);
+        assertEquals(42, commands.execute(customerId, () -> 42));
+    }
+
+    @Test
+    void retiresMailboxesOnceDrained() throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            UUID customerId = UUID.randomUUID();
+            futures.add(callers.submit(() -> commands.execute(customerId, () -> customerId)));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        // A mailbox is removed by its own thread right after the caller got its result
+        for (int attempt = 0; attempt < 100 && commands.activeMailboxes() > 0; attempt++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(0, commands.activeMailboxes());
+    }
+
+    @Test
+    void routesPaymentsByCachedLoanOwner() {
+        UUID loanId = UUID.randomUUID();
+        PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
+        PayInstallmentResponseDTO response = new PayInstallmentResponseDTO();
+        when(loanRepository.findCustomerIdById(loanId)).thenReturn(Optional.of(UUID.randomUUID()));
+        when(loanService.payInstallments(eq(loanId), any(PayInstallmentRequestDTO.class))).thenReturn(response);
+
+        assertSame(response, commands.payInstallments(loanId, request));
+        assertSame(response, commands.payInstallments(loanId, request));
+
+        verify(loanRepository, times(1)).findCustomerIdById(loanId);
+        verify(loanService, times(2)).payInstallments(loanId, request);
+    }
+
+    @Test
+    void rejectsPaymentForUnknownLoan() {
+        UUID loanId = UUID.randomUUID();
+        when(loanRepository.findCustomerIdById(loanId)).thenReturn(Optional.empty());
+
+        assertThrows(LoanNotFoundException.class, () -> commands.payInstallments(loanId, new PayInstallmentRequestDTO()));
+        verifyNoInteractions(loanService);
+    }
+
+    private static boolean awaitOther(CountDownLatch bothStarted) {
+        bothStarted.countDown();
+        try {
+            return bothStarted.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
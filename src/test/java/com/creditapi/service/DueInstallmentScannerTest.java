@@ -0,0 +1,109 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.DueInstallmentDTO;
+import com.creditapi.dto.DueInstallmentPageDTO;
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import com.creditapi.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(DueInstallmentScanner.class)
+class DueInstallmentScannerTest {
+    // Far from the dates other tests use, since some of them commit their loans
+    private static final LocalDate START = LocalDate.of(2090, 1, 1);
+
+    @Autowired
+    private DueInstallmentScanner scanner;
+    @Autowired
+    private LoanRepository loanRepository;
+
+    private final List<Loan> loans = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // Five loans with the same monthly due dates, so every date has ties to break on id
+        for (int l = 0; l < 5; l++) {
+            Loan loan = new Loan();
+            loan.setCustomerId(UUID.randomUUID());
+            loan.setLoanAmount(new BigDecimal("600"));
+            loan.setInterestRate(0.1);
+            loan.setNumberOfInstallments(InstallmentOption.SIX);
+            for (int m = 0; m < 6; m++) {
+                LoanInstallment installment = new LoanInstallment();
+                installment.setLoan(loan);
+                installment.setAmount(new BigDecimal("110.00"));
+                installment.setDueDate(START.plusMonths(m));
+                // The first month of every loan is already paid
+                installment.setPaid(m == 0);
+                installment.setPaidAmount(m == 0 ? installment.getAmount() : BigDecimal.ZERO);
+                loan.getInstallments().add(installment);
+            }
+            loans.add(loanRepository.save(loan));
+        }
+        loanRepository.flush();
+    }
+
+    @Test
+    void walksAllUnpaidInstallmentsInRangePageByPage() {
+        LocalDate from = START;
+        LocalDate to = START.plusMonths(3);
+
+        List<DueInstallmentDTO> walked = new ArrayList<>();
+        String after = null;
+        int pages = 0;
+        do {
+            DueInstallmentPageDTO page = scanner.scan(from, to, after, 4);
+            assertTrue(page.getInstallments().size() <= 4);
+            walked.addAll(page.getInstallments());
+            after = page.getNextCursor();
+            pages++;
+        } while (after != null);
+
+        // Months 1 to 3 of five loans
+        assertEquals(15, walked.size());
+        assertEquals(4, pages);
+        assertEquals(15, new HashSet<>(walked.stream().map(DueInstallmentDTO::getId).toList()).size());
+        List<DueInstallmentDTO> sorted = walked.stream()
+            .sorted(Comparator.comparing(DueInstallmentDTO::getDueDate).thenComparing(DueInstallmentDTO::getId))
+            .toList();
+        assertEquals(sorted, walked);
+        assertEquals(START.plusMonths(1), walked.get(0).getDueDate());
+        assertEquals(to, walked.get(14).getDueDate());
+        assertTrue(walked.stream().allMatch(installment -> installment.getPaidAmount().signum() == 0));
+    }
+
+    @Test
+    void returnsLoanAndCustomerOfEachInstallment() {
+        Loan loan = loans.get(0);
+
+        List<DueInstallmentDTO> due = scanner.scan(START.plusMonths(5), START.plusMonths(5), null, 10).getInstallments();
+
+        assertEquals(5, due.size());
+        DueInstallmentDTO installment = due.stream().filter(dto -> dto.getLoanId().equals(loan.getId())).findFirst().orElseThrow();
+        assertEquals(loan.getCustomerId(), installment.getCustomerId());
+        assertEquals(0, new BigDecimal("110.00").compareTo(installment.getAmount()));
+    }
+
+    @Test
+    void rejectsInvalidRangeAndCursor() {
+        assertThrows(IllegalArgumentException.class, () -> scanner.scan(START.plusDays(1), START, null, 10));
+        assertThrows(IllegalArgumentException.class, () -> scanner.scan(START, START, "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class, () -> scanner.scan(START, START, "2090-01-01_nope", 10));
+    }
+}
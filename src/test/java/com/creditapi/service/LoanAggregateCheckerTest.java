@@ -0,0 +1,104 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.LoanAggregateDriftDTO;
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import com.creditapi.repository.LoanRepository;
+import com.creditapi.util.LoanAggregates;
+import com.creditapi.util.ScheduleCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(LoanAggregateChecker.class)
+class LoanAggregateCheckerTest {
+    @Autowired
+    private LoanAggregateChecker checker;
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Test
+    void reportsOnlyLoansWhoseStoredTotalsDiffer() {
+        Loan consistentRows = rowLoan();
+        Loan driftedRows = rowLoan();
+        // A payment that updated an installment row but not its loan
+        driftedRows.getInstallments().get(1).setPaid(true);
+        Loan consistentEmbedded = embeddedLoan();
+        Loan driftedEmbedded = embeddedLoan();
+        driftedEmbedded.setOutstandingAmount(new BigDecimal("1.00"));
+        loanRepository.saveAllAndFlush(List.of(consistentRows, driftedRows, consistentEmbedded, driftedEmbedded));
+
+        Map<UUID, LoanAggregateDriftDTO> drifts = checker.check().stream()
+            .collect(Collectors.toMap(LoanAggregateDriftDTO::getLoanId, Function.identity()));
+
+        Set<UUID> seeded = Set.of(consistentRows.getId(), driftedRows.getId(), consistentEmbedded.getId(), driftedEmbedded.getId());
+        assertEquals(Set.of(driftedRows.getId(), driftedEmbedded.getId()),
+            drifts.keySet().stream().filter(seeded::contains).collect(Collectors.toSet()));
+
+        LoanAggregateDriftDTO rowDrift = drifts.get(driftedRows.getId());
+        assertEquals(1, rowDrift.getStored().paidInstallmentCount());
+        assertEquals(2, rowDrift.getActual().paidInstallmentCount());
+        assertEquals(0, new BigDecimal("200.00").compareTo(rowDrift.getActual().outstandingAmount()));
+        assertEquals(LocalDate.of(2025, 4, 1), rowDrift.getActual().nextDueDate());
+
+        LoanAggregateDriftDTO embeddedDrift = drifts.get(driftedEmbedded.getId());
+        assertEquals(0, new BigDecimal("1.00").compareTo(embeddedDrift.getStored().outstandingAmount()));
+        assertEquals(0, new BigDecimal("300.00").compareTo(embeddedDrift.getActual().outstandingAmount()));
+    }
+
+    // Four installments of 100 from February on, the first one paid, with matching stored totals
+    private static Loan rowLoan() {
+        Loan loan = loan();
+        for (LoanInstallment installment : installments()) {
+            installment.setLoan(loan);
+            loan.getInstallments().add(installment);
+        }
+        LoanAggregates.of(loan.getInstallments()).applyTo(loan);
+        return loan;
+    }
+
+    private static Loan embeddedLoan() {
+        Loan loan = loan();
+        List<LoanInstallment> installments = installments();
+        loan.setScheduleData(ScheduleCodec.encode(installments));
+        LoanAggregates.of(installments).applyTo(loan);
+        return loan;
+    }
+
+    private static List<LoanInstallment> installments() {
+        List<LoanInstallment> installments = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setAmount(new BigDecimal("100.00"));
+            installment.setPaid(i == 0);
+            installment.setPaidAmount(i == 0 ? new BigDecimal("100.00") : BigDecimal.ZERO);
+            installment.setDueDate(LocalDate.of(2025, 2, 1).plusMonths(i));
+            installments.add(installment);
+        }
+        return installments;
+    }
+
+    private static Loan loan() {
+        Loan loan = new Loan();
+        loan.setCustomerId(UUID.randomUUID());
+        loan.setLoanAmount(new BigDecimal("400"));
+        loan.setInterestRate(0.0);
+        loan.setNumberOfInstallments(InstallmentOption.SIX);
+        return loan;
+    }
+}
@@ -0,0 +1,124 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.LoanInstallmentDTO;
+import com.creditapi.exception.LoanNotFoundException;
+import com.creditapi.journal.LoanJournal;
+import com.creditapi.mapper.LoanMapperImpl;
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import com.creditapi.util.ScheduleCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Counts the statements Hibernate prepares while listing installments, starting from an empty persistence context
+ * so nothing is served from entities the test itself saved.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({LoanServiceImpl.class, LoanMapperImpl.class, CreditLedger.class, AmortizationScheduleEngine.class,
+    LoanListCache.class, LoanJournal.class, SimpleMeterRegistry.class})
+class LoanInstallmentListingQueryTest {
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void listsInstallmentRowsWithOneStatement() {
+        Loan loan = newLoan();
+        for (int m = 5; m >= 0; m--) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setLoan(loan);
+            installment.setAmount(new BigDecimal("200.00"));
+            installment.setPaidAmount(m == 0 ? new BigDecimal("200.00") : BigDecimal.ZERO);
+            installment.setPaid(m == 0);
+            installment.setDueDate(LocalDate.of(2025, 1, 1).plusMonths(m));
+            loan.getInstallments().add(installment);
+        }
+        UUID loanId = persist(loan);
+
+        List<LoanInstallmentDTO> installments = loanService.listInstallmentsByLoanId(loanId);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(6, installments.size());
+        assertEquals(LocalDate.of(2025, 1, 1), installments.get(0).getDueDate());
+        assertTrue(installments.get(0).isPaid());
+        assertEquals(LocalDate.of(2025, 6, 1), installments.get(5).getDueDate());
+        assertTrue(installments.stream().allMatch(dto -> loanId.equals(dto.getLoanId())));
+    }
+
+    @Test
+    void listsEmbeddedScheduleWithOneStatement() {
+        Loan loan = newLoan();
+        List<LoanInstallment> schedule = new ArrayList<>();
+        for (int m = 0; m < 3; m++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setAmount(new BigDecimal("400.00"));
+            installment.setPaidAmount(BigDecimal.ZERO);
+            installment.setDueDate(LocalDate.of(2025, 1, 1).plusMonths(m));
+            schedule.add(installment);
+        }
+        loan.setScheduleData(ScheduleCodec.encode(schedule));
+        UUID loanId = persist(loan);
+
+        List<LoanInstallmentDTO> installments = loanService.listInstallmentsByLoanId(loanId);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(3, installments.size());
+        assertEquals(loanId, installments.get(0).getLoanId());
+    }
+
+    @Test
+    void tellsEmptyScheduleApartFromMissingLoan() {
+        UUID loanId = persist(newLoan());
+
+        assertTrue(loanService.listInstallmentsByLoanId(loanId).isEmpty());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        assertThrows(LoanNotFoundException.class, () -> loanService.listInstallmentsByLoanId(UUID.randomUUID()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private Loan newLoan() {
+        Loan loan = new Loan();
+        loan.setCustomerId(UUID.randomUUID());
+        loan.setLoanAmount(new BigDecimal("1000"));
+        loan.setInterestRate(0.2);
+        loan.setNumberOfInstallments(InstallmentOption.SIX);
+        return loan;
+    }
+
+    private UUID persist(Loan loan) {
+        UUID loanId = entityManager.persistAndFlush(loan).getId();
+        entityManager.clear();
+        statistics.clear();
+        return loanId;
+    }
+}
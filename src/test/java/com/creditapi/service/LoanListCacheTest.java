@@ -0,0 +1,124 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.LoanResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoanListCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private LoanListCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new LoanListCache(meterRegistry, 100, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldCacheEachFilterCombinationSeparately() {
+        UUID customerId = UUID.randomUUID();
+
+        cache.get(customerId, null, null, "1-0", this::load);
+        cache.get(customerId, null, null, "1-0", this::load);
+        cache.get(customerId, 12, true, "1-0", this::load);
+        cache.get(customerId, 12, true, "1-0", this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", LoanListCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", LoanListCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void shouldEvictAllFilterCombinationsOfOneCustomerOnly() {
+        UUID customerId = UUID.randomUUID();
+        UUID otherCustomerId = UUID.randomUUID();
+        cache.get(customerId, null, null, "1-0", this::load);
+        cache.get(customerId, 6, false, "1-0", this::load);
+        cache.get(otherCustomerId, null, null, "1-0", this::load);
+
+        cache.evict(customerId);
+        cache.get(customerId, null, null, "1-0", this::load);
+        cache.get(customerId, 6, false, "1-0", this::load);
+        cache.get(otherCustomerId, null, null, "1-0", this::load);
+
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void shouldReloadWhenListVersionChangedBeforeEviction() {
+        UUID customerId = UUID.randomUUID();
+        cache.get(customerId, null, null, "1-0", this::load);
+
+        // A write committed but its after-commit eviction has not run yet
+        cache.get(customerId, null, null, "1-1", this::load);
+        cache.get(customerId, null, null, "1-1", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldNotCacheUnsupportedInstallmentFilter() {
+        UUID customerId = UUID.randomUUID();
+
+        cache.get(customerId, 7, null, "1-0", this::load);
+        cache.get(customerId, 7, null, "1-0", this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldEvictOnlyAfterCommitInsideTransaction() {
+        UUID customerId = UUID.randomUUID();
+        cache.get(customerId, null, null, "1-0", this::load);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.evictAfterCommit(customerId);
+        cache.get(customerId, null, null, "1-0", this::load);
+        assertEquals(1, loads.get());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        cache.get(customerId, null, null, "1-0", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldBoundCacheByNumberOfCachedLoans() throws InterruptedException {
+        SimpleMeterRegistry smallRegistry = new SimpleMeterRegistry();
+        LoanListCache small = new LoanListCache(smallRegistry, 10, Duration.ofMinutes(1));
+        for (int i = 0; i < 20; i++) {
+            small.get(UUID.randomUUID(), null, null, "1-0", () -> List.of(new LoanResponseDTO(), new LoanResponseDTO()));
+        }
+        // Caffeine evicts on its maintenance executor, so give it a moment
+        double evictions = 0;
+        for (int attempt = 0; attempt < 50 && evictions == 0; attempt++) {
+            Thread.sleep(20);
+            evictions = smallRegistry.get("cache.evictions").tag("cache", LoanListCache.CACHE_NAME).functionCounter().count();
+        }
+
+        assertTrue(evictions > 0);
+    }
+
+    private List<LoanResponseDTO> load() {
+        loads.incrementAndGet();
+        return List.of(new LoanResponseDTO());
+    }
+}
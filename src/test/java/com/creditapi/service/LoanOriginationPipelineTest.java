@@ -0,0 +1,185 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.LoanBatchCreateResponseDTO;
+import com.creditapi.dto.LoanCreateRequestDTO;
+import com.creditapi.dto.LoanCreateResponseDTO;
+import com.creditapi.dto.LoanOperationDTO;
+import com.creditapi.exception.InsufficientCreditLimitException;
+import com.creditapi.exception.OperationNotFoundException;
+import com.creditapi.exception.OriginationQueueFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class LoanOriginationPipelineTest {
+    private final LoanService loanService = mock(LoanService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private LoanOriginationPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void shouldCreateQueuedLoansInBatchesAndReportResults() throws Exception {
+        when(loanService.createLoans(anyList())).thenAnswer(invocation -> batchResponse(invocation.getArgument(0)));
+        pipeline = start(100, 1, 50, 50);
+
+        List<UUID> operationIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            operationIds.add(pipeline.submit(request(i == 3 ? "999999" : "1000")).getId());
+        }
+
+        for (UUID operationId : operationIds) {
+            awaitCompletion(operationId);
+        }
+        verify(loanService, atMost(2)).createLoans(anyList());
+        assertEquals(LoanOperationDTO.Status.FAILED, pipeline.getOperation(operationIds.get(3)).getStatus());
+        assertEquals("Insufficient credit limit", pipeline.getOperation(operationIds.get(3)).getError());
+        LoanOperationDTO succeeded = pipeline.getOperation(operationIds.get(0));
+        assertEquals(LoanOperationDTO.Status.SUCCEEDED, succeeded.getStatus());
+        assertEquals(0, new BigDecimal("1000").compareTo(succeeded.getLoan().getLoanAmount()));
+        assertNotNull(succeeded.getCompletedAt());
+    }
+
+    @Test
+    void shouldFallBackToSingleCreatesWhenBatchFails() throws Exception {
+        when(loanService.createLoans(anyList())).thenThrow(new OptimisticLockingFailureException("conflict"));
+        when(loanService.createLoan(any(LoanCreateRequestDTO.class))).thenAnswer(invocation -> {
+            LoanCreateRequestDTO request = invocation.getArgument(0);
+            if (request.getLoanAmount().compareTo(new BigDecimal("5000")) > 0) {
+                throw new InsufficientCreditLimitException("Insufficient credit limit");
+            }
+            return response(request);
+        });
+        pipeline = start(100, 1, 50, 50);
+
+        UUID ok = pipeline.submit(request("1000")).getId();
+        UUID rejected = pipeline.submit(request("9000")).getId();
+
+        awaitCompletion(ok);
+        awaitCompletion(rejected);
+        assertEquals(LoanOperationDTO.Status.SUCCEEDED, pipeline.getOperation(ok).getStatus());
+        assertEquals(LoanOperationDTO.Status.FAILED, pipeline.getOperation(rejected).getStatus());
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFullAndExposeDepth() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(loanService.createLoans(anyList())).thenAnswer(invocation -> {
+            blocked.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return batchResponse(invocation.getArgument(0));
+        });
+        pipeline = start(2, 1, 1, 0);
+
+        pipeline.submit(request("1000"));
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        pipeline.submit(request("1000"));
+        pipeline.submit(request("1000"));
+
+        assertEquals(2.0, meterRegistry.get("loan.origination.queue.depth").gauge().value());
+        assertThrows(OriginationQueueFullException.class, () -> pipeline.submit(request("1000")));
+        release.countDown();
+    }
+
+    @Test
+    void shouldKeepPendingOperationsBeyondMaxOperations() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(loanService.createLoans(anyList())).thenAnswer(invocation -> {
+            blocked.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return batchResponse(invocation.getArgument(0));
+        });
+        pipeline = start(10, 1, 1, 0, 1);
+
+        List<UUID> operationIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            operationIds.add(pipeline.submit(request("1000")).getId());
+        }
+        assertTrue(blocked.await(5, TimeUnit.SECONDS));
+
+        for (UUID operationId : operationIds) {
+            assertEquals(LoanOperationDTO.Status.PENDING, pipeline.getOperation(operationId).getStatus());
+        }
+        release.countDown();
+    }
+
+    @Test
+    void shouldThrowForUnknownOperation() {
+        pipeline = start(10, 1, 10, 0);
+        assertThrows(OperationNotFoundException.class, () -> pipeline.getOperation(UUID.randomUUID()));
+    }
+
+    private LoanOriginationPipeline start(int capacity, int workers, int batchSize, long lingerMs) {
+        return start(capacity, workers, batchSize, lingerMs, 10_000);
+    }
+
+    private LoanOriginationPipeline start(int capacity, int workers, int batchSize, long lingerMs, long maxOperations) {
+        LoanOriginationPipeline started = new LoanOriginationPipeline(loanService, meterRegistry, capacity, workers, batchSize, lingerMs, Duration.ofMinutes(5), maxOperations);
+        started.start();
+        return started;
+    }
+
+    private void awaitCompletion(UUID operationId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pipeline.getOperation(operationId).getStatus() == LoanOperationDTO.Status.PENDING) {
+            assertTrue(System.currentTimeMillis() < deadline, "Operation did not complete in time");
+            Thread.sleep(10);
+        }
+    }
+
+    private static LoanBatchCreateResponseDTO batchResponse(List<LoanCreateRequestDTO> requests) {
+        List<LoanBatchCreateResponseDTO.ItemResult> results = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            LoanBatchCreateResponseDTO.ItemResult result = new LoanBatchCreateResponseDTO.ItemResult();
+            result.setIndex(i);
+            if (requests.get(i).getLoanAmount().compareTo(new BigDecimal("10000")) > 0) {
+                result.setError("Insufficient credit limit");
+            } else {
+                result.setSuccess(true);
+                result.setLoan(response(requests.get(i)));
+            }
+            results.add(result);
+        }
+        LoanBatchCreateResponseDTO response = new LoanBatchCreateResponseDTO();
+        response.setResults(results);
+        return response;
+    }
+
+    private static LoanCreateResponseDTO response(LoanCreateRequestDTO request) {
+        LoanCreateResponseDTO response = new LoanCreateResponseDTO();
+        response.setId(UUID.randomUUID());
+        response.setCustomerId(request.getCustomerId());
+        response.setLoanAmount(request.getLoanAmount());
+        return response;
+    }
+
+    private static LoanCreateRequestDTO request(String amount) {
+        LoanCreateRequestDTO request = new LoanCreateRequestDTO();
+        request.setCustomerId(UUID.randomUUID());
+        request.setLoanAmount(new BigDecimal(amount));
+        request.setInterestRate(0.2);
+        request.setNumberOfInstallments(12);
+        return request;
+    }
+}
@@ -0,0 +1,229 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.PayInstallmentRequestDTO;
+import com.creditapi.dto.PayInstallmentResponseDTO;
+import com.creditapi.journal.LoanJournal;
+import com.creditapi.mapper.LoanMapperImpl;
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import com.creditapi.repository.InstallmentRow;
+import com.creditapi.repository.LoanRepository;
+import com.creditapi.util.LoanAggregates;
+import com.creditapi.util.ScheduleCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Pays row stored schedules against the database, where the eligible installments are selected and updated.
+ * Every payment commits, so concurrent payments really contend for the loan row lock, and quotes can be checked
+ * against the committed state.
+ */
+@DataJpaTest
+@Import({LoanServiceImpl.class, LoanMapperImpl.class, CreditLedger.class, AmortizationScheduleEngine.class,
+    LoanListCache.class, LoanJournal.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoanPaymentTest {
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Test
+    void paysCoveredInstallmentsInDueDateOrderWithRewardAndPenalty() {
+        LocalDate today = LocalDate.now();
+        // Overdue, due today, early, and one past the three month window
+        UUID loanId = saveLoan(List.of(today.minusDays(20), today, today.plusDays(15), today.plusMonths(5)), new BigDecimal("100.00"));
+
+        // Covers three installments and a remainder that does not cover the fourth
+        PayInstallmentResponseDTO response = loanService.payInstallments(loanId, request("350"));
+
+        assertEquals(3, response.getNumberOfInstallmentsPaid());
+        assertFalse(response.isLoanFullyPaid());
+        List<InstallmentRow> installments = installmentsOf(loanId);
+        assertEquals(0, new BigDecimal("102.00").compareTo(installments.get(0).paidAmount()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(installments.get(1).paidAmount()));
+        assertEquals(0, new BigDecimal("98.50").compareTo(installments.get(2).paidAmount()));
+        assertFalse(installments.get(3).isPaid());
+        assertTrue(installments.subList(0, 3).stream().allMatch(i -> i.isPaid() && today.equals(i.paymentDate())));
+        // The response reports exactly what was written
+        for (int k = 0; k < 3; k++) {
+            assertEquals(installments.get(k).id(), response.getPaidInstallments().get(k).getInstallmentId());
+            assertEquals(0, installments.get(k).paidAmount().compareTo(response.getPaidInstallments().get(k).getPaidAmount()));
+        }
+        assertEquals(0, new BigDecimal("300.50").compareTo(response.getTotalAmountSpent()));
+
+        Loan loan = loanRepository.findById(loanId).orElseThrow();
+        assertEquals(3, loan.getPaidInstallmentCount());
+        assertEquals(0, new BigDecimal("100.00").compareTo(loan.getOutstandingAmount()));
+        assertEquals(today.plusMonths(5), loan.getNextDueDate());
+        assertFalse(loan.isPaid());
+    }
+
+    @Test
+    void concurrentPaymentsNeverPayAnInstallmentTwice() throws Exception {
+        int installmentCount = InstallmentOption.TWENTY_FOUR.getValue();
+        LocalDate firstDueDate = LocalDate.now().minusMonths(installmentCount);
+        List<LocalDate> dueDates = new ArrayList<>();
+        for (int m = 0; m < installmentCount; m++) {
+            dueDates.add(firstDueDate.plusMonths(m));
+        }
+        UUID loanId = saveLoan(dueDates, new BigDecimal("50.00"));
+
+        // Every payment covers exactly one installment, so 24 payments racing each other must pay each one once
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<List<PayInstallmentResponseDTO>>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                List<PayInstallmentResponseDTO> responses = new ArrayList<>();
+                for (int p = 0; p < installmentCount / threads; p++) {
+                    responses.add(loanService.payInstallments(loanId, request("50")));
+                }
+                return responses;
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        Map<UUID, Integer> paidBy = new ConcurrentHashMap<>();
+        int fullyPaidResponses = 0;
+        for (Future<List<PayInstallmentResponseDTO>> result : results) {
+            for (PayInstallmentResponseDTO response : result.get()) {
+                assertEquals(1, response.getNumberOfInstallmentsPaid());
+                response.getPaidInstallments().forEach(detail -> paidBy.merge(detail.getInstallmentId(), 1, Integer::sum));
+                if (response.isLoanFullyPaid()) {
+                    fullyPaidResponses++;
+                }
+            }
+        }
+        assertEquals(installmentCount, paidBy.size());
+        assertTrue(paidBy.values().stream().allMatch(times -> times == 1));
+        assertEquals(1, fullyPaidResponses);
+
+        List<InstallmentRow> installments = installmentsOf(loanId);
+        assertTrue(installments.stream().allMatch(InstallmentRow::isPaid));
+        Set<UUID> ids = installments.stream().map(InstallmentRow::id).collect(Collectors.toSet());
+        assertEquals(ids, paidBy.keySet());
+        Loan loan = loanRepository.findById(loanId).orElseThrow();
+        assertEquals(installmentCount, loan.getPaidInstallmentCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(loan.getOutstandingAmount()));
+        assertTrue(loan.isPaid());
+    }
+
+    @Test
+    void quoteShowsWhatPaymentDoesWithoutWriting() {
+        LocalDate today = LocalDate.now();
+        List<LocalDate> dueDates = List.of(today.minusDays(20), today, today.plusDays(15), today.plusMonths(5));
+
+        assertQuoteMatchesPayment(saveLoan(dueDates, new BigDecimal("100.00")), "350");
+        assertQuoteMatchesPayment(saveLoan(dueDates.subList(0, 3), new BigDecimal("100.00")), "300");
+        assertQuoteMatchesPayment(saveEmbeddedLoan(dueDates), "350");
+        assertQuoteMatchesPayment(saveEmbeddedLoan(dueDates.subList(0, 3)), "300.009");
+        assertQuoteMatchesPayment(saveEmbeddedLoan(dueDates), "99.99");
+    }
+
+    // Quotes the amount, checks that the loan did not change, then pays it and compares both responses
+    private void assertQuoteMatchesPayment(UUID loanId, String amount) {
+        Loan before = loanRepository.findById(loanId).orElseThrow();
+        List<Boolean> paidBefore = installmentsOf(loanId).stream().map(InstallmentRow::isPaid).toList();
+
+        PayInstallmentResponseDTO quote = loanService.quotePayment(loanId, request(amount));
+
+        Loan after = loanRepository.findById(loanId).orElseThrow();
+        assertEquals(before.getVersion(), after.getVersion());
+        assertArrayEquals(before.getScheduleData(), after.getScheduleData());
+        assertEquals(paidBefore, installmentsOf(loanId).stream().map(InstallmentRow::isPaid).toList());
+
+        PayInstallmentResponseDTO payment = loanService.payInstallments(loanId, request(amount));
+
+        assertEquals(payment.getNumberOfInstallmentsPaid(), quote.getNumberOfInstallmentsPaid());
+        assertEquals(0, payment.getTotalAmountSpent().compareTo(quote.getTotalAmountSpent()));
+        assertEquals(payment.isLoanFullyPaid(), quote.isLoanFullyPaid());
+        assertEquals(payment.getPaidInstallments().size(), quote.getPaidInstallments().size());
+        for (int k = 0; k < payment.getPaidInstallments().size(); k++) {
+            PayInstallmentResponseDTO.InstallmentPaymentDetail paid = payment.getPaidInstallments().get(k);
+            PayInstallmentResponseDTO.InstallmentPaymentDetail quoted = quote.getPaidInstallments().get(k);
+            assertEquals(paid.getInstallmentId(), quoted.getInstallmentId());
+            assertEquals(0, paid.getPaidAmount().compareTo(quoted.getPaidAmount()));
+            assertEquals(paid.getPaymentDate(), quoted.getPaymentDate());
+            assertEquals(paid.isReward(), quoted.isReward());
+            assertEquals(paid.isPenalty(), quoted.isPenalty());
+        }
+    }
+
+    private UUID saveEmbeddedLoan(List<LocalDate> dueDates) {
+        Loan loan = new Loan();
+        loan.setCustomerId(UUID.randomUUID());
+        loan.setLoanAmount(new BigDecimal("100.00").multiply(BigDecimal.valueOf(dueDates.size())));
+        loan.setInterestRate(0.1);
+        loan.setNumberOfInstallments(InstallmentOption.SIX);
+        List<LoanInstallment> schedule = new ArrayList<>();
+        for (LocalDate dueDate : dueDates) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setAmount(new BigDecimal("100.00"));
+            installment.setPaidAmount(BigDecimal.ZERO);
+            installment.setDueDate(dueDate);
+            schedule.add(installment);
+        }
+        loan.setScheduleData(ScheduleCodec.encode(schedule));
+        LoanAggregates.of(schedule).applyTo(loan);
+        return loanRepository.save(loan).getId();
+    }
+
+    private UUID saveLoan(List<LocalDate> dueDates, BigDecimal amount) {
+        Loan loan = new Loan();
+        loan.setCustomerId(UUID.randomUUID());
+        loan.setLoanAmount(amount.multiply(BigDecimal.valueOf(dueDates.size())));
+        loan.setInterestRate(0.1);
+        loan.setNumberOfInstallments(InstallmentOption.SIX);
+        for (LocalDate dueDate : dueDates) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setLoan(loan);
+            installment.setAmount(amount);
+            installment.setPaidAmount(BigDecimal.ZERO);
+            installment.setDueDate(dueDate);
+            loan.getInstallments().add(installment);
+        }
+        LoanAggregates.of(loan.getInstallments()).applyTo(loan);
+        return loanRepository.save(loan).getId();
+    }
+
+    // Installment rows in due date order; the row a loan without installment rows comes back with is left out
+    private List<InstallmentRow> installmentsOf(UUID loanId) {
+        return loanRepository.findInstallmentRowsByLoanId(loanId).stream()
+            .filter(row -> row.id() != null)
+            .toList();
+    }
+
+    private static PayInstallmentRequestDTO request(String amount) {
+        PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
@@ -1,36 +1,54 @@
 package com.creditapi.service;
 
+import com.creditapi.dto.CustomerSummaryDTO;
+import com.creditapi.dto.LoanBatchCreateResponseDTO;
 import com.creditapi.dto.LoanCreateRequestDTO;
 import com.creditapi.dto.LoanCreateResponseDTO;
+import com.creditapi.dto.LoanPageDTO;
 import com.creditapi.dto.LoanResponseDTO;
 import com.creditapi.dto.PayInstallmentRequestDTO;
 import com.creditapi.dto.PayInstallmentResponseDTO;
 import com.creditapi.exception.CustomerNotFoundException;
 import com.creditapi.exception.InsufficientCreditLimitException;
 import com.creditapi.exception.LoanNotFoundException;
+import com.creditapi.journal.LoanJournal;
+import com.creditapi.dto.LoanInstallmentBatchGetResponseDTO;
 import com.creditapi.dto.LoanInstallmentDTO;
 import com.creditapi.mapper.LoanMapper;
 import com.creditapi.model.Customer;
 import com.creditapi.model.InstallmentOption;
 import com.creditapi.model.Loan;
 import com.creditapi.model.LoanInstallment;
+import com.creditapi.repository.ActiveLoanBalance;
 import com.creditapi.repository.CustomerRepository;
+import com.creditapi.repository.InstallmentRow;
 import com.creditapi.repository.LoanInstallmentRepository;
 import com.creditapi.repository.LoanRepository;
+import com.creditapi.repository.PayableInstallment;
+import com.creditapi.util.LoanAggregates;
+import com.creditapi.util.Money;
+import com.creditapi.util.ScheduleCodec;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -45,6 +63,14 @@ class LoanServiceTest {
     private LoanMapper loanMapper;
     @Mock
     private LoanInstallmentRepository loanInstallmentRepository;
+    @Mock
+    private CreditLedger creditLedger;
+    @Mock
+    private LoanJournal loanJournal;
+    @Spy
+    private AmortizationScheduleEngine scheduleEngine = new AmortizationScheduleEngine(16);
+    @Spy
+    private LoanListCache loanListCache = new LoanListCache(new SimpleMeterRegistry(), 1000, Duration.ofSeconds(30));
     @InjectMocks
     private LoanServiceImpl loanService;
 
@@ -133,36 +159,94 @@ class LoanServiceTest {
         // Arrange
         UUID customerId = UUID.randomUUID();
         when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
-        Loan loan1 = new Loan();
-        loan1.setCustomerId(customerId);
-        loan1.setLoanAmount(new BigDecimal("1000"));
-        loan1.setInterestRate(0.2);
-        loan1.setNumberOfInstallments(InstallmentOption.TWELVE);
-        Loan loan2 = new Loan();
-        loan2.setCustomerId(customerId);
-        loan2.setLoanAmount(new BigDecimal("2000"));
-        loan2.setInterestRate(0.1);
-        loan2.setNumberOfInstallments(InstallmentOption.NINE);
-        List<Loan> expectedLoans = Arrays.asList(loan1, loan2);
-        when(loanRepository.findByCustomerId(customerId)).thenReturn(expectedLoans);
-        when(loanMapper.toResponseDto(any(Loan.class))).thenAnswer(invocation -> {
-            Loan loan = invocation.getArgument(0);
-            LoanResponseDTO dto = new LoanResponseDTO();
-            dto.setCustomerId(loan.getCustomerId());
-            dto.setLoanAmount(loan.getLoanAmount());
-            dto.setInterestRate(loan.getInterestRate());
-            dto.setNumberOfInstallments(loan.getNumberOfInstallments().getValue()); // Use integer for DTO
-            return dto;
-        });
+        LoanResponseDTO loan1 = projectedLoan(customerId, new BigDecimal("1000"), InstallmentOption.TWELVE, 0.2, false);
+        LoanResponseDTO loan2 = projectedLoan(customerId, new BigDecimal("2000"), InstallmentOption.NINE, 0.1, false);
+        List<LoanResponseDTO> expectedLoans = Arrays.asList(loan1, loan2);
+        when(loanRepository.findResponsePageByCustomerId(customerId, null, null, null, Limit.unlimited())).thenReturn(expectedLoans);
 
         // Act
-        List<LoanResponseDTO> loans = loanService.listLoansByCustomerId(customerId, null, null);
+        List<LoanResponseDTO> loans = loanService.listLoansByCustomerId(customerId, null, null, "1-0");
 
         // Assert
         assertNotNull(loans);
         assertEquals(2, loans.size());
         assertTrue(loans.stream().allMatch(l -> l.getCustomerId().equals(customerId)));
-        verify(loanRepository, times(1)).findByCustomerId(customerId);
+        verify(loanRepository, times(1)).findResponsePageByCustomerId(customerId, null, null, null, Limit.unlimited());
+        verifyNoInteractions(loanMapper);
+    }
+
+    @Test
+    void shouldServeRepeatedListFromCache() {
+        UUID customerId = UUID.randomUUID();
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        when(loanRepository.findResponsePageByCustomerId(customerId, null, false, null, Limit.unlimited()))
+            .thenReturn(List.of(projectedLoan(customerId, new BigDecimal("1000"), InstallmentOption.SIX, 0.2, false)));
+
+        List<LoanResponseDTO> first = loanService.listLoansByCustomerId(customerId, null, false, "1-0");
+        List<LoanResponseDTO> second = loanService.listLoansByCustomerId(customerId, null, false, "1-0");
+
+        assertEquals(first, second);
+        verify(customerRepository, times(1)).findById(customerId);
+        verify(loanRepository, times(1)).findResponsePageByCustomerId(customerId, null, false, null, Limit.unlimited());
+    }
+
+    @Test
+    void shouldReloadCachedListWhenListVersionChanges() {
+        UUID customerId = UUID.randomUUID();
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        when(loanRepository.findResponsePageByCustomerId(customerId, null, null, null, Limit.unlimited()))
+            .thenReturn(List.of(projectedLoan(customerId, new BigDecimal("1000"), InstallmentOption.SIX, 0.2, false)));
+
+        loanService.listLoansByCustomerId(customerId, null, null, "1-0");
+        loanService.listLoansByCustomerId(customerId, null, null, "1-0");
+        loanService.listLoansByCustomerId(customerId, null, null, "1-1");
+
+        verify(loanRepository, times(2)).findResponsePageByCustomerId(customerId, null, null, null, Limit.unlimited());
+    }
+
+    @Test
+    void shouldThrowWhenReadingListVersionOfUnknownCustomer() {
+        UUID customerId = UUID.randomUUID();
+        when(loanRepository.findListVersionByCustomerId(customerId)).thenReturn(null);
+
+        assertThrows(CustomerNotFoundException.class, () -> loanService.getLoanListVersion(customerId));
+    }
+
+    @Test
+    void shouldThrowWhenReadingInstallmentsVersionOfUnknownLoan() {
+        UUID loanId = UUID.randomUUID();
+        when(loanRepository.findVersionById(loanId)).thenReturn(Optional.empty());
+
+        assertThrows(LoanNotFoundException.class, () -> loanService.getInstallmentsVersion(loanId));
+    }
+
+    @Test
+    void shouldReloadListAfterLoanIsCreatedForCustomer() {
+        when(customerRepository.findById(customer.getId())).thenReturn(Optional.of(customer));
+        when(loanRepository.findResponsePageByCustomerId(customer.getId(), null, null, null, Limit.unlimited())).thenReturn(List.of());
+        when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(loanMapper.toEntity(any(LoanCreateRequestDTO.class))).thenAnswer(invocation -> {
+            LoanCreateRequestDTO dto = invocation.getArgument(0);
+            Loan loan = new Loan();
+            loan.setCustomerId(dto.getCustomerId());
+            loan.setLoanAmount(dto.getLoanAmount());
+            loan.setInterestRate(dto.getInterestRate());
+            loan.setNumberOfInstallments(InstallmentOption.SIX);
+            return loan;
+        });
+        LoanCreateRequestDTO request = new LoanCreateRequestDTO();
+        request.setCustomerId(customer.getId());
+        request.setLoanAmount(new BigDecimal("1000"));
+        request.setInterestRate(0.2);
+        request.setNumberOfInstallments(6);
+
+        loanService.listLoansByCustomerId(customer.getId(), null, null, "1-0");
+        loanService.createLoan(request);
+        // Same version on purpose: the eviction on create alone makes the next listing reload
+        loanService.listLoansByCustomerId(customer.getId(), null, null, "1-0");
+
+        verify(loanListCache).evictAfterCommit(customer.getId());
+        verify(loanRepository, times(2)).findResponsePageByCustomerId(customer.getId(), null, null, null, Limit.unlimited());
     }
 
     @Test
@@ -181,13 +265,16 @@ class LoanServiceTest {
         loanEntity.setNumberOfInstallments(InstallmentOption.TWELVE);
         when(loanMapper.toEntity(any(LoanCreateRequestDTO.class))).thenReturn(loanEntity);
         when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(loanInstallmentRepository.save(any(LoanInstallment.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         loanService.createLoan(LoanCreateRequestDTO);
 
         // Assert
         verify(loanInstallmentRepository, times(12)).save(any(LoanInstallment.class));
+        // The running totals start out as the whole schedule
+        assertEquals(0, loanEntity.getPaidInstallmentCount());
+        assertEquals(0, new BigDecimal("1440.00").compareTo(loanEntity.getOutstandingAmount()));
+        assertEquals(LocalDate.now().withDayOfMonth(1).plusMonths(1), loanEntity.getNextDueDate());
     }
 
     @Test
@@ -206,7 +293,6 @@ class LoanServiceTest {
         loanEntity.setNumberOfInstallments(InstallmentOption.TWELVE);
         when(loanMapper.toEntity(any(LoanCreateRequestDTO.class))).thenReturn(loanEntity);
         when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(loanInstallmentRepository.save(any(LoanInstallment.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         loanService.createLoan(LoanCreateRequestDTO);
@@ -239,7 +325,6 @@ class LoanServiceTest {
         loanEntity.setNumberOfInstallments(InstallmentOption.SIX);
         when(loanMapper.toEntity(any(LoanCreateRequestDTO.class))).thenReturn(loanEntity);
         when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(loanInstallmentRepository.save(any(LoanInstallment.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         loanService.createLoan(LoanCreateRequestDTO);
@@ -303,38 +388,21 @@ class LoanServiceTest {
         // Arrange
         UUID customerId = UUID.randomUUID();
         when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
-        Loan loan = new Loan();
-        loan.setCustomerId(customerId);
-        loan.setLoanAmount(new BigDecimal("1000"));
-        loan.setInterestRate(0.2);
-        loan.setNumberOfInstallments(InstallmentOption.TWELVE);
-        // Set createDate for correct firstPaymentDate calculation
-        loan.setCreateDate(java.time.LocalDate.of(2025, 6, 22).atStartOfDay());
-        // Create installments with known due dates
-        LoanInstallment inst1 = new LoanInstallment();
-        inst1.setDueDate(java.time.LocalDate.of(2025, 7, 1));
-        LoanInstallment inst2 = new LoanInstallment();
-        inst2.setDueDate(java.time.LocalDate.of(2025, 8, 1));
-        loan.setInstallments(Arrays.asList(inst1, inst2));
-        when(loanRepository.findByCustomerId(customerId)).thenReturn(List.of(loan));
-        when(loanMapper.toResponseDto(any(Loan.class))).thenAnswer(invocation -> {
-            Loan l = invocation.getArgument(0);
-            LoanResponseDTO dto = new LoanResponseDTO();
-            dto.setCustomerId(l.getCustomerId());
-            dto.setLoanAmount(l.getLoanAmount());
-            dto.setInterestRate(l.getInterestRate());
-            dto.setNumberOfInstallments(l.getNumberOfInstallments().getValue()); // Use integer for DTO
-            return dto;
-        });
+        // The computed columns come from the projection query itself (see LoanRepositoryTest), the service passes them through
+        LoanResponseDTO projected = new LoanResponseDTO(UUID.randomUUID(), customerId, new BigDecimal("1000"), InstallmentOption.TWELVE, 0.2,
+                java.time.LocalDate.of(2025, 6, 22), false, new BigDecimal("1200.00"), java.time.LocalDate.of(2025, 7, 1),
+                0, new BigDecimal("1200.00"), java.time.LocalDate.of(2025, 7, 1));
+        when(loanRepository.findResponsePageByCustomerId(customerId, null, null, null, Limit.unlimited())).thenReturn(List.of(projected));
 
         // Act
-        List<LoanResponseDTO> result = loanService.listLoansByCustomerId(customerId, null, null);
+        List<LoanResponseDTO> result = loanService.listLoansByCustomerId(customerId, null, null, "1-0");
 
         // Assert
         assertEquals(1, result.size());
         LoanResponseDTO dto = result.get(0);
         assertTrue(new BigDecimal("1200.0").compareTo(dto.getPaymentAmount()) == 0); // 1000 * 1.2
         assertEquals(java.time.LocalDate.of(2025, 7, 1), dto.getFirstPaymentDate());
+        assertEquals(12, dto.getNumberOfInstallments());
     }
 
     @Test
@@ -360,33 +428,12 @@ class LoanServiceTest {
         // Arrange
         UUID customerId = UUID.randomUUID();
         when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
-        Loan loan1 = new Loan();
-        loan1.setCustomerId(customerId);
-        loan1.setLoanAmount(new BigDecimal("1000"));
-        loan1.setInterestRate(0.2);
-        loan1.setNumberOfInstallments(InstallmentOption.TWELVE);
-        loan1.setPaid(false);
-        Loan loan2 = new Loan();
-        loan2.setCustomerId(customerId);
-        loan2.setLoanAmount(new BigDecimal("2000"));
-        loan2.setInterestRate(0.2);
-        loan2.setNumberOfInstallments(InstallmentOption.TWELVE);
-        loan2.setPaid(true);
-        List<Loan> allLoans = Arrays.asList(loan1, loan2);
-        when(loanRepository.findByCustomerId(customerId)).thenReturn(allLoans);
-        when(loanMapper.toResponseDto(any(Loan.class))).thenAnswer(invocation -> {
-            Loan loan = invocation.getArgument(0);
-            LoanResponseDTO dto = new LoanResponseDTO();
-            dto.setCustomerId(loan.getCustomerId());
-            dto.setLoanAmount(loan.getLoanAmount());
-            dto.setInterestRate(loan.getInterestRate());
-            dto.setNumberOfInstallments(loan.getNumberOfInstallments().getValue());
-            dto.setPaid(loan.isPaid());
-            return dto;
-        });
+        // Filters are applied by the repository query, so only the matching loan comes back
+        LoanResponseDTO loan2 = projectedLoan(customerId, new BigDecimal("2000"), InstallmentOption.TWELVE, 0.2, true);
+        when(loanRepository.findResponsePageByCustomerId(customerId, InstallmentOption.TWELVE, true, null, Limit.unlimited())).thenReturn(List.of(loan2));
 
         // Act
-        List<LoanResponseDTO> filtered = loanService.listLoansByCustomerId(customerId, 12, true);
+        List<LoanResponseDTO> filtered = loanService.listLoansByCustomerId(customerId, 12, true, "1-0");
 
         // Assert
         assertEquals(1, filtered.size());
@@ -396,42 +443,93 @@ class LoanServiceTest {
         assertEquals(12, dto.getNumberOfInstallments());
     }
 
+    @Test
+    void shouldReturnEmptyListForUnsupportedInstallmentFilter() {
+        UUID customerId = UUID.randomUUID();
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+
+        List<LoanResponseDTO> filtered = loanService.listLoansByCustomerId(customerId, 7, null, "1-0");
+
+        assertTrue(filtered.isEmpty());
+        verify(loanRepository, never()).findResponsePageByCustomerId(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldReturnKeysetPageWithNextCursor() {
+        UUID customerId = UUID.randomUUID();
+        UUID after = UUID.randomUUID();
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        List<LoanResponseDTO> rows = new java.util.ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rows.add(projectedLoan(customerId, new BigDecimal("1000"), InstallmentOption.SIX, 0.2, false));
+        }
+        when(loanRepository.findResponsePageByCustomerId(customerId, InstallmentOption.SIX, false, after, Limit.of(3))).thenReturn(rows);
+
+        LoanPageDTO page = loanService.listLoansByCustomerId(customerId, 6, false, after, 2);
+
+        assertEquals(2, page.getLoans().size());
+        assertEquals(rows.get(1).getId(), page.getNextCursor());
+        assertEquals(rows.get(0).getId(), page.getLoans().get(0).getId());
+    }
+
+    @Test
+    void shouldNotReturnCursorOnLastPage() {
+        UUID customerId = UUID.randomUUID();
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        LoanResponseDTO loan = projectedLoan(customerId, new BigDecimal("1000"), InstallmentOption.SIX, 0.2, false);
+        when(loanRepository.findResponsePageByCustomerId(customerId, null, null, null, Limit.of(11))).thenReturn(List.of(loan));
+
+        LoanPageDTO page = loanService.listLoansByCustomerId(customerId, null, null, null, 10);
+
+        assertEquals(1, page.getLoans().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void shouldExportLoansToSinkAndCloseStream() {
+        UUID customerId = UUID.randomUUID();
+        List<LoanResponseDTO> rows = List.of(
+            projectedLoan(customerId, new BigDecimal("1000"), InstallmentOption.SIX, 0.2, false),
+            projectedLoan(customerId, new BigDecimal("2000"), InstallmentOption.SIX, 0.2, false));
+        boolean[] closed = {false};
+        when(loanRepository.streamResponsesByCustomerId(customerId, InstallmentOption.SIX, false))
+            .thenReturn(rows.stream().onClose(() -> closed[0] = true));
+
+        List<LoanResponseDTO> exported = new java.util.ArrayList<>();
+        loanService.exportLoansByCustomerId(customerId, 6, false, exported::add);
+
+        assertEquals(rows, exported);
+        assertTrue(closed[0]);
+    }
+
+    @Test
+    void shouldExportNothingForUnsupportedInstallmentFilter() {
+        List<LoanResponseDTO> exported = new java.util.ArrayList<>();
+        loanService.exportLoansByCustomerId(UUID.randomUUID(), 7, null, exported::add);
+
+        assertTrue(exported.isEmpty());
+        verifyNoInteractions(loanRepository);
+    }
+
     @Test
     void shouldListInstallmentsForGivenLoan() {
         // Arrange
         UUID loanId = UUID.randomUUID();
-        Loan loan = new Loan();
-        loan.setId(loanId);
-        LoanInstallment inst1 = new LoanInstallment();
-        inst1.setId(UUID.randomUUID());
-        inst1.setLoan(loan);
-        inst1.setAmount(new java.math.BigDecimal("100"));
-        inst1.setPaidAmount(java.math.BigDecimal.ZERO);
-        inst1.setDueDate(java.time.LocalDate.of(2025, 7, 1));
-        inst1.setPaid(false);
-        LoanInstallment inst2 = new LoanInstallment();
-        inst2.setId(UUID.randomUUID());
-        inst2.setLoan(loan);
-        inst2.setAmount(new java.math.BigDecimal("100"));
-        inst2.setPaidAmount(java.math.BigDecimal.ZERO);
-        inst2.setDueDate(java.time.LocalDate.of(2025, 8, 1));
-        inst2.setPaid(false);
-        java.util.List<LoanInstallment> entityList = java.util.Arrays.asList(inst1, inst2);
-        java.util.List<LoanInstallmentDTO> expected = new java.util.ArrayList<>();
-        for (LoanInstallment entity : entityList) {
+        InstallmentRow row1 = new InstallmentRow(loanId, null, UUID.randomUUID(), new java.math.BigDecimal("100"),
+            java.math.BigDecimal.ZERO, java.time.LocalDate.of(2025, 7, 1), null, false);
+        InstallmentRow row2 = new InstallmentRow(loanId, null, UUID.randomUUID(), new java.math.BigDecimal("100"),
+            java.math.BigDecimal.ZERO, java.time.LocalDate.of(2025, 8, 1), null, false);
+        java.util.List<InstallmentRow> rows = java.util.Arrays.asList(row1, row2);
+        for (InstallmentRow row : rows) {
             LoanInstallmentDTO dto = new LoanInstallmentDTO();
-            dto.setId(entity.getId());
+            dto.setId(row.id());
             dto.setLoanId(loanId);
-            dto.setAmount(entity.getAmount());
-            dto.setPaidAmount(entity.getPaidAmount());
-            dto.setDueDate(entity.getDueDate());
-            dto.setPaid(entity.isPaid());
-            expected.add(dto);
-            when(loanMapper.toLoanInstallmentDTO(entity)).thenReturn(dto);
+            dto.setAmount(row.amount());
+            dto.setPaidAmount(row.paidAmount());
+            dto.setDueDate(row.dueDate());
+            when(loanMapper.toLoanInstallmentDTO(row)).thenReturn(dto);
         }
-        when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(entityList);
-        when(loanRepository.existsById(loanId)).thenReturn(true);
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
+        when(loanRepository.findInstallmentRowsByLoanId(loanId)).thenReturn(rows);
 
         // Act
         java.util.List<LoanInstallmentDTO> result = loanService.listInstallmentsByLoanId(loanId);
@@ -439,9 +537,62 @@ class LoanServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(2, result.size());
-        assertEquals(expected.get(0).getId(), result.get(0).getId());
-        assertEquals(expected.get(1).getId(), result.get(1).getId());
-        verify(loanInstallmentRepository, times(1)).findByLoanId(loanId);
+        assertEquals(row1.id(), result.get(0).getId());
+        assertEquals(row2.id(), result.get(1).getId());
+        verify(loanRepository, never()).findById(any());
+        verifyNoInteractions(loanInstallmentRepository);
+    }
+
+    @Test
+    void shouldThrowWhenListingInstallmentsOfMissingLoan() {
+        UUID loanId = UUID.randomUUID();
+        when(loanRepository.findInstallmentRowsByLoanId(loanId)).thenReturn(List.of());
+
+        assertThrows(LoanNotFoundException.class, () -> loanService.listInstallmentsByLoanId(loanId));
+    }
+
+    @Test
+    void shouldListNoInstallmentsForEmptySchedule() {
+        UUID loanId = UUID.randomUUID();
+        when(loanRepository.findInstallmentRowsByLoanId(loanId))
+            .thenReturn(List.of(new InstallmentRow(loanId, null, null, null, null, null, null, null)));
+
+        assertTrue(loanService.listInstallmentsByLoanId(loanId).isEmpty());
+        verify(loanMapper, never()).toLoanInstallmentDTO(any(InstallmentRow.class));
+    }
+
+    @Test
+    void shouldBatchGetInstallmentsKeyedByLoanIdInRequestOrder() {
+        UUID rowsLoanId = UUID.randomUUID();
+        UUID embeddedLoanId = UUID.randomUUID();
+        UUID emptyLoanId = UUID.randomUUID();
+        UUID missingLoanId = UUID.randomUUID();
+        InstallmentRow row = new InstallmentRow(rowsLoanId, null, UUID.randomUUID(), new BigDecimal("100"),
+            BigDecimal.ZERO, LocalDate.of(2025, 7, 1), null, false);
+        LoanInstallment encoded = new LoanInstallment();
+        encoded.setAmount(new BigDecimal("50.00"));
+        encoded.setPaidAmount(BigDecimal.ZERO);
+        encoded.setDueDate(LocalDate.of(2025, 7, 1));
+        byte[] scheduleData = ScheduleCodec.encode(List.of(encoded, encoded));
+        List<UUID> requested = List.of(missingLoanId, rowsLoanId, embeddedLoanId, emptyLoanId, rowsLoanId);
+        when(loanRepository.findInstallmentRowsByLoanIdIn(any())).thenReturn(List.of(
+            row,
+            new InstallmentRow(embeddedLoanId, scheduleData, null, null, null, null, null, null),
+            new InstallmentRow(emptyLoanId, null, null, null, null, null, null, null)));
+        when(loanMapper.toLoanInstallmentDTO(row)).thenReturn(new LoanInstallmentDTO());
+        when(loanMapper.toLoanInstallmentDTO(any(LoanInstallment.class))).thenReturn(new LoanInstallmentDTO());
+
+        LoanInstallmentBatchGetResponseDTO response = loanService.listInstallmentsByLoanIds(requested);
+
+        assertEquals(List.of(rowsLoanId, embeddedLoanId, emptyLoanId), List.copyOf(response.getInstallments().keySet()));
+        assertEquals(1, response.getInstallments().get(rowsLoanId).size());
+        assertEquals(2, response.getInstallments().get(embeddedLoanId).size());
+        assertTrue(response.getInstallments().get(emptyLoanId).isEmpty());
+        assertEquals(List.of(missingLoanId), response.getNotFound());
+        // Duplicates are asked for once, all in the same query
+        verify(loanRepository, times(1)).findInstallmentRowsByLoanIdIn(
+            argThat(ids -> ids.size() == 4 && ids.containsAll(requested)));
+        verifyNoInteractions(loanInstallmentRepository);
     }
 
     @Test
@@ -463,24 +614,30 @@ class LoanServiceTest {
             inst.setPaid(false);
             installments.add(inst);
         }
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(installments);
-        when(loanInstallmentRepository.save(any(LoanInstallment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LoanAggregates.of(installments).applyTo(loan);
+        when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
+        stubInstallmentRows(loanId, installments);
         PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
         request.setAmount(new BigDecimal("100"));
         PayInstallmentResponseDTO response = loanService.payInstallments(loanId, request);
         assertEquals(1, response.getNumberOfInstallmentsPaid());
-        assertEquals(new BigDecimal("100"), response.getTotalAmountSpent());
+        assertEquals(0, new BigDecimal("100").compareTo(response.getTotalAmountSpent()));
         assertFalse(response.isLoanFullyPaid());
         assertTrue(installments.get(0).isPaid());
         assertNotNull(installments.get(0).getPaymentDate());
-        assertEquals(new BigDecimal("100"), installments.get(0).getPaidAmount());
+        assertEquals(0, new BigDecimal("100").compareTo(installments.get(0).getPaidAmount()));
         assertFalse(loan.isPaid());
 
-        // Verify that loanInstallmentRepository.save is called for the paid installment
-        verify(loanInstallmentRepository, times(1)).save(installments.get(0));
-        // Verify that loanRepository.save is not called (since loan is not fully paid)
-        verify(loanRepository, never()).save(any(Loan.class));
+        // The running totals on the loan follow the payment without looking at the other installments
+        assertEquals(1, loan.getPaidInstallmentCount());
+        assertEquals(0, new BigDecimal("500").compareTo(loan.getOutstandingAmount()));
+        assertEquals(installments.get(1).getDueDate(), loan.getNextDueDate());
+
+        // The paid installment is written with one bulk update
+        verify(loanInstallmentRepository, times(1)).markPaid(Map.of(installments.get(0).getId(), new BigDecimal("100.00")), LocalDate.now());
+        // The loan row carries the totals, so it is saved even though the loan is not fully paid
+        verify(loanRepository, times(1)).save(loan);
+        verify(loanListCache, times(1)).evictAfterCommit(loan.getCustomerId());
     }
 
     @Test
@@ -502,9 +659,9 @@ class LoanServiceTest {
             inst.setPaid(false);
             installments.add(inst);
         }
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(installments);
-        when(loanInstallmentRepository.save(any(LoanInstallment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LoanAggregates.of(installments).applyTo(loan);
+        when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
+        stubInstallmentRows(loanId, installments);
         PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
         request.setAmount(new BigDecimal("300")); // enough for 3 installments
         PayInstallmentResponseDTO response = loanService.payInstallments(loanId, request);
@@ -551,9 +708,9 @@ class LoanServiceTest {
             inst.setDueDate(LocalDate.now().plusWeeks(i)); // All due within 3 months
             installments.add(inst);
         }
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(installments);
-        when(loanInstallmentRepository.save(any(LoanInstallment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LoanAggregates.of(installments).applyTo(loan);
+        when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
+        stubInstallmentRows(loanId, installments);
         when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
         PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
         request.setAmount(new BigDecimal("300")); // enough for last 3 installments
@@ -573,8 +730,13 @@ class LoanServiceTest {
         assertEquals(0, expectedTotal.compareTo(response.getTotalAmountSpent().setScale(2, RoundingMode.HALF_UP)));
         assertTrue(response.isLoanFullyPaid());
         assertTrue(loan.isPaid());
-        verify(loanInstallmentRepository, times(3)).save(any(LoanInstallment.class));
+        verify(loanInstallmentRepository, times(1)).markPaid(anyMap(), any(LocalDate.class));
+        verify(loanInstallmentRepository, never()).save(any(LoanInstallment.class));
         verify(loanRepository, times(1)).save(loan);
+        verify(loanListCache, times(1)).evictAfterCommit(loan.getCustomerId());
+        assertEquals(6, loan.getPaidInstallmentCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(loan.getOutstandingAmount()));
+        assertNull(loan.getNextDueDate());
     }
 
     @Test
@@ -597,20 +759,21 @@ class LoanServiceTest {
             inst.setPaymentDate(LocalDate.now().minusDays(1));
             installments.add(inst);
         }
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(installments);
+        LoanAggregates.of(installments).applyTo(loan);
+        when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
+        stubInstallmentRows(loanId, installments);
         PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
         request.setAmount(new BigDecimal("100"));
         PayInstallmentResponseDTO response = loanService.payInstallments(loanId, request);
         assertEquals(0, response.getNumberOfInstallmentsPaid());
-        assertEquals(BigDecimal.ZERO, response.getTotalAmountSpent());
+        assertEquals(0, BigDecimal.ZERO.compareTo(response.getTotalAmountSpent()));
         assertTrue(response.isLoanFullyPaid());
         assertTrue(loan.isPaid());
 
         // Should return a response with zero payments if loan is already fully paid
         PayInstallmentResponseDTO response2 = loanService.payInstallments(loanId, request);
         assertEquals(0, response2.getNumberOfInstallmentsPaid());
-        assertEquals(BigDecimal.ZERO, response2.getTotalAmountSpent());
+        assertEquals(0, BigDecimal.ZERO.compareTo(response2.getTotalAmountSpent()));
         assertTrue(response2.isLoanFullyPaid());
         assertTrue(loan.isPaid());
     }
@@ -634,15 +797,17 @@ class LoanServiceTest {
             inst.setPaid(false);
             installments.add(inst);
         }
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(installments);
+        LoanAggregates.of(installments).applyTo(loan);
+        when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
+        stubInstallmentRows(loanId, installments);
         PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
         request.setAmount(new BigDecimal("50"));
         PayInstallmentResponseDTO response = loanService.payInstallments(loanId, request);
         assertEquals(0, response.getNumberOfInstallmentsPaid());
-        assertEquals(BigDecimal.ZERO, response.getTotalAmountSpent());
+        assertEquals(0, BigDecimal.ZERO.compareTo(response.getTotalAmountSpent()));
         assertFalse(response.isLoanFullyPaid());
         assertFalse(loan.isPaid());
+        verify(loanRepository, never()).save(any(Loan.class));
     }
 
     @Test
@@ -663,7 +828,7 @@ class LoanServiceTest {
         UUID loanId = UUID.randomUUID();
         PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
         request.setAmount(new BigDecimal("100"));
-        when(loanRepository.findById(loanId)).thenReturn(Optional.empty());
+        when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.empty());
         // Act & Assert
         assertThrows(LoanNotFoundException.class, () -> loanService.payInstallments(loanId, request));
     }
@@ -687,14 +852,14 @@ class LoanServiceTest {
             inst.setPaid(false);
             installments.add(inst);
         }
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(installments);
-        when(loanInstallmentRepository.save(any(LoanInstallment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LoanAggregates.of(installments).applyTo(loan);
+        when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
+        stubInstallmentRows(loanId, installments);
         PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
         request.setAmount(new BigDecimal("20"));
         PayInstallmentResponseDTO response = loanService.payInstallments(loanId, request);
         assertEquals(1, response.getNumberOfInstallmentsPaid());
-        assertEquals(new BigDecimal("15"), response.getTotalAmountSpent());
+        assertEquals(0, new BigDecimal("15").compareTo(response.getTotalAmountSpent()));
         assertTrue(installments.get(0).isPaid());
         assertFalse(installments.get(1).isPaid());
         assertFalse(response.isLoanFullyPaid());
@@ -720,13 +885,14 @@ class LoanServiceTest {
             inst.setPaid(false);
             installments.add(inst);
         }
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(installments);
+        LoanAggregates.of(installments).applyTo(loan);
+        when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
+        stubInstallmentRows(loanId, installments);
         PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
         request.setAmount(new BigDecimal("100"));
         PayInstallmentResponseDTO response = loanService.payInstallments(loanId, request);
         assertEquals(0, response.getNumberOfInstallmentsPaid());
-        assertEquals(BigDecimal.ZERO, response.getTotalAmountSpent());
+        assertEquals(0, BigDecimal.ZERO.compareTo(response.getTotalAmountSpent()));
         assertFalse(response.isLoanFullyPaid());
         assertFalse(loan.isPaid());
     }
@@ -750,9 +916,9 @@ class LoanServiceTest {
             inst.setDueDate(LocalDate.now().plusDays(10 + i));
             installments.add(inst);
         }
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(installments);
-        when(loanInstallmentRepository.save(any(LoanInstallment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LoanAggregates.of(installments).applyTo(loan);
+        when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
+        stubInstallmentRows(loanId, installments);
         when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
         PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
         request.setAmount(new BigDecimal("200"));
@@ -793,9 +959,9 @@ class LoanServiceTest {
             inst.setDueDate(LocalDate.now().minusDays(10 + i));
             installments.add(inst);
         }
-        when(loanRepository.findById(loanId)).thenReturn(Optional.of(loan));
-        when(loanInstallmentRepository.findByLoanId(loanId)).thenReturn(installments);
-        when(loanInstallmentRepository.save(any(LoanInstallment.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        LoanAggregates.of(installments).applyTo(loan);
+        when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
+        stubInstallmentRows(loanId, installments);
         when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
         PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
         request.setAmount(new BigDecimal("200"));
@@ -822,4 +988,300 @@ class LoanServiceTest {
         assertTrue(response.isLoanFullyPaid());
         assertTrue(loan.isPaid());
     }
+
+    @Test
+    void paidAmountInCentsMatchesDecimalRule() {
+        Random random = new Random(20251017L);
+        LocalDate paymentDate = LocalDate.of(2025, 6, 15);
+        for (int i = 0; i < 100_000; i++) {
+            long amount = random.nextLong(1, 10_000_000);
+            LocalDate dueDate = paymentDate.plusDays(random.nextInt(-400, 400));
+
+            // The rule as it was written on BigDecimal before amounts moved to cents
+            BigDecimal decimalAmount = Money.toDecimal(amount);
+            long daysLate = ChronoUnit.DAYS.between(dueDate, paymentDate);
+            BigDecimal adjustment = decimalAmount.multiply(new BigDecimal("0.001")).multiply(BigDecimal.valueOf(Math.abs(daysLate))).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal expected = daysLate < 0 ? decimalAmount.subtract(adjustment) : decimalAmount.add(adjustment);
+
+            assertEquals(expected, Money.toDecimal(LoanServiceImpl.paidAmount(amount, dueDate, paymentDate)),
+                decimalAmount + " due " + dueDate);
+        }
+    }
+
+    @Test
+    void shouldCreateLoansInBatchAndReportPerItemFailures() {
+        // Arrange
+        UUID unknownCustomerId = UUID.randomUUID();
+        LoanCreateRequestDTO first = new LoanCreateRequestDTO();
+        first.setCustomerId(customer.getId());
+        first.setLoanAmount(new BigDecimal("6000"));
+        first.setInterestRate(0.2);
+        first.setNumberOfInstallments(InstallmentOption.TWELVE.getValue());
+        LoanCreateRequestDTO second = new LoanCreateRequestDTO(); // exceeds the limit left after the first item
+        second.setCustomerId(customer.getId());
+        second.setLoanAmount(new BigDecimal("5000"));
+        second.setInterestRate(0.2);
+        second.setNumberOfInstallments(InstallmentOption.SIX.getValue());
+        LoanCreateRequestDTO third = new LoanCreateRequestDTO();
+        third.setCustomerId(unknownCustomerId);
+        third.setLoanAmount(new BigDecimal("100"));
+        third.setInterestRate(0.2);
+        third.setNumberOfInstallments(InstallmentOption.SIX.getValue());
+        LoanCreateRequestDTO fourth = new LoanCreateRequestDTO();
+        fourth.setCustomerId(customer.getId());
+        fourth.setLoanAmount(new BigDecimal("4000"));
+        fourth.setInterestRate(0.1);
+        fourth.setNumberOfInstallments(InstallmentOption.SIX.getValue());
+
+        when(customerRepository.findAllById(any())).thenReturn(List.of(customer));
+        when(loanMapper.toEntity(any(LoanCreateRequestDTO.class))).thenAnswer(invocation -> {
+            LoanCreateRequestDTO dto = invocation.getArgument(0);
+            Loan loan = new Loan();
+            loan.setCustomerId(dto.getCustomerId());
+            loan.setLoanAmount(dto.getLoanAmount());
+            loan.setInterestRate(dto.getInterestRate());
+            loan.setNumberOfInstallments(LoanMapper.intToInstallmentOption(dto.getNumberOfInstallments()));
+            return loan;
+        });
+
+        // Act
+        LoanBatchCreateResponseDTO response = loanService.createLoans(List.of(first, second, third, fourth));
+
+        // Assert
+        assertEquals(2, response.getCreatedCount());
+        assertEquals(2, response.getFailedCount());
+        assertTrue(response.getResults().get(0).isSuccess());
+        assertEquals("Insufficient credit limit", response.getResults().get(1).getError());
+        assertEquals("Customer not found", response.getResults().get(2).getError());
+        assertTrue(response.getResults().get(3).isSuccess());
+        assertEquals(0, new BigDecimal("4400.0").compareTo(response.getResults().get(3).getLoan().getPaymentAmount()));
+        assertEquals(0, new BigDecimal("10000").compareTo(customer.getUsedCreditLimit()));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Loan>> captor = ArgumentCaptor.forClass(List.class);
+        verify(loanRepository, times(1)).saveAll(captor.capture());
+        List<Loan> savedLoans = captor.getValue();
+        assertEquals(2, savedLoans.size());
+        assertEquals(12, savedLoans.get(0).getInstallments().size());
+        assertEquals(6, savedLoans.get(1).getInstallments().size());
+        assertTrue(savedLoans.get(0).getInstallments().stream().allMatch(inst -> inst.getLoan() == savedLoans.get(0)));
+        verify(loanInstallmentRepository, never()).save(any(LoanInstallment.class));
+        verify(customerRepository, times(1)).saveAll(argThat(customers -> customers.iterator().next() == customer));
+    }
+
+    @Test
+    void shouldReserveThroughLedgerWhenEnabled() {
+        // Arrange
+        LoanCreateRequestDTO request = new LoanCreateRequestDTO();
+        request.setCustomerId(customer.getId());
+        request.setLoanAmount(new BigDecimal("1000"));
+        request.setInterestRate(0.2);
+        request.setNumberOfInstallments(InstallmentOption.SIX.getValue());
+        when(creditLedger.isEnabled()).thenReturn(true);
+        when(loanMapper.toEntity(any(LoanCreateRequestDTO.class))).thenReturn(new Loan());
+
+        // Act
+        loanService.createLoan(request);
+
+        // Assert
+        verify(creditLedger, times(1)).reserve(customer.getId(), new BigDecimal("1000"));
+        verify(customerRepository, never()).findById(any(UUID.class));
+        verify(customerRepository, never()).save(any(Customer.class));
+    }
+
+    @Test
+    void shouldNotCreateLoanWhenLedgerRejectsReservation() {
+        // Arrange
+        LoanCreateRequestDTO request = new LoanCreateRequestDTO();
+        request.setCustomerId(customer.getId());
+        request.setLoanAmount(new BigDecimal("1000"));
+        request.setInterestRate(0.2);
+        request.setNumberOfInstallments(InstallmentOption.SIX.getValue());
+        when(creditLedger.isEnabled()).thenReturn(true);
+        doThrow(new InsufficientCreditLimitException("Insufficient credit limit")).when(creditLedger).reserve(any(UUID.class), any(BigDecimal.class));
+
+        // Act & Assert
+        assertThrows(InsufficientCreditLimitException.class, () -> loanService.createLoan(request));
+        verify(loanRepository, never()).save(any(Loan.class));
+        verify(customerRepository, never()).findById(any(UUID.class));
+    }
+
+    @Test
+    void shouldStoreScheduleInLoanWhenEmbeddedStorageEnabled() {
+        ReflectionTestUtils.setField(loanService, "embeddedSchedule", true);
+        LoanCreateRequestDTO request = new LoanCreateRequestDTO();
+        request.setCustomerId(customer.getId());
+        request.setLoanAmount(new BigDecimal("1200"));
+        request.setInterestRate(0.1);
+        request.setNumberOfInstallments(InstallmentOption.SIX.getValue());
+        when(customerRepository.findById(customer.getId())).thenReturn(Optional.of(customer));
+        when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(loanMapper.toEntity(any(LoanCreateRequestDTO.class))).thenAnswer(invocation -> {
+            Loan loan = new Loan();
+            loan.setId(UUID.randomUUID());
+            loan.setNumberOfInstallments(InstallmentOption.SIX);
+            return loan;
+        });
+
+        loanService.createLoan(request);
+
+        ArgumentCaptor<Loan> captor = ArgumentCaptor.forClass(Loan.class);
+        verify(loanRepository).save(captor.capture());
+        Loan saved = captor.getValue();
+        assertNotNull(saved.getScheduleData());
+        List<LoanInstallment> decoded = ScheduleCodec.decode(saved, saved.getScheduleData());
+        assertEquals(6, decoded.size());
+        assertEquals(new BigDecimal("220.00"), decoded.get(0).getAmount());
+        verifyNoInteractions(loanInstallmentRepository);
+    }
+
+    @Test
+    void shouldPayInstallmentsFromEmbeddedSchedule() {
+        UUID loanId = UUID.randomUUID();
+        Loan loan = new Loan();
+        loan.setId(loanId);
+        List<LoanInstallment> installments = new java.util.ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            LoanInstallment inst = new LoanInstallment();
+            inst.setAmount(new BigDecimal("100.00"));
+            inst.setPaidAmount(BigDecimal.ZERO);
+            inst.setDueDate(LocalDate.now());
+            inst.setPaid(false);
+            installments.add(inst);
+        }
+        loan.setScheduleData(ScheduleCodec.encode(installments));
+        LoanAggregates.of(installments).applyTo(loan);
+        when(loanRepository.findByIdForUpdate(loanId)).thenReturn(Optional.of(loan));
+        when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
+        request.setAmount(new BigDecimal("200"));
+
+        PayInstallmentResponseDTO response = loanService.payInstallments(loanId, request);
+
+        assertEquals(2, response.getNumberOfInstallmentsPaid());
+        assertTrue(response.isLoanFullyPaid());
+        assertEquals(ScheduleCodec.installmentId(loanId, 0), response.getPaidInstallments().get(0).getInstallmentId());
+        List<LoanInstallment> stored = ScheduleCodec.decode(loan, loan.getScheduleData());
+        assertTrue(stored.stream().allMatch(LoanInstallment::isPaid));
+        assertEquals(LocalDate.now(), stored.get(1).getPaymentDate());
+        verify(loanRepository, times(1)).save(loan);
+        verifyNoInteractions(loanInstallmentRepository);
+    }
+
+    @Test
+    void shouldSummarizeActiveLoansFromAggregatedBalances() {
+        LocalDate nextMonth = LocalDate.now().withDayOfMonth(1).plusMonths(1);
+        when(customerRepository.findById(customer.getId())).thenReturn(Optional.of(customer));
+        when(loanRepository.findActiveLoanBalancesByCustomerId(customer.getId(), LocalDate.now())).thenReturn(List.of(
+            new ActiveLoanBalance(UUID.randomUUID(), 0.2, null, new BigDecimal("600.00"), 1, nextMonth, new BigDecimal("200.00")),
+            new ActiveLoanBalance(UUID.randomUUID(), 0.5, null, new BigDecimal("300.00"), 0, nextMonth, new BigDecimal("100.00")),
+            new ActiveLoanBalance(UUID.randomUUID(), 0.1, null, new BigDecimal("110.00"), 0, nextMonth.plusMonths(1), new BigDecimal("110.00"))));
+
+        CustomerSummaryDTO summary = loanService.getCustomerSummary(customer.getId());
+
+        assertEquals(3, summary.getActiveLoans());
+        assertEquals(new BigDecimal("1010.00"), summary.getTotalRemainingPayable());
+        assertEquals(new BigDecimal("800.00"), summary.getOutstandingPrincipal());
+        assertEquals(1, summary.getOverdueInstallments());
+        assertEquals(nextMonth, summary.getNextDueDate());
+        assertEquals(new BigDecimal("300.00"), summary.getNextDueAmount());
+        verifyNoInteractions(loanInstallmentRepository);
+    }
+
+    @Test
+    void shouldSummarizeEmbeddedScheduleFromDecodedInstallments() {
+        UUID loanId = UUID.randomUUID();
+        List<LoanInstallment> installments = new java.util.ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            LoanInstallment inst = new LoanInstallment();
+            inst.setAmount(new BigDecimal("110.00"));
+            inst.setPaidAmount(i == 0 ? new BigDecimal("110.00") : BigDecimal.ZERO);
+            inst.setPaid(i == 0);
+            inst.setDueDate(LocalDate.now().withDayOfMonth(1).minusMonths(1).plusMonths(i));
+            installments.add(inst);
+        }
+        when(customerRepository.findById(customer.getId())).thenReturn(Optional.of(customer));
+        when(loanRepository.findActiveLoanBalancesByCustomerId(customer.getId(), LocalDate.now())).thenReturn(List.of(
+            new ActiveLoanBalance(loanId, 0.1, ScheduleCodec.encode(installments), BigDecimal.ZERO, 0, null, null)));
+
+        CustomerSummaryDTO summary = loanService.getCustomerSummary(customer.getId());
+
+        assertEquals(1, summary.getActiveLoans());
+        assertEquals(new BigDecimal("220.00"), summary.getTotalRemainingPayable());
+        assertEquals(new BigDecimal("200.00"), summary.getOutstandingPrincipal());
+        assertEquals(LocalDate.now().withDayOfMonth(1).plusMonths(1), summary.getNextDueDate());
+        assertEquals(new BigDecimal("110.00"), summary.getNextDueAmount());
+    }
+
+    @Test
+    void shouldReturnEmptySummaryForCustomerWithoutActiveLoans() {
+        when(customerRepository.findById(customer.getId())).thenReturn(Optional.of(customer));
+        when(loanRepository.findActiveLoanBalancesByCustomerId(customer.getId(), LocalDate.now())).thenReturn(List.of());
+
+        CustomerSummaryDTO summary = loanService.getCustomerSummary(customer.getId());
+
+        assertEquals(0, summary.getActiveLoans());
+        assertEquals(0, BigDecimal.ZERO.compareTo(summary.getTotalRemainingPayable()));
+        assertNull(summary.getNextDueDate());
+        assertNull(summary.getNextDueAmount());
+    }
+
+    @Test
+    void shouldRejectSummaryOfUnknownCustomer() {
+        UUID customerId = UUID.randomUUID();
+        when(customerRepository.findById(customerId)).thenReturn(Optional.empty());
+
+        assertThrows(CustomerNotFoundException.class, () -> loanService.getCustomerSummary(customerId));
+        verify(loanRepository, never()).findActiveLoanBalancesByCustomerId(any(), any());
+    }
+
+    // Stands in for the database behind the row stored payment path: the payable selection, bulk update and
+    // next due date query of LoanInstallmentRepository, applied to the given in-memory installments
+    private void stubInstallmentRows(UUID loanId, List<LoanInstallment> installments) {
+        when(loanInstallmentRepository.findPayableByLoanId(eq(loanId), any(LocalDate.class), any(BigDecimal.class))).thenAnswer(invocation -> {
+            LocalDate maxPayableDate = invocation.getArgument(1);
+            BigDecimal amount = invocation.getArgument(2);
+            List<PayableInstallment> payable = new java.util.ArrayList<>();
+            BigDecimal runningTotal = BigDecimal.ZERO;
+            for (LoanInstallment installment : unpaid(installments)) {
+                runningTotal = runningTotal.add(installment.getAmount());
+                if (installment.getDueDate().isAfter(maxPayableDate) || runningTotal.compareTo(amount) > 0) {
+                    break;
+                }
+                payable.add(new PayableInstallment(installment.getId(), installment.getAmount(), installment.getDueDate()));
+            }
+            return payable;
+        });
+        when(loanInstallmentRepository.markPaid(anyMap(), any(LocalDate.class))).thenAnswer(invocation -> {
+            Map<UUID, BigDecimal> paidAmounts = invocation.getArgument(0);
+            LocalDate paymentDate = invocation.getArgument(1);
+            int updated = 0;
+            for (LoanInstallment installment : installments) {
+                if (paidAmounts.containsKey(installment.getId()) && !installment.isPaid()) {
+                    installment.setPaid(true);
+                    installment.setPaymentDate(paymentDate);
+                    installment.setPaidAmount(paidAmounts.get(installment.getId()));
+                    updated++;
+                }
+            }
+            return updated;
+        });
+        when(loanInstallmentRepository.findNextUnpaidDueDate(loanId)).thenAnswer(invocation ->
+            unpaid(installments).stream().findFirst().map(LoanInstallment::getDueDate).orElse(null));
+    }
+
+    // The unpaid installments in due date order, as the database would walk them
+    private static List<LoanInstallment> unpaid(List<LoanInstallment> installments) {
+        return installments.stream()
+            .filter(installment -> !installment.isPaid())
+            .sorted(java.util.Comparator.comparing(LoanInstallment::getDueDate))
+            .toList();
+    }
+
+    private LoanResponseDTO projectedLoan(UUID customerId, BigDecimal amount, InstallmentOption option, double rate, boolean paid) {
+        return new LoanResponseDTO(UUID.randomUUID(), customerId, amount, option, rate, LocalDate.now(), paid,
+                amount.multiply(BigDecimal.valueOf(1 + rate)), LocalDate.now().withDayOfMonth(1).plusMonths(1),
+                paid ? option.getValue() : 0, paid ? BigDecimal.ZERO : amount.multiply(BigDecimal.valueOf(1 + rate)),
+                paid ? null : LocalDate.now().withDayOfMonth(1).plusMonths(1));
+    }
 }
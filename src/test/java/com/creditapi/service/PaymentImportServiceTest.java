@@ -0,0 +1,205 @@
+package com.creditapi.service;
+
+import com.creditapi.dto.PayInstallmentRequestDTO;
+import com.creditapi.dto.PayInstallmentResponseDTO;
+import com.creditapi.journal.LoanJournal;
+import com.creditapi.mapper.LoanMapperImpl;
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import com.creditapi.repository.InstallmentRow;
+import com.creditapi.repository.LoanRepository;
+import com.creditapi.util.LoanAggregates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/*
+ * Imports against the database with a chunk size of 2, so files span several chunk transactions.
+ */
+@DataJpaTest(properties = "payments.import.chunk-size=2")
+@Import({PaymentImportService.class, LoanServiceImpl.class, LoanMapperImpl.class, CreditLedger.class,
+    AmortizationScheduleEngine.class, LoanListCache.class, LoanJournal.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentImportServiceTest {
+    @Autowired
+    private PaymentImportService paymentImportService;
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private LoanRepository loanRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void appliesLinesLikeSeparatePayCalls() throws IOException {
+        LocalDate today = LocalDate.now();
+        List<LocalDate> dueDates = List.of(today.minusDays(12), today.plusDays(9), today.plusDays(40), today.plusMonths(5));
+        UUID imported = saveLoan(dueDates);
+        UUID called = saveLoan(dueDates);
+
+        List<String> results = importCsv(
+            "loanId,amount,reference\n" +
+            imported + ",150.00,first\n" +
+            "\n" +
+            imported + ",100.00,second\n" +
+            imported + ",100.00,third\n");
+
+        PayInstallmentResponseDTO first = loanService.payInstallments(called, request("150.00"));
+        PayInstallmentResponseDTO second = loanService.payInstallments(called, request("100.00"));
+        PayInstallmentResponseDTO third = loanService.payInstallments(called, request("100.00"));
+        assertEquals(PaymentImportService.RESULT_HEADER, results.get(0));
+        assertEquals(String.join(",", "2", imported.toString(), "first", "APPLIED", resultOf(first)), results.get(1));
+        assertEquals(String.join(",", "4", imported.toString(), "second", "APPLIED", resultOf(second)), results.get(2));
+        assertEquals(String.join(",", "5", imported.toString(), "third", "APPLIED", resultOf(third)), results.get(3));
+        assertEquals(4, results.size());
+
+        List<InstallmentRow> importedInstallments = installmentsOf(imported);
+        List<InstallmentRow> calledInstallments = installmentsOf(called);
+        for (int i = 0; i < dueDates.size(); i++) {
+            assertEquals(calledInstallments.get(i).isPaid(), importedInstallments.get(i).isPaid());
+            assertEquals(0, calledInstallments.get(i).paidAmount().compareTo(importedInstallments.get(i).paidAmount()));
+        }
+        Loan importedLoan = loanRepository.findById(imported).orElseThrow();
+        Loan calledLoan = loanRepository.findById(called).orElseThrow();
+        assertEquals(calledLoan.getPaidInstallmentCount(), importedLoan.getPaidInstallmentCount());
+        assertEquals(0, calledLoan.getOutstandingAmount().compareTo(importedLoan.getOutstandingAmount()));
+        assertEquals(calledLoan.getNextDueDate(), importedLoan.getNextDueDate());
+    }
+
+    @Test
+    void reportsInvalidLinesAndUnknownLoansWithoutStopping() throws IOException {
+        UUID loanId = saveLoan(List.of(LocalDate.now()));
+        UUID unknown = UUID.randomUUID();
+
+        List<String> results = importCsv(
+            "not-a-uuid,10.00,a\n" +
+            unknown + ",10.00,b\n" +
+            loanId + ",abc,c\n" +
+            loanId + ",-5,d\n" +
+            loanId + ",100.00,\"ref, with comma\"\n" +
+            loanId + "\n");
+
+        assertEquals("1,not-a-uuid,a,REJECTED,,,,Invalid loanId", results.get(1));
+        assertEquals("2," + unknown + ",b,LOAN_NOT_FOUND,,,,Loan not found", results.get(2));
+        assertEquals("3," + loanId + ",c,REJECTED,,,,Invalid amount", results.get(3));
+        assertEquals("4," + loanId + ",d,REJECTED,,,,Payment amount must be positive", results.get(4));
+        assertEquals("5," + loanId + ",\"ref, with comma\",APPLIED,1,100.00,true,", results.get(5));
+        assertEquals("6," + loanId + ",,REJECTED,,,,\"Expected loanId,amount,reference\"", results.get(6));
+        assertTrue(loanRepository.findById(loanId).orElseThrow().isPaid());
+    }
+
+    @Test
+    void failedLineDoesNotRollBackRestOfChunk() throws IOException {
+        UUID loanId = saveLoan(List.of(LocalDate.now()));
+        Loan broken = new Loan();
+        broken.setCustomerId(UUID.randomUUID());
+        broken.setLoanAmount(new BigDecimal("100.00"));
+        broken.setInterestRate(0.1);
+        broken.setNumberOfInstallments(InstallmentOption.SIX);
+        broken.setScheduleData(new byte[] {99, 0, 0, 0, 0, 0});
+        UUID brokenId = loanRepository.save(broken).getId();
+
+        List<String> results = importCsv(
+            loanId + ",100.00,ok\n" +
+            brokenId + ",100.00,broken\n");
+
+        assertTrue(results.get(1).startsWith("1," + loanId + ",ok,APPLIED,1,"), results.get(1));
+        assertTrue(results.get(2).startsWith("2," + brokenId + ",broken,FAILED,,,,"), results.get(2));
+        assertTrue(loanRepository.findById(loanId).orElseThrow().isPaid());
+    }
+
+    @Test
+    void failureAfterCommitDoesNotApplyChunkAgain() throws IOException {
+        UUID loanId = saveLoan(List.of(LocalDate.now(), LocalDate.now().plusDays(20)));
+        // Pays for real, then fails in an after-commit callback
+        LoanService failingAfterCommit = mock(LoanService.class);
+        when(failingAfterCommit.payInstallments(any(UUID.class), any(PayInstallmentRequestDTO.class))).thenAnswer(invocation -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    throw new UncheckedIOException(new IOException("after-commit callback failed"));
+                }
+            });
+            return loanService.payInstallments(invocation.getArgument(0), invocation.getArgument(1));
+        });
+        PaymentImportService importService = new PaymentImportService(failingAfterCommit, loanRepository, transactionManager, 2);
+
+        StringWriter out = new StringWriter();
+        importService.importPayments(new StringReader(loanId + ",100.00,first\n" + loanId + ",100.00,second\n"), out);
+        List<String> results = out.toString().lines().toList();
+
+        assertTrue(results.get(1).startsWith("1," + loanId + ",first,APPLIED,1,"), results.get(1));
+        assertTrue(results.get(2).startsWith("2," + loanId + ",second,APPLIED,1,"), results.get(2));
+        verify(failingAfterCommit, times(2)).payInstallments(any(UUID.class), any(PayInstallmentRequestDTO.class));
+        assertEquals(2, loanRepository.findById(loanId).orElseThrow().getPaidInstallmentCount());
+    }
+
+    @Test
+    void splitsQuotedFields() {
+        assertEquals(List.of("a", "b, c", "say \"hi\""), PaymentImportService.split("a,\"b, c\",\"say \"\"hi\"\"\""));
+        assertEquals(List.of("", ""), PaymentImportService.split(","));
+        assertEquals("\"say \"\"hi\"\"\"", PaymentImportService.csv("say \"hi\""));
+    }
+
+    private List<String> importCsv(String csv) throws IOException {
+        StringWriter out = new StringWriter();
+        paymentImportService.importPayments(new StringReader(csv), out);
+        return out.toString().lines().toList();
+    }
+
+    private static String resultOf(PayInstallmentResponseDTO response) {
+        return response.getNumberOfInstallmentsPaid() + "," + response.getTotalAmountSpent().toPlainString() + "," + response.isLoanFullyPaid() + ",";
+    }
+
+    private UUID saveLoan(List<LocalDate> dueDates) {
+        Loan loan = new Loan();
+        loan.setCustomerId(UUID.randomUUID());
+        loan.setLoanAmount(new BigDecimal("100.00").multiply(BigDecimal.valueOf(dueDates.size())));
+        loan.setInterestRate(0.1);
+        loan.setNumberOfInstallments(InstallmentOption.SIX);
+        for (LocalDate dueDate : dueDates) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setLoan(loan);
+            installment.setAmount(new BigDecimal("100.00"));
+            installment.setPaidAmount(BigDecimal.ZERO);
+            installment.setDueDate(dueDate);
+            loan.getInstallments().add(installment);
+        }
+        LoanAggregates.of(loan.getInstallments()).applyTo(loan);
+        return loanRepository.save(loan).getId();
+    }
+
+    // Installment rows in due date order; the row a loan without installment rows comes back with is left out
+    private List<InstallmentRow> installmentsOf(UUID loanId) {
+        return loanRepository.findInstallmentRowsByLoanId(loanId).stream()
+            .filter(row -> row.id() != null)
+            .toList();
+    }
+
+    private static PayInstallmentRequestDTO request(String amount) {
+        PayInstallmentRequestDTO request = new PayInstallmentRequestDTO();
+        request.setAmount(new BigDecimal(amount));
+        return request;
+    }
+}
@@ -0,0 +1,76 @@
+package com.creditapi.service;
+
+import com.creditapi.model.InstallmentOption;
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import com.creditapi.repository.InstallmentRow;
+import com.creditapi.repository.LoanRepository;
+import com.creditapi.util.ScheduleCodec;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(ScheduleMigrationService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ScheduleMigrationServiceTest {
+    @Autowired
+    private ScheduleMigrationService migrationService;
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Test
+    void convertsRowsToEmbeddedScheduleAndBack() {
+        Loan loan = new Loan();
+        loan.setCustomerId(UUID.randomUUID());
+        loan.setLoanAmount(new BigDecimal("600"));
+        loan.setInterestRate(0.1);
+        loan.setNumberOfInstallments(InstallmentOption.SIX);
+        for (int i = 5; i >= 0; i--) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setLoan(loan);
+            installment.setAmount(new BigDecimal("110.00"));
+            installment.setPaidAmount(i == 0 ? new BigDecimal("109.50") : BigDecimal.ZERO);
+            installment.setPaid(i == 0);
+            installment.setPaymentDate(i == 0 ? LocalDate.of(2025, 1, 25) : null);
+            installment.setDueDate(LocalDate.of(2025, 2, 1).plusMonths(i));
+            loan.getInstallments().add(installment);
+        }
+        UUID loanId = loanRepository.save(loan).getId();
+
+        assertEquals(1, migrationService.migrateToEmbedded(10));
+
+        Loan embedded = loanRepository.findById(loanId).orElseThrow();
+        assertNotNull(embedded.getScheduleData());
+        assertTrue(installmentsOf(loanId).isEmpty());
+        List<LoanInstallment> decoded = ScheduleCodec.decode(embedded, embedded.getScheduleData());
+        assertEquals(LocalDate.of(2025, 2, 1), decoded.get(0).getDueDate());
+        assertTrue(decoded.get(0).isPaid());
+        assertEquals(0, new BigDecimal("109.50").compareTo(decoded.get(0).getPaidAmount()));
+        assertEquals(0, migrationService.migrateToEmbedded(10));
+
+        assertEquals(1, migrationService.migrateToRows(10));
+
+        assertNull(loanRepository.findById(loanId).orElseThrow().getScheduleData());
+        List<InstallmentRow> rows = installmentsOf(loanId);
+        assertEquals(6, rows.size());
+        assertEquals(1, rows.stream().filter(InstallmentRow::isPaid).count());
+    }
+
+    // Installment rows in due date order; the row a loan without installment rows comes back with is left out
+    private List<InstallmentRow> installmentsOf(UUID loanId) {
+        return loanRepository.findInstallmentRowsByLoanId(loanId).stream()
+            .filter(row -> row.id() != null)
+            .toList();
+    }
+}
@@ -0,0 +1,69 @@
+package com.creditapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+    // Fixed seed so a failure can be replayed
+    private final Random random = new Random(20251017L);
+
+    @Test
+    void convertsBetweenDecimalAndMinorUnits() {
+        assertEquals(12345, Money.toMinor(new BigDecimal("123.45")));
+        assertEquals(10000, Money.toMinor(new BigDecimal("100")));
+        assertEquals(-5, Money.toMinor(new BigDecimal("-0.05")));
+        assertEquals(new BigDecimal("123.45"), Money.toDecimal(12345));
+        assertEquals(new BigDecimal("0.00"), Money.toDecimal(0));
+    }
+
+    @Test
+    void rejectsFractionsOfACentUnlessRounded() {
+        assertThrows(ArithmeticException.class, () -> Money.toMinor(new BigDecimal("1.005")));
+        assertEquals(101, Money.toMinor(new BigDecimal("1.005"), RoundingMode.HALF_UP));
+        assertEquals(100, Money.toMinor(new BigDecimal("1.009"), RoundingMode.DOWN));
+    }
+
+    @Test
+    void roundsTiesAwayFromZero() {
+        assertEquals(1, Money.multiplyHalfUp(5, 1, 10));
+        assertEquals(-1, Money.multiplyHalfUp(-5, 1, 10));
+        assertEquals(0, Money.multiplyHalfUp(4, 1, 10));
+        assertEquals(0, Money.multiplyHalfUp(-4, 1, 10));
+    }
+
+    @Test
+    void rejectsOverflow() {
+        assertThrows(ArithmeticException.class, () -> Money.multiplyHalfUp(Long.MAX_VALUE / 2, 3, 1));
+    }
+
+    @Test
+    void multiplyHalfUpMatchesBigDecimal() {
+        for (int i = 0; i < 100_000; i++) {
+            long minor = random.nextLong(-1_000_000_000L, 1_000_000_000L);
+            long numerator = random.nextLong(0, 100_000);
+            long denominator = random.nextLong(1, 100_000);
+
+            BigDecimal expected = BigDecimal.valueOf(minor)
+                .multiply(BigDecimal.valueOf(numerator))
+                .divide(BigDecimal.valueOf(denominator), 0, RoundingMode.HALF_UP);
+            assertEquals(expected.longValueExact(), Money.multiplyHalfUp(minor, numerator, denominator),
+                minor + " * " + numerator + " / " + denominator);
+        }
+    }
+
+    @Test
+    void roundTripsEveryCentAmount() {
+        for (int i = 0; i < 100_000; i++) {
+            long minor = random.nextLong(-10_000_000_000L, 10_000_000_000L);
+            BigDecimal decimal = Money.toDecimal(minor);
+
+            assertEquals(minor, Money.toMinor(decimal));
+            assertEquals(0, BigDecimal.valueOf(minor).movePointLeft(2).compareTo(decimal));
+        }
+    }
+}
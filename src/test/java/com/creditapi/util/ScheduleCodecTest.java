@@ -0,0 +1,62 @@
+package com.creditapi.util;
+
+import com.creditapi.model.Loan;
+import com.creditapi.model.LoanInstallment;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleCodecTest {
+
+    @Test
+    void roundTripsInstallments() {
+        Loan loan = new Loan();
+        loan.setId(UUID.randomUUID());
+        List<LoanInstallment> installments = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            LoanInstallment installment = new LoanInstallment();
+            installment.setAmount(new BigDecimal("91.67"));
+            installment.setDueDate(LocalDate.of(2025, 1, 1).plusMonths(i));
+            if (i % 3 == 0) {
+                installment.setPaid(true);
+                installment.setPaidAmount(new BigDecimal("90.12"));
+                installment.setPaymentDate(LocalDate.of(2024, 12, 20).plusMonths(i));
+            } else {
+                installment.setPaidAmount(BigDecimal.ZERO);
+            }
+            installments.add(installment);
+        }
+
+        byte[] data = ScheduleCodec.encode(installments);
+        List<LoanInstallment> decoded = ScheduleCodec.decode(loan, data);
+
+        assertEquals(ScheduleCodec.HEADER_LENGTH + 24 * ScheduleCodec.ENTRY_LENGTH, data.length);
+        assertEquals(24, decoded.size());
+        for (int i = 0; i < 24; i++) {
+            LoanInstallment expected = installments.get(i);
+            LoanInstallment actual = decoded.get(i);
+            assertEquals(0, expected.getAmount().compareTo(actual.getAmount()));
+            assertEquals(0, expected.getPaidAmount().compareTo(actual.getPaidAmount()));
+            assertEquals(expected.getDueDate(), actual.getDueDate());
+            assertEquals(expected.getPaymentDate(), actual.getPaymentDate());
+            assertEquals(expected.isPaid(), actual.isPaid());
+            assertEquals(ScheduleCodec.installmentId(loan.getId(), i), actual.getId());
+            assertSame(loan, actual.getLoan());
+        }
+    }
+
+    @Test
+    void rejectsSubCentAmounts() {
+        LoanInstallment installment = new LoanInstallment();
+        installment.setAmount(new BigDecimal("10.001"));
+        installment.setDueDate(LocalDate.of(2025, 1, 1));
+
+        assertThrows(ArithmeticException.class, () -> ScheduleCodec.encode(List.of(installment)));
+    }
+}
@@ -0,0 +1,38 @@
+package com.creditapi.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UuidV7Test {
+
+    @Test
+    void setsVersionAndVariant() {
+        UUID uuid = UuidV7.randomUuid();
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void embedsCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7.randomUuid();
+        long after = System.currentTimeMillis();
+
+        long timestamp = UuidV7.timestampMillis(uuid);
+        assertTrue(timestamp >= before && timestamp <= after + 1);
+    }
+
+    @Test
+    void isStrictlyIncreasingWithinSameMillisecond() {
+        UUID previous = UuidV7.randomUuid();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7.randomUuid();
+            // UUID.compareTo compares signed longs, so order is checked on the unsigned string form
+            assertTrue(next.toString().compareTo(previous.toString()) > 0, previous + " >= " + next);
+            previous = next;
+        }
+    }
+}